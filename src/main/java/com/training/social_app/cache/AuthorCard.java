@@ -0,0 +1,8 @@
+package com.training.social_app.cache;
+
+// Name and avatar shown next to a user's posts, comments and likes; both null when the user has no profile
+public record AuthorCard(Integer id, String fullName, String avatarUrl) {
+    public static AuthorCard empty(Integer id) {
+        return new AuthorCard(id, null, null);
+    }
+}
@@ -0,0 +1,71 @@
+package com.training.social_app.cache;
+
+import com.training.social_app.repository.UserProfileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Author cards by user id, so the DTO converters do not load a profile for every user they show.
+// The cards of a whole page are looked up at once and the misses loaded with one query.
+// Entries are dropped when the profile is saved or deleted, and expire after the TTL in any case.
+@Component
+public class AuthorCardCache {
+    private final UserProfileRepository userProfileRepository;
+
+    private final ExpiringLruCache<Integer, AuthorCard> cards;
+
+    //Bumped by every eviction, so a load that raced with a profile change is not cached
+    private final AtomicLong evictions = new AtomicLong();
+
+    public AuthorCardCache(UserProfileRepository userProfileRepository,
+                           @Value("${author-cache.max-size:10000}") int maxSize,
+                           @Value("${author-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.userProfileRepository = userProfileRepository;
+        this.cards = new ExpiringLruCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    public AuthorCard get(Integer userId) {
+        return getAll(List.of(userId)).get(userId);
+    }
+
+    // A card for every id, in the order of the ids; users without a profile get an empty card
+    public Map<Integer, AuthorCard> getAll(Collection<Integer> userIds) {
+        Map<Integer, AuthorCard> found = new LinkedHashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer userId : userIds) {
+            AuthorCard card = cards.get(userId);
+            found.put(userId, card);
+            if (card == null) {
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long evictionsBefore = evictions.get();
+            Map<Integer, AuthorCard> loaded = new HashMap<>();
+            for (Object[] row : userProfileRepository.findNamesAndAvatarsByUserIds(missing)) {
+                loaded.put((Integer) row[0], new AuthorCard((Integer) row[0], (String) row[1], (String) row[2]));
+            }
+            boolean cacheable = evictions.get() == evictionsBefore;
+            for (Integer userId : missing) {
+                AuthorCard card = loaded.getOrDefault(userId, AuthorCard.empty(userId));
+                found.put(userId, card);
+                if (cacheable) {
+                    cards.put(userId, card);
+                }
+            }
+        }
+        return found;
+    }
+
+    public void evict(Integer userId) {
+        evictions.incrementAndGet();
+        cards.remove(userId);
+    }
+}
@@ -0,0 +1,21 @@
+package com.training.social_app.cache;
+
+import com.training.social_app.entity.User;
+import com.training.social_app.enums.Role;
+
+// What the request path needs to know about the caller, without the password hash
+public record CachedPrincipal(Integer id, String username, Role role, Integer passwordVersion) {
+    public static CachedPrincipal of(User user) {
+        return new CachedPrincipal(user.getId(), user.getUsername(), user.getRole(), user.getPasswordVersion());
+    }
+
+    // Detached user carrying only the cached fields, for UserDto and UserContext
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRole(role);
+        user.setPasswordVersion(passwordVersion);
+        return user;
+    }
+}
@@ -0,0 +1,269 @@
+package com.training.social_app.cache;
+
+import com.training.social_app.repository.UserProfileRepository;
+import com.training.social_app.utils.NameFolding;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Bitmap index of the people directory: one compressed (Roaring) bitmap of user ids per location, occupation
+// and age bucket, so a value held by few users costs few bytes however large the ids are.
+// A filter is the AND of the bitmaps of its values, and a facet count is the AND cardinality of a value bitmap
+// with the other filters, computed without building the intersection, so no query reaches the profiles table.
+// Values are matched folded (accents removed, lower case) and shown as first indexed.
+// Bitmaps are updated in place under the write lock and read under the read lock.
+// Loaded from the profiles table, kept current by the profile and user services, and rebuilt every night
+// so users move to their next age bucket.
+@Component
+@Slf4j
+public class DirectoryIndex {
+    public static final String LOCATION = "location";
+    public static final String OCCUPATION = "occupation";
+    public static final String AGE = "age";
+
+    // Lower bound of every age bucket, and its label
+    private static final int[] AGE_BOUNDS = {0, 18, 25, 35, 45, 55, 65};
+    private static final String[] AGE_LABELS = {"0-17", "18-24", "25-34", "35-44", "45-54", "55-64", "65+"};
+
+    private static final RoaringBitmap NONE = new RoaringBitmap();
+
+    // A facet value and the number of users having it under the other filters
+    public record FacetCount(String value, int count) {
+    }
+
+    // The number of users matching every filter, the requested page of them (newest first),
+    // and the counts of the values of every facet
+    public record Result(int total, List<Integer> userIds, Map<String, List<FacetCount>> facets) {
+    }
+
+    private record Facet(Map<String, RoaringBitmap> bitmaps, Map<String, String> labels) {
+        Facet() {
+            this(new HashMap<>(), new HashMap<>());
+        }
+    }
+
+    // Indexed values of a user, as folded keys
+    private record Entry(String location, String occupation, String age) {
+    }
+
+    private final UserProfileRepository userProfileRepository;
+
+    private final int facetSize;
+
+    private final Map<String, Facet> facets = Map.of(LOCATION, new Facet(), OCCUPATION, new Facet(), AGE, new Facet());
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    private final RoaringBitmap everyone = new RoaringBitmap();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public DirectoryIndex(UserProfileRepository userProfileRepository,
+                          @Value("${directory.facet-size:10}") int facetSize) {
+        this.userProfileRepository = userProfileRepository;
+        this.facetSize = facetSize;
+    }
+
+    @PostConstruct
+    @Scheduled(cron = "${directory.reload-cron:0 0 3 * * *}")
+    public void load() {
+        LocalDate today = LocalDate.now();
+        Map<String, Facet> loaded = Map.of(LOCATION, new Facet(), OCCUPATION, new Facet(), AGE, new Facet());
+        Map<Integer, Entry> loadedEntries = new HashMap<>();
+        RoaringBitmap all = new RoaringBitmap();
+        for (Object[] row : userProfileRepository.findAllDirectoryFields()) {
+            int userId = (Integer) row[0];
+            Entry entry = new Entry(NameFolding.fold((String) row[1]), NameFolding.fold((String) row[2]), ageBucket((LocalDate) row[3], today));
+            loadedEntries.put(userId, entry);
+            all.add(userId);
+            set(loaded.get(LOCATION), entry.location(), (String) row[1], userId);
+            set(loaded.get(OCCUPATION), entry.occupation(), (String) row[2], userId);
+            set(loaded.get(AGE), entry.age(), entry.age(), userId);
+        }
+        // Built outside the lock, swapped in under it
+        lock.writeLock().lock();
+        try {
+            facets.forEach((name, facet) -> {
+                facet.bitmaps().clear();
+                facet.bitmaps().putAll(loaded.get(name).bitmaps());
+                facet.bitmaps().values().forEach(RoaringBitmap::runOptimize);
+                facet.labels().clear();
+                facet.labels().putAll(loaded.get(name).labels());
+            });
+            entries.clear();
+            entries.putAll(loadedEntries);
+            everyone.clear();
+            everyone.or(all);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Directory index loaded with {} users and {} locations, {} occupations", loadedEntries.size(),
+                loaded.get(LOCATION).bitmaps().size(), loaded.get(OCCUPATION).bitmaps().size());
+    }
+
+    // Index the profile fields of a user, replacing the previous ones
+    public void put(int userId, String location, String occupation, LocalDate birthDate) {
+        Entry entry = new Entry(NameFolding.fold(location), NameFolding.fold(occupation), ageBucket(birthDate, LocalDate.now()));
+        lock.writeLock().lock();
+        try {
+            unindex(userId);
+            entries.put(userId, entry);
+            set(facets.get(LOCATION), entry.location(), location, userId);
+            set(facets.get(OCCUPATION), entry.occupation(), occupation, userId);
+            set(facets.get(AGE), entry.age(), entry.age(), userId);
+            everyone.add(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int userId) {
+        lock.writeLock().lock();
+        try {
+            unindex(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(int userId) {
+        Entry entry = entries.remove(userId);
+        if (entry == null) {
+            return;
+        }
+        clear(facets.get(LOCATION), entry.location(), userId);
+        clear(facets.get(OCCUPATION), entry.occupation(), userId);
+        clear(facets.get(AGE), entry.age(), userId);
+        everyone.remove(userId);
+    }
+
+    private static void set(Facet facet, String key, String label, int userId) {
+        if (key.isEmpty()) {
+            return;
+        }
+        facet.labels().putIfAbsent(key, label.trim());
+        facet.bitmaps().computeIfAbsent(key, value -> new RoaringBitmap()).add(userId);
+    }
+
+    private static void clear(Facet facet, String key, int userId) {
+        RoaringBitmap bitmap = facet.bitmaps().get(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.remove(userId);
+        if (bitmap.isEmpty()) {
+            facet.bitmaps().remove(key);
+            facet.labels().remove(key);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Users matching every given filter (facet name -> value, blank values ignored), newest first from offset,
+    // and the facet counts. Each facet is counted under the other filters only, so picking "Hanoi" still shows
+    // how many are in "Saigon"
+    public Result query(Map<String, String> filters, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<String, RoaringBitmap> selected = new HashMap<>();
+            for (Map.Entry<String, String> filter : filters.entrySet()) {
+                Facet facet = facets.get(filter.getKey());
+                String key = NameFolding.fold(filter.getValue());
+                if (facet == null || key.isEmpty()) {
+                    continue;
+                }
+                selected.put(filter.getKey(), facet.bitmaps().getOrDefault(key, NONE));
+            }
+            Map<String, List<FacetCount>> counts = new HashMap<>();
+            for (Map.Entry<String, Facet> facet : facets.entrySet()) {
+                RoaringBitmap others = matching(selected, facet.getKey());
+                counts.put(facet.getKey(), count(facet.getValue(), others, facet.getKey().equals(AGE)));
+            }
+            RoaringBitmap matching = matching(selected, null);
+            int total = matching.getCardinality();
+            return new Result(total, newest(matching, total, offset, limit), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The AND of the selected bitmaps except one facet; a selected bitmap itself when it is the only one,
+    // and everyone when there is none, so nothing is copied in the common cases
+    private RoaringBitmap matching(Map<String, RoaringBitmap> selected, String except) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>();
+        selected.forEach((name, bitmap) -> {
+            if (!name.equals(except)) {
+                bitmaps.add(bitmap);
+            }
+        });
+        return switch (bitmaps.size()) {
+            case 0 -> everyone;
+            case 1 -> bitmaps.getFirst();
+            default -> FastAggregation.and(bitmaps.iterator());
+        };
+    }
+
+    private static List<Integer> newest(RoaringBitmap users, int total, int offset, int limit) {
+        List<Integer> page = new ArrayList<>();
+        if (offset >= total) {
+            return page;
+        }
+        // The id at rank total - 1 - offset, then downwards
+        long id = users.select(total - 1 - offset);
+        while (id >= 0 && page.size() < limit) {
+            page.add((int) id);
+            id = id == 0 ? -1 : users.previousValue((int) id - 1);
+        }
+        return page;
+    }
+
+    // The most common values first; age buckets are all shown, youngest first
+    private List<FacetCount> count(Facet facet, RoaringBitmap users, boolean allValues) {
+        List<FacetCount> counts = new ArrayList<>();
+        facet.bitmaps().forEach((key, bitmap) -> {
+            int count = users == everyone ? bitmap.getCardinality() : RoaringBitmap.andCardinality(bitmap, users);
+            if (count > 0) {
+                counts.add(new FacetCount(facet.labels().getOrDefault(key, key), count));
+            }
+        });
+        if (allValues) {
+            List<String> order = List.of(AGE_LABELS);
+            counts.sort(Comparator.comparingInt(facetCount -> order.indexOf(facetCount.value())));
+            return counts;
+        }
+        counts.sort(Comparator.comparingInt(FacetCount::count).reversed().thenComparing(FacetCount::value));
+        return counts.size() > facetSize ? new ArrayList<>(counts.subList(0, facetSize)) : counts;
+    }
+    // Label of the age bucket of a birth date, "" when unknown
+    static String ageBucket(LocalDate birthDate, LocalDate today) {
+        if (birthDate == null || birthDate.isAfter(today)) {
+            return "";
+        }
+        int age = Period.between(birthDate, today).getYears();
+        int bucket = 0;
+        while (bucket + 1 < AGE_BOUNDS.length && age >= AGE_BOUNDS[bucket + 1]) {
+            bucket++;
+        }
+        return AGE_LABELS[bucket];
+    }
+}
@@ -0,0 +1,79 @@
+package com.training.social_app.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+// Bounded map that evicts the least recently used entries when full and drops entries older than the TTL on read.
+// The bound is on the number of entries, or on the total weight of the values when a weigher is given.
+public class ExpiringLruCache<K, V> {
+    private final long ttlNanos;
+    private final long maxWeight;
+    private final ToIntFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    private record Entry<V>(V value, long expiresAt, int weight) {
+    }
+
+    public ExpiringLruCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, value -> 1);
+    }
+
+    // A value is weighed when it is put, so changes made to it in place afterwards are not counted
+    public ExpiringLruCache(long maxWeight, long ttlMillis, ToIntFunction<V> weigher) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    // The cached value, or null when absent or expired
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public synchronized void put(K key, V value) {
+        replace(key, new Entry<>(value, System.nanoTime() + ttlNanos, weigher.applyAsInt(value)));
+    }
+
+    // Replaces a live value in place, keeping its expiry; absent or expired entries are left alone
+    public synchronized void computeIfPresent(K key, UnaryOperator<V> update) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || System.nanoTime() - entry.expiresAt() > 0) {
+            return;
+        }
+        V value = update.apply(entry.value());
+        replace(key, new Entry<>(value, entry.expiresAt(), weigher.applyAsInt(value)));
+    }
+
+    public synchronized void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void replace(K key, Entry<V> entry) {
+        Entry<V> previous = entries.put(key, entry);
+        totalWeight += entry.weight() - (previous == null ? 0 : previous.weight());
+        // Least recently used first
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (totalWeight > maxWeight && eldest.hasNext()) {
+            totalWeight -= eldest.next().weight();
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.training.social_app.cache;
+
+import com.training.social_app.repository.FriendShipRepository;
+import com.training.social_app.utils.SortedIntArrays;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide index of accepted friendships: user id -> ascending array of friend ids.
+// Arrays are copy-on-write, so readers get a stable snapshot without locking and must not modify it.
+// Loaded once from the friendships table and kept current by the friendship service.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FriendGraph {
+    private final FriendShipRepository friendShipRepository;
+
+    private final ConcurrentHashMap<Integer, int[]> adjacency = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        List<Object[]> pairs = friendShipRepository.findAcceptedPairs();
+        Map<Integer, int[]> buffers = new HashMap<>();
+        Map<Integer, Integer> sizes = new HashMap<>();
+        for (Object[] pair : pairs) {
+            sizes.merge((Integer) pair[0], 1, Integer::sum);
+            sizes.merge((Integer) pair[1], 1, Integer::sum);
+        }
+        sizes.forEach((userId, degree) -> buffers.put(userId, new int[degree]));
+        sizes.replaceAll((userId, degree) -> 0);
+        for (Object[] pair : pairs) {
+            Integer user1 = (Integer) pair[0];
+            Integer user2 = (Integer) pair[1];
+            buffers.get(user1)[sizes.merge(user1, 1, Integer::sum) - 1] = user2;
+            buffers.get(user2)[sizes.merge(user2, 1, Integer::sum) - 1] = user1;
+        }
+        adjacency.clear();
+        buffers.forEach((userId, friends) -> adjacency.put(userId, SortedIntArrays.sortedDistinct(friends, friends.length)));
+        log.info("Friend graph loaded with {} users and {} friendships", adjacency.size(), pairs.size());
+    }
+
+    // Ascending friend ids of a user, never null
+    public int[] friendsOf(int userId) {
+        return adjacency.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    // Ids of the users that have at least one friend
+    public Set<Integer> userIds() {
+        return Collections.unmodifiableSet(adjacency.keySet());
+    }
+
+    public int degree(int userId) {
+        return friendsOf(userId).length;
+    }
+
+    public boolean areFriends(int userId, int otherId) {
+        return SortedIntArrays.contains(friendsOf(userId), otherId);
+    }
+
+    public int mutualCount(int userId, int otherId) {
+        return SortedIntArrays.intersectionSize(friendsOf(userId), friendsOf(otherId));
+    }
+
+    // Ascending ids of the friends two users have in common
+    public int[] mutualFriends(int userId, int otherId) {
+        return SortedIntArrays.intersect(friendsOf(userId), friendsOf(otherId));
+    }
+
+    // Mutual counts between a user and each candidate, in candidate order
+    public int[] mutualCounts(int userId, int[] candidateIds) {
+        int[] friends = friendsOf(userId);
+        int[] counts = new int[candidateIds.length];
+        for (int i = 0; i < candidateIds.length; i++) {
+            counts[i] = SortedIntArrays.intersectionSize(friends, friendsOf(candidateIds[i]));
+        }
+        return counts;
+    }
+
+    public void link(int userId, int friendId) {
+        adjacency.compute(userId, (id, friends) -> SortedIntArrays.insert(friends == null ? SortedIntArrays.EMPTY : friends, friendId));
+        adjacency.compute(friendId, (id, friends) -> SortedIntArrays.insert(friends == null ? SortedIntArrays.EMPTY : friends, userId));
+    }
+
+    public void unlink(int userId, int friendId) {
+        adjacency.computeIfPresent(userId, (id, friends) -> emptyToNull(SortedIntArrays.remove(friends, friendId)));
+        adjacency.computeIfPresent(friendId, (id, friends) -> emptyToNull(SortedIntArrays.remove(friends, userId)));
+    }
+
+    // Drop a deleted user and every edge pointing to it
+    public void removeUser(int userId) {
+        int[] friends = adjacency.remove(userId);
+        if (friends != null) {
+            for (int friendId : friends) {
+                adjacency.computeIfPresent(friendId, (id, list) -> emptyToNull(SortedIntArrays.remove(list, userId)));
+            }
+        }
+    }
+
+    private static int[] emptyToNull(int[] friends) {
+        return friends.length == 0 ? null : friends;
+    }
+}
@@ -0,0 +1,328 @@
+package com.training.social_app.cache;
+
+import com.training.social_app.repository.UserProfileRepository;
+import com.training.social_app.utils.BkTree;
+import com.training.social_app.utils.NameFolding;
+import com.training.social_app.utils.SortedIntArrays;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Inverted index over profile full names for the user search: gram -> ascending array of user ids.
+// Names are folded first (accents removed, lower case), so "nguyen" finds "Nguyễn".
+// Queries of three or more characters match names containing them, through their trigrams; shorter queries
+// match names with a word starting with them, through one- and two-letter word prefixes.
+// When that finds few users, the query words are also matched within one or two typos against the words
+// of every name, through a BK-tree of the distinct words.
+// Posting arrays are copy-on-write like the friend graph, so searches read them without locking.
+// Loaded once from the profiles table and kept current by the profile and user services.
+@Component
+@Slf4j
+public class NameTrigramIndex {
+    // Grams are up to three 16-bit chars packed in a long; word prefixes are tagged above them
+    private static final long ONE_LETTER_PREFIX = 1L << 48;
+    private static final long TWO_LETTER_PREFIX = 1L << 49;
+
+    // Rank fields, most significant first: match kind, closeness in typos, shortness of the name
+    private static final int NAME_LENGTH_BITS = 20;
+    private static final int MAX_NAME_LENGTH = (1 << NAME_LENGTH_BITS) - 1;
+    private static final int DISTANCE_BITS = 8;
+    private static final int MAX_DISTANCE = (1 << DISTANCE_BITS) - 1;
+
+    // A match and its rank: better matches have a higher rank, ties go to the higher id like the other cursor lists
+    public record Match(int userId, long rank) {
+    }
+
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingLong(Match::rank)
+            .thenComparingInt(Match::userId)
+            .reversed();
+
+    private final UserProfileRepository userProfileRepository;
+
+    private final int maxCandidates;
+
+    private final int fuzzyBelow;
+
+    private final ConcurrentHashMap<Integer, String> names = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, int[]> postings = new ConcurrentHashMap<>();
+
+    // Folded word -> ascending ids of the users with that word in their name
+    private final ConcurrentSkipListMap<String, int[]> words = new ConcurrentSkipListMap<>();
+
+    private volatile BkTree wordTree = new BkTree();
+
+    public NameTrigramIndex(UserProfileRepository userProfileRepository,
+                            @Value("${name-search.max-candidates:2000}") int maxCandidates,
+                            @Value("${name-search.fuzzy-below:10}") int fuzzyBelow) {
+        this.userProfileRepository = userProfileRepository;
+        this.maxCandidates = maxCandidates;
+        this.fuzzyBelow = fuzzyBelow;
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        Map<Long, int[]> buffers = new HashMap<>();
+        Map<Long, Integer> sizes = new HashMap<>();
+        Map<Integer, String> loaded = new HashMap<>();
+        for (Object[] row : userProfileRepository.findAllNames()) {
+            String name = NameFolding.fold((String) row[1]);
+            if (!name.isEmpty()) {
+                loaded.put((Integer) row[0], name);
+            }
+        }
+        loaded.forEach((userId, name) -> {
+            for (long gram : grams(name)) {
+                sizes.merge(gram, 1, Integer::sum);
+            }
+        });
+        sizes.forEach((gram, size) -> buffers.put(gram, new int[size]));
+        sizes.replaceAll((gram, size) -> 0);
+        loaded.forEach((userId, name) -> {
+            for (long gram : grams(name)) {
+                buffers.get(gram)[sizes.merge(gram, 1, Integer::sum) - 1] = userId;
+            }
+        });
+        Map<String, List<Integer>> wordUsers = new HashMap<>();
+        loaded.forEach((userId, name) -> {
+            for (String word : wordsOf(name)) {
+                wordUsers.computeIfAbsent(word, key -> new ArrayList<>()).add(userId);
+            }
+        });
+        names.clear();
+        names.putAll(loaded);
+        postings.clear();
+        buffers.forEach((gram, userIds) -> postings.put(gram, SortedIntArrays.sortedDistinct(userIds, userIds.length)));
+        words.clear();
+        BkTree tree = new BkTree();
+        wordUsers.forEach((word, userIds) -> {
+            int[] values = userIds.stream().mapToInt(Integer::intValue).toArray();
+            words.put(word, SortedIntArrays.sortedDistinct(values, values.length));
+            tree.add(word);
+        });
+        wordTree = tree;
+        log.info("Name index loaded with {} names, {} grams and {} words", names.size(), postings.size(), words.size());
+    }
+
+    // Index the new full name of a user, replacing the previous one
+    public synchronized void put(int userId, String fullName) {
+        String name = NameFolding.fold(fullName);
+        String previous = name.isEmpty() ? names.remove(userId) : names.put(userId, name);
+        long[] before = previous == null ? new long[0] : grams(previous);
+        long[] after = grams(name);
+        for (long gram : before) {
+            if (Arrays.binarySearch(after, gram) < 0) {
+                postings.computeIfPresent(gram, (key, userIds) -> {
+                    int[] rest = SortedIntArrays.remove(userIds, userId);
+                    return rest.length == 0 ? null : rest;
+                });
+            }
+        }
+        for (long gram : after) {
+            if (Arrays.binarySearch(before, gram) < 0) {
+                postings.merge(gram, new int[]{userId}, (userIds, added) -> SortedIntArrays.insert(userIds, userId));
+            }
+        }
+        Set<String> wordsBefore = previous == null ? Set.of() : wordsOf(previous);
+        Set<String> wordsAfter = wordsOf(name);
+        for (String word : wordsBefore) {
+            if (!wordsAfter.contains(word)) {
+                //The word stays in the tree; searches skip words nobody has
+                words.computeIfPresent(word, (key, userIds) -> {
+                    int[] rest = SortedIntArrays.remove(userIds, userId);
+                    return rest.length == 0 ? null : rest;
+                });
+            }
+        }
+        for (String word : wordsAfter) {
+            if (!wordsBefore.contains(word)) {
+                words.merge(word, new int[]{userId}, (userIds, added) -> SortedIntArrays.insert(userIds, userId));
+                wordTree.add(word);
+            }
+        }
+    }
+
+    public void remove(int userId) {
+        put(userId, null);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    // Users whose name matches the query, best first. Every user holding every gram of the query is scored,
+    // but only the best max-candidates are kept and sorted, so a very common query returns a bounded list
+    public List<Match> search(String query) {
+        String text = NameFolding.fold(query);
+        if (text.isEmpty()) {
+            return List.of();
+        }
+        long[] grams = text.length() < 3 ? new long[]{prefixGram(text)} : trigrams(text);
+        int[][] lists = new int[grams.length][];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.getOrDefault(grams[i], SortedIntArrays.EMPTY);
+        }
+        // Rarest first: every intersection is then at most as long as the shortest list
+        Arrays.sort(lists, Comparator.comparingInt(userIds -> userIds.length));
+        int[] candidates = lists[0];
+        for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+            candidates = SortedIntArrays.intersect(candidates, lists[i]);
+        }
+        //Worst kept match at the head, replaced whenever a better one comes
+        PriorityQueue<Match> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        for (int userId : candidates) {
+            String name = names.get(userId);
+            //Grams are only a filter, and the name may have changed since the lists were read
+            int score = name == null ? 0 : score(name, text);
+            if (score > 0) {
+                keepBest(best, new Match(userId, rank(score, 0, name)));
+            }
+        }
+        List<Match> matches = new ArrayList<>(best);
+        //Shorter queries allow no typos, and their exact matches already cover every word start
+        if (matches.size() < fuzzyBelow && text.length() >= 4) {
+            matches.addAll(fuzzySearch(text, matches));
+        }
+        matches.sort(BEST_FIRST);
+        return matches;
+    }
+
+    // Users having, for every word of the query, a word of their name starting with it or within the typos
+    // allowed for its length; ranked below every exact match, fewer typos first
+    private List<Match> fuzzySearch(String text, List<Match> exact) {
+        Map<Integer, Integer> distances = null;
+        for (String token : wordsOf(text)) {
+            Map<Integer, Integer> tokenDistances = new HashMap<>();
+            for (int[] userIds : words.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                if (!collect(tokenDistances, userIds, 0)) {
+                    break;
+                }
+            }
+            int allowed = token.length() >= 8 ? 2 : token.length() >= 4 ? 1 : 0;
+            if (allowed > 0) {
+                //Closest words first, so the candidates kept when the cap is hit are those with the fewest typos
+                List<BkTree.Hit> hits = new ArrayList<>(wordTree.search(token, allowed));
+                hits.sort(Comparator.comparingInt(BkTree.Hit::distance));
+                for (BkTree.Hit hit : hits) {
+                    if (!collect(tokenDistances, words.getOrDefault(hit.word(), SortedIntArrays.EMPTY), hit.distance())) {
+                        break;
+                    }
+                }
+            }
+            if (distances == null) {
+                distances = tokenDistances;
+            } else {
+                Map<Integer, Integer> both = new HashMap<>();
+                for (Map.Entry<Integer, Integer> entry : distances.entrySet()) {
+                    Integer distance = tokenDistances.get(entry.getKey());
+                    if (distance != null) {
+                        both.put(entry.getKey(), entry.getValue() + distance);
+                    }
+                }
+                distances = both;
+            }
+            if (distances.isEmpty()) {
+                return List.of();
+            }
+        }
+        Set<Integer> found = new HashSet<>();
+        exact.forEach(match -> found.add(match.userId()));
+        List<Match> matches = new ArrayList<>();
+        distances.forEach((userId, distance) -> {
+            String name = names.get(userId);
+            if (name != null && !found.contains(userId)) {
+                matches.add(new Match(userId, rank(0, distance, name)));
+            }
+        });
+        return matches;
+    }
+
+    private void keepBest(PriorityQueue<Match> best, Match match) {
+        if (best.size() < maxCandidates) {
+            best.add(match);
+        } else if (BEST_FIRST.compare(match, best.peek()) < 0) {
+            best.poll();
+            best.add(match);
+        }
+    }
+
+    // Keeps the smallest distance of every user; false once max-candidates users were collected
+    private boolean collect(Map<Integer, Integer> tokenDistances, int[] userIds, int distance) {
+        for (int userId : userIds) {
+            if (tokenDistances.size() >= maxCandidates && !tokenDistances.containsKey(userId)) {
+                return false;
+            }
+            tokenDistances.merge(userId, distance, Math::min);
+        }
+        return true;
+    }
+
+    private static long rank(int score, int distance, String name) {
+        return ((long) score << (DISTANCE_BITS + NAME_LENGTH_BITS))
+                | ((long) (MAX_DISTANCE - Math.min(distance, MAX_DISTANCE)) << NAME_LENGTH_BITS)
+                | (MAX_NAME_LENGTH - Math.min(name.length(), MAX_NAME_LENGTH));
+    }
+
+    // 3 when the name starts with the query, 2 when one of its words does, 1 when it is inside a word, 0 otherwise.
+    // Short queries only match at the start of a word
+    private static int score(String name, String text) {
+        if (name.startsWith(text)) {
+            return 3;
+        }
+        if (name.contains(" " + text)) {
+            return 2;
+        }
+        return text.length() >= 3 && name.contains(text) ? 1 : 0;
+    }
+
+    private static Set<String> wordsOf(String name) {
+        return name.isEmpty() ? Set.of() : Set.of(Arrays.stream(name.split(" ")).distinct().toArray(String[]::new));
+    }
+
+    // Sorted distinct grams of a folded name: its trigrams and the one- and two-letter prefixes of its words
+    private static long[] grams(String name) {
+        long[] trigrams = trigrams(name);
+        long[] grams = Arrays.copyOf(trigrams, trigrams.length + 2 * name.length());
+        int size = trigrams.length;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != ' ' && (i == 0 || name.charAt(i - 1) == ' ')) {
+                grams[size++] = prefixGram(name.substring(i, i + 1));
+                if (i + 1 < name.length() && name.charAt(i + 1) != ' ') {
+                    grams[size++] = prefixGram(name.substring(i, i + 2));
+                }
+            }
+        }
+        Arrays.sort(grams, 0, size);
+        return Arrays.stream(grams, 0, size).distinct().toArray();
+    }
+
+    private static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[text.length() - 2];
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(trigrams).sorted().distinct().toArray();
+    }
+
+    private static long prefixGram(String prefix) {
+        return prefix.length() == 1
+                ? ONE_LETTER_PREFIX | ((long) prefix.charAt(0) << 32)
+                : TWO_LETTER_PREFIX | ((long) prefix.charAt(0) << 32) | ((long) prefix.charAt(1) << 16);
+    }
+}
@@ -0,0 +1,107 @@
+package com.training.social_app.cache;
+
+import com.training.social_app.repository.LikeRepository;
+import com.training.social_app.utils.Chunks;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Ids of the users who liked a post, as a compressed bitmap, for the posts whose likers were asked for recently.
+// Memory is bounded by the total number of cached ids (liker-cache.max-ids), not by the number of posts.
+// A post with more likers than liker-cache.max-ids-per-post is not cached: its likers are looked up
+// among the ids asked about only, e.g. the viewer's friends.
+// Bitmaps are updated in place by the like paths, under their own lock; a set loaded while a like was being
+// written may miss it until the TTL.
+@Component
+public class PostLikerCache {
+    // Cached in place of the likers of a post that has too many to cache
+    private static final RoaringBitmap TOO_MANY = new RoaringBitmap();
+
+    // Ids per IN (...) lookup of an uncached post
+    private static final int LOOKUP_CHUNK = 1000;
+
+    private final LikeRepository likeRepository;
+
+    private final int maxIdsPerPost;
+
+    private final ExpiringLruCache<Integer, RoaringBitmap> likers;
+
+    public PostLikerCache(LikeRepository likeRepository,
+                          @Value("${liker-cache.max-ids:1000000}") long maxIds,
+                          @Value("${liker-cache.max-ids-per-post:100000}") int maxIdsPerPost,
+                          @Value("${liker-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.likeRepository = likeRepository;
+        this.maxIdsPerPost = maxIdsPerPost;
+        this.likers = new ExpiringLruCache<>(maxIds, ttlSeconds * 1000, bitmap -> Math.max(1, bitmap.getCardinality()));
+    }
+
+    // The ones of the given ascending user ids who liked the post, ascending
+    public int[] likersAmong(int postId, int[] userIds) {
+        if (userIds.length == 0) {
+            return userIds;
+        }
+        RoaringBitmap cached = load(postId);
+        if (cached == TOO_MANY) {
+            List<Integer> found = new ArrayList<>();
+            for (List<Integer> chunk : Chunks.of(Arrays.stream(userIds).boxed().toList(), LOOKUP_CHUNK)) {
+                found.addAll(likeRepository.findUserIdsByPostIdAndUserIdIn(postId, chunk));
+            }
+            return found.stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+        synchronized (cached) {
+            return Arrays.stream(userIds).filter(cached::contains).toArray();
+        }
+    }
+
+    public boolean contains(int postId, int userId) {
+        return likersAmong(postId, new int[]{userId}).length > 0;
+    }
+
+    private RoaringBitmap load(int postId) {
+        RoaringBitmap cached = likers.get(postId);
+        if (cached != null) {
+            return cached;
+        }
+        List<Integer> userIds = likeRepository.findUserIdsByPostId(postId, PageRequest.of(0, maxIdsPerPost + 1));
+        if (userIds.size() > maxIdsPerPost) {
+            cached = TOO_MANY;
+        } else {
+            cached = new RoaringBitmap();
+            for (Integer userId : userIds) {
+                cached.add(userId);
+            }
+            cached.runOptimize();
+        }
+        likers.put(postId, cached);
+        return cached;
+    }
+
+    public void added(int postId, int userId) {
+        RoaringBitmap cached = likers.get(postId);
+        if (cached != null && cached != TOO_MANY) {
+            synchronized (cached) {
+                cached.add(userId);
+            }
+        }
+    }
+
+    public void removed(int postId, int userId) {
+        RoaringBitmap cached = likers.get(postId);
+        if (cached != null && cached != TOO_MANY) {
+            synchronized (cached) {
+                cached.remove(userId);
+            }
+        }
+    }
+
+    // Posts that were deleted
+    public void evict(Collection<Integer> postIds) {
+        postIds.forEach(likers::remove);
+    }
+}
@@ -0,0 +1,28 @@
+package com.training.social_app.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Authenticated callers by username, so resolving a JWT subject does not query the users table.
+// Entries are dropped when the password changes or the user is deleted, and expire after the TTL in any case.
+@Component
+public class PrincipalCache {
+    private final ExpiringLruCache<String, CachedPrincipal> principals;
+
+    public PrincipalCache(@Value("${principal-cache.max-size:10000}") int maxSize,
+                          @Value("${principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.principals = new ExpiringLruCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    public CachedPrincipal get(String username) {
+        return principals.get(username);
+    }
+
+    public void put(CachedPrincipal principal) {
+        principals.put(principal.username(), principal);
+    }
+
+    public void invalidate(String username) {
+        principals.remove(username);
+    }
+}
@@ -0,0 +1,257 @@
+package com.training.social_app.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Short-lived secrets (login OTPs, password reset tokens) kept in memory instead of on the users row.
+// Expiry runs on a hashed timing wheel: every entry sits in the slot of the tick it expires on,
+// and each tick only visits its own slot, so adding, removing and expiring an entry are all O(1).
+// Entries still on the wheel for a later round are left in place; reads also check the deadline.
+// When secret-store.journal-file is set, puts and removals are appended to that file and replayed on startup.
+@Component
+@Slf4j
+public class SecretStore {
+    private record Entry(String value, long expiresAt, int slot) {
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Set<String>[] wheel;
+
+    private final long tickMs;
+
+    private final Path journalPath;
+
+    private long lastTick;
+
+    private BufferedWriter journal;
+
+    @SuppressWarnings("unchecked")
+    public SecretStore(@Value("${secret-store.wheel-size:512}") int wheelSize,
+                       @Value("${secret-store.tick-ms:1000}") long tickMs,
+                       @Value("${secret-store.journal-file:}") String journalFile) {
+        this.tickMs = tickMs;
+        this.wheel = new Set[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.journalPath = journalFile == null || journalFile.isBlank() ? null : Path.of(journalFile);
+        this.lastTick = System.currentTimeMillis() / tickMs;
+    }
+
+    // Changes to a key are journaled inside the map's update of that key, so the journal records them
+    // in the order they were applied and a replay cannot bring back a secret taken right after it was put
+    public void put(String key, String value, Duration ttl) {
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        Entry entry = entryOf(value, expiresAt);
+        entries.compute(key, (k, previous) -> {
+            append("P", key, value, expiresAt);
+            return entry;
+        });
+        wheel[entry.slot()].add(key);
+    }
+
+    // The value, or null when absent or expired
+    public String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    // Removes the entry and returns its value, so a secret can only be used once
+    public String take(String key) {
+        Entry[] taken = new Entry[1];
+        entries.computeIfPresent(key, (k, entry) -> {
+            append("R", key, null, 0);
+            taken[0] = entry;
+            return null;
+        });
+        if (taken[0] == null) {
+            return null;
+        }
+        return isExpired(taken[0], System.currentTimeMillis()) ? null : taken[0].value();
+    }
+
+    // Removes the entry only if it still holds this value; false if it was used, replaced or expired meanwhile
+    public boolean remove(String key, String value) {
+        Entry[] removed = new Entry[1];
+        entries.computeIfPresent(key, (k, entry) -> {
+            if (!entry.value().equals(value)) {
+                return entry;
+            }
+            append("R", key, null, 0);
+            removed[0] = entry;
+            return null;
+        });
+        return removed[0] != null && !isExpired(removed[0], System.currentTimeMillis());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedRateString = "${secret-store.tick-ms:1000}")
+    public void advance() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / tickMs;
+        long from;
+        synchronized (this) {
+            from = lastTick + 1;
+            lastTick = currentTick;
+        }
+        // After a long pause one full turn visits every slot
+        long ticks = Math.min(currentTick - from + 1, wheel.length);
+        for (long i = 0; i < ticks; i++) {
+            expireSlot((int) Math.floorMod(from + i, (long) wheel.length), now);
+        }
+    }
+
+    private void expireSlot(int slot, long now) {
+        Set<String> keys = wheel[slot];
+        for (String key : keys) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.slot() == slot) {
+                if (!isExpired(entry, now)) {
+                    //Due on a later round of the wheel
+                    continue;
+                }
+                entries.remove(key, entry);
+            }
+            keys.remove(key);
+            //A put for this slot may have raced with the removal
+            Entry current = entries.get(key);
+            if (current != null && current.slot() == slot) {
+                keys.add(key);
+            }
+        }
+    }
+
+    private Entry entryOf(String value, long expiresAt) {
+        int slot = (int) Math.floorMod(Math.ceilDiv(expiresAt, tickMs), (long) wheel.length);
+        return new Entry(value, expiresAt, slot);
+    }
+
+    private void store(String key, String value, long expiresAt) {
+        Entry entry = entryOf(value, expiresAt);
+        entries.put(key, entry);
+        wheel[entry.slot()].add(key);
+    }
+
+    private static boolean isExpired(Entry entry, long now) {
+        return now >= entry.expiresAt();
+    }
+
+    @PostConstruct
+    public void openJournal() {
+        if (journalPath == null) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            if (Files.exists(journalPath)) {
+                for (String line : Files.readAllLines(journalPath, StandardCharsets.UTF_8)) {
+                    replay(line, now);
+                }
+            }
+            // Rewrite the journal with live entries only, so it does not grow across restarts
+            Path compacted = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writer.write(line("P", entry.getKey(), entry.getValue().value(), entry.getValue().expiresAt()));
+                }
+            }
+            restrictToOwner(compacted);
+            Files.move(compacted, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            log.info("Secret store journal {} restored {} entries", journalPath, entries.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open secret store journal " + journalPath, e);
+        }
+    }
+
+    private void replay(String line, long now) {
+        String[] fields = line.split("\t");
+        if (fields.length == 4 && fields[0].equals("P")) {
+            long expiresAt = Long.parseLong(fields[3]);
+            if (expiresAt > now) {
+                store(decode(fields[1]), decode(fields[2]), expiresAt);
+            }
+        } else if (fields.length >= 2 && fields[0].equals("R")) {
+            entries.remove(decode(fields[1]));
+        }
+    }
+
+    private synchronized void append(String op, String key, String value, long expiresAt) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.write(line(op, key, value, expiresAt));
+            journal.flush();
+        } catch (IOException e) {
+            //The in-memory entry is still valid; it just will not survive a restart
+            log.error("Could not append to secret store journal: ", e);
+        }
+    }
+
+    private static String line(String op, String key, String value, long expiresAt) {
+        if (op.equals("R")) {
+            return op + "\t" + encode(key) + "\n";
+        }
+        return op + "\t" + encode(key) + "\t" + encode(value) + "\t" + expiresAt + "\n";
+    }
+
+    private static String encode(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String text) {
+        return new String(Base64.getUrlDecoder().decode(text), StandardCharsets.UTF_8);
+    }
+
+    private static void restrictToOwner(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            log.debug("Could not restrict permissions of {}", path);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.error("Could not close secret store journal: ", e);
+        }
+        journal = null;
+    }
+}
@@ -0,0 +1,214 @@
+package com.training.social_app.cache;
+
+import com.training.social_app.repository.UserProfileRepository;
+import com.training.social_app.repository.UserRepository;
+import com.training.social_app.utils.NameFolding;
+import com.training.social_app.utils.SortedIntArrays;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Sorted token map for the search-box typeahead: every word of a full name and every username -> ascending user ids.
+// A prefix is a range of the map, so a keystroke is answered from memory by a scan of that range.
+// Posting arrays are copy-on-write, so lookups read them without locking.
+// Loaded once from the users and profiles tables and kept current by the user and profile services.
+@Component
+@Slf4j
+public class TypeaheadIndex {
+    // A suggested user and what it is ranked by: friend of the viewer (1 or 0), matched query tokens, friend count
+    private record Candidate(int userId, int friend, int matched, int degree) {
+    }
+
+    private static final Comparator<Candidate> BEST = Comparator.comparingInt(Candidate::friend)
+            .thenComparingInt(Candidate::matched)
+            .thenComparingInt(Candidate::degree)
+            .thenComparingInt(Candidate::userId);
+
+    private final UserRepository userRepository;
+
+    private final UserProfileRepository userProfileRepository;
+
+    private final FriendGraph friendGraph;
+
+    private final ConcurrentSkipListMap<String, int[]> tokens = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentHashMap<Integer, String> usernames = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Integer, String> names = new ConcurrentHashMap<>();
+
+    public TypeaheadIndex(UserRepository userRepository,
+                          UserProfileRepository userProfileRepository,
+                          FriendGraph friendGraph) {
+        this.userRepository = userRepository;
+        this.userProfileRepository = userProfileRepository;
+        this.friendGraph = friendGraph;
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        usernames.clear();
+        names.clear();
+        for (Object[] row : userRepository.findAllUsernames()) {
+            String username = NameFolding.fold((String) row[1]);
+            if (!username.isEmpty()) {
+                usernames.put((Integer) row[0], username);
+            }
+        }
+        for (Object[] row : userProfileRepository.findAllNames()) {
+            String name = NameFolding.fold((String) row[1]);
+            if (!name.isEmpty()) {
+                names.put((Integer) row[0], name);
+            }
+        }
+        Map<String, List<Integer>> postings = new HashMap<>();
+        Set<Integer> userIds = new LinkedHashSet<>(usernames.keySet());
+        userIds.addAll(names.keySet());
+        for (Integer userId : userIds) {
+            for (String token : tokensOf(userId)) {
+                postings.computeIfAbsent(token, key -> new ArrayList<>()).add(userId);
+            }
+        }
+        tokens.clear();
+        postings.forEach((token, ids) -> {
+            int[] values = ids.stream().mapToInt(Integer::intValue).toArray();
+            tokens.put(token, SortedIntArrays.sortedDistinct(values, values.length));
+        });
+        log.info("Typeahead index loaded with {} users and {} tokens", userIds.size(), tokens.size());
+    }
+
+    public void putUsername(int userId, String username) {
+        update(userId, usernames, username);
+    }
+
+    public void putName(int userId, String fullName) {
+        update(userId, names, fullName);
+    }
+
+    public synchronized void remove(int userId) {
+        String[] before = tokensOf(userId);
+        usernames.remove(userId);
+        names.remove(userId);
+        patch(userId, before, new String[0]);
+    }
+
+    private synchronized void update(int userId, ConcurrentHashMap<Integer, String> field, String value) {
+        String[] before = tokensOf(userId);
+        String normalized = NameFolding.fold(value);
+        if (normalized.isEmpty()) {
+            field.remove(userId);
+        } else {
+            field.put(userId, normalized);
+        }
+        patch(userId, before, tokensOf(userId));
+    }
+
+    private void patch(int userId, String[] before, String[] after) {
+        for (String token : before) {
+            if (Arrays.binarySearch(after, token) < 0) {
+                tokens.computeIfPresent(token, (key, userIds) -> {
+                    int[] rest = SortedIntArrays.remove(userIds, userId);
+                    return rest.length == 0 ? null : rest;
+                });
+            }
+        }
+        for (String token : after) {
+            if (Arrays.binarySearch(before, token) < 0) {
+                tokens.merge(token, new int[]{userId}, (userIds, added) -> SortedIntArrays.insert(userIds, userId));
+            }
+        }
+    }
+
+    // The best users for what was typed so far: those whose name or username has a token starting with a query token,
+    // friends of the viewer first, then users matching more query tokens, then users with more friends.
+    // The prefix ranges are scanned in full and ranked while scanning in a heap of the best limit users, so popular
+    // users late in the alphabet are not cut off; a user that could not beat the worst kept one is not scored
+    public List<Integer> suggest(String query, int viewerId, int limit) {
+        String[] queryTokens = Arrays.stream(NameFolding.fold(query).split(" "))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+        if (queryTokens.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        int[] friends = friendGraph.friendsOf(viewerId);
+        // Worst first, so the head is the one to drop
+        PriorityQueue<Candidate> top = new PriorityQueue<>(BEST);
+        Set<Integer> kept = new HashSet<>();
+        for (int friendId : friends) {
+            if (friendId != viewerId) {
+                offer(top, kept, new Candidate(friendId, 1, matchedTokens(friendId, queryTokens), friendGraph.degree(friendId)), limit);
+            }
+        }
+        for (String queryToken : queryTokens) {
+            for (int[] userIds : tokens.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).values()) {
+                for (int userId : userIds) {
+                    if (userId == viewerId || kept.contains(userId) || SortedIntArrays.contains(friends, userId)) {
+                        continue;
+                    }
+                    int degree = friendGraph.degree(userId);
+                    if (top.size() >= limit && BEST.compare(new Candidate(userId, 0, queryTokens.length, degree), top.peek()) <= 0) {
+                        continue;
+                    }
+                    offer(top, kept, new Candidate(userId, 0, matchedTokens(userId, queryTokens), degree), limit);
+                }
+            }
+        }
+        return top.stream()
+                .sorted(BEST.reversed())
+                .map(Candidate::userId)
+                .toList();
+    }
+
+    private static void offer(PriorityQueue<Candidate> top, Set<Integer> kept, Candidate candidate, int limit) {
+        if (candidate.matched() == 0) {
+            return;
+        }
+        top.add(candidate);
+        kept.add(candidate.userId());
+        if (top.size() > limit) {
+            kept.remove(top.poll().userId());
+        }
+    }
+
+    // How many query tokens start one of the user's tokens
+    private int matchedTokens(int userId, String[] queryTokens) {
+        String[] userTokens = tokensOf(userId);
+        int count = 0;
+        for (String queryToken : queryTokens) {
+            for (String userToken : userTokens) {
+                if (userToken.startsWith(queryToken)) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Sorted distinct tokens of a user: the words of the full name and the whole username
+    private String[] tokensOf(int userId) {
+        Set<String> userTokens = new LinkedHashSet<>();
+        String name = names.get(userId);
+        if (name != null) {
+            userTokens.addAll(Arrays.asList(name.split(" ")));
+        }
+        String username = usernames.get(userId);
+        if (username != null) {
+            userTokens.add(username);
+        }
+        return userTokens.stream().sorted().toArray(String[]::new);
+    }
+}
@@ -3,7 +3,9 @@ package com.training.social_app.config;
 import com.training.social_app.dto.response.UserDto;
 import com.training.social_app.utils.JwtTokenUtils;
 import com.training.social_app.utils.UserContext;
+import com.training.social_app.utils.VerifiedToken;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,6 +15,7 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -35,31 +38,39 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
+        VerifiedToken verifiedToken = null;
         // JWT Token is in the form "Bearer token". Remove Bearer word and get
         // only the Token
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtTokenUtil.getUsernameFromToken(jwtToken);
+                // Signature and expiry are checked here, once per token
+                verifiedToken = jwtTokenUtil.verify(jwtToken);
             } catch (IllegalArgumentException e) {
                 logger.error("Unable to get JWT Token");
             } catch (ExpiredJwtException e) {
                 logger.error("JWT Token has expired");
+            } catch (JwtException e) {
+                logger.error("Invalid JWT Token");
             }
         } else {
             logger.warn("JWT Token does not begin with Bearer String");
         }
 
         // Once we get the token validate it.
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-            UserDto userDto = (UserDto) this.jwtUserDetailsService.loadUserByUsername(username);
+        if (verifiedToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDto userDto = null;
+            try {
+                // Served from the principal cache; only consulted to reject tokens of deleted users
+                // and tokens issued before the last password change
+                userDto = (UserDto) this.jwtUserDetailsService.loadUserByUsername(verifiedToken.username());
+            } catch (UsernameNotFoundException e) {
+                logger.error("JWT Token user no longer exists");
+            }
 
             // if token is valid configure Spring Security to manually set
             // authentication
-            if (jwtTokenUtil.validateToken(jwtToken, userDto)) {
+            if (userDto != null && isCurrent(verifiedToken, userDto)) {
 
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
                         userDto, null, userDto.getAuthorities());
@@ -78,4 +89,13 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         UserContext.clear();
     }
 
+    // Tokens issued before the id/role/password-version claims only need their subject to exist
+    private boolean isCurrent(VerifiedToken verifiedToken, UserDto userDto) {
+        if (!verifiedToken.isSelfContained()) {
+            return true;
+        }
+        return verifiedToken.userId().equals(userDto.getUser().getId())
+                && verifiedToken.passwordVersion().equals(userDto.getUser().getPasswordVersion());
+    }
+
 }
\ No newline at end of file
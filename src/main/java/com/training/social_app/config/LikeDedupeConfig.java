@@ -0,0 +1,38 @@
+package com.training.social_app.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// One-off cleanup for databases created before likes had the (user_id, post_id) unique key.
+// Turn likes.dedupe-on-startup on for a single start: repeated likes are removed before Hibernate
+// updates the schema, so the unique key is created in that same start. Turn it off again afterwards.
+@Configuration
+@ConditionalOnProperty(name = "likes.dedupe-on-startup", havingValue = "true")
+@Slf4j
+public class LikeDedupeConfig {
+
+    public record DuplicateLikesRemoved(int count) {
+    }
+
+    @Bean
+    public DuplicateLikesRemoved duplicateLikesRemoved(JdbcTemplate jdbcTemplate) {
+        //Keep the first like of every user on every post
+        int removed = jdbcTemplate.update("""
+                DELETE FROM likes WHERE id NOT IN (
+                    SELECT keep_id FROM (SELECT MIN(id) AS keep_id FROM likes GROUP BY user_id, post_id) first_likes
+                )
+                """);
+        log.warn("Removed {} duplicate likes", removed);
+        return new DuplicateLikesRemoved(removed);
+    }
+
+    //Hibernate's schema update must wait for the cleanup
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor likeDedupeBeforeSchemaUpdate() {
+        return new EntityManagerFactoryDependsOnPostProcessor("duplicateLikesRemoved");
+    }
+}
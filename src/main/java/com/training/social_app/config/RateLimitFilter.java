@@ -0,0 +1,126 @@
+package com.training.social_app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training.social_app.dto.response.UserDto;
+import com.training.social_app.utils.RateLimiter;
+import com.training.social_app.utils.UserContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Per-client request limits for the write-heavy route groups, placed right after JwtRequestFilter.
+// Authenticated callers are limited by user id, everything under /api/auth by client IP.
+// Reads are not limited; over the limit the request gets 429 with a Retry-After header.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final boolean enabled;
+    private final RateLimiter authLimiter;
+    private final RateLimiter likeLimiter;
+    private final RateLimiter commentLimiter;
+    private final RateLimiter uploadLimiter;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public RateLimitFilter(@Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.max-keys:100000}") int maxKeys,
+                           @Value("${rate-limit.auth.per-minute:10}") int authPerMinute,
+                           @Value("${rate-limit.auth.burst:5}") int authBurst,
+                           @Value("${rate-limit.likes.per-minute:120}") int likesPerMinute,
+                           @Value("${rate-limit.likes.burst:20}") int likesBurst,
+                           @Value("${rate-limit.comments.per-minute:30}") int commentsPerMinute,
+                           @Value("${rate-limit.comments.burst:10}") int commentsBurst,
+                           @Value("${rate-limit.uploads.per-minute:10}") int uploadsPerMinute,
+                           @Value("${rate-limit.uploads.burst:3}") int uploadsBurst) {
+        this.enabled = enabled;
+        this.authLimiter = new RateLimiter(authPerMinute, MINUTE_NANOS, authBurst, maxKeys);
+        this.likeLimiter = new RateLimiter(likesPerMinute, MINUTE_NANOS, likesBurst, maxKeys);
+        this.commentLimiter = new RateLimiter(commentsPerMinute, MINUTE_NANOS, commentsBurst, maxKeys);
+        this.uploadLimiter = new RateLimiter(uploadsPerMinute, MINUTE_NANOS, uploadsBurst, maxKeys);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RateLimiter limiter = enabled ? limiterFor(request) : null;
+        if (limiter != null) {
+            long waitNanos = limiter.tryAcquire(clientKey(request, limiter), System.nanoTime());
+            if (waitNanos > 0) {
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    // The limiter of the route group the request falls in, or null when it is not limited
+    private RateLimiter limiterFor(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("OPTIONS".equals(method)) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/")) {
+            return authLimiter;
+        }
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return null;
+        }
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)) {
+            return uploadLimiter;
+        }
+        if (path.startsWith("/api/likes")) {
+            return likeLimiter;
+        }
+        if (path.startsWith("/api/comments")) {
+            return commentLimiter;
+        }
+        return null;
+    }
+
+    private String clientKey(HttpServletRequest request, RateLimiter limiter) {
+        UserDto userDto = UserContext.getUser();
+        if (userDto != null && limiter != authLimiter) {
+            return "u:" + userDto.getUser().getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put("data", null);
+        responseBody.put("message", "Too many requests, retry after " + retryAfterSeconds + " seconds");
+        responseBody.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        response.getWriter().write(objectMapper.writeValueAsString(responseBody));
+    }
+
+    // Drops fully refilled buckets so idle clients do not keep memory
+    @Scheduled(fixedDelayString = "${rate-limit.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        authLimiter.evictIdle(now);
+        likeLimiter.evictIdle(now);
+        commentLimiter.evictIdle(now);
+        uploadLimiter.evictIdle(now);
+    }
+}
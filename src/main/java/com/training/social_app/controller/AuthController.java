@@ -5,6 +5,7 @@ import com.training.social_app.dto.request.UserRequest;
 import com.training.social_app.dto.response.APIResponse;
 import com.training.social_app.dto.response.UserDto;
 import com.training.social_app.entity.User;
+import com.training.social_app.exception.ServiceBusyException;
 import com.training.social_app.service.UserService;
 import com.training.social_app.service.impl.UserDetailsServiceImpl;
 import com.training.social_app.service.impl.UserServiceImpl;
@@ -15,7 +16,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
@@ -31,7 +31,6 @@ public class AuthController {
     private final JwtTokenUtils jwtTokenUtil;
     private final UserServiceImpl userServiceImpl;
     private final UserDetailsServiceImpl userDetailsService;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
 
     //Login
     @RequestMapping(value = "/api/auth/login", method = RequestMethod.POST)
@@ -51,15 +50,7 @@ public class AuthController {
             );
         }
         try{
-            String username = authenticationRequest.getUsername();
-            String password = authenticationRequest.getPassword();
-
-            // Load user details
-            User user = userService.findByUsername(username);
-            if (user == null || !bCryptPasswordEncoder.matches(password, user.getPassword())) {
-                throw new RuntimeException("Invalid username or password");
-            }
-
+            // Loads the user and verifies the password once
             String otp = userService.login(authenticationRequest);
 
             return APIResponse.responseBuilder(
@@ -67,6 +58,12 @@ public class AuthController {
                     otp,
                     HttpStatus.OK
             );
+        } catch (ServiceBusyException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.SERVICE_UNAVAILABLE
+            );
         } catch (RuntimeException e) {
             return APIResponse.responseBuilder(
                     null,
@@ -139,6 +136,12 @@ public class AuthController {
                     "User registered successfully. Your username is " + response.getUsername() + ". Please use your username to later login",
                     HttpStatus.OK
             );
+        } catch (ServiceBusyException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.SERVICE_UNAVAILABLE
+            );
         } catch (RuntimeException e) {
             return APIResponse.responseBuilder(
                     null,
@@ -191,6 +194,12 @@ public class AuthController {
                     "Password reset successfully",
                     HttpStatus.OK
             );
+        } catch (ServiceBusyException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.SERVICE_UNAVAILABLE
+            );
         } catch (RuntimeException e) {
             return APIResponse.responseBuilder(
                     null,
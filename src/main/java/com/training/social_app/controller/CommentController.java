@@ -176,7 +176,8 @@ public class CommentController {
     // Get comments by post id
     @Operation(summary = "Get comments by post id")
     @GetMapping("/post")
-    public ResponseEntity<Object> getCommentsByPostId(@RequestParam String postId, @RequestParam(defaultValue = "1") Integer pageNo, @RequestParam(defaultValue = "10") Integer pageSize) {
+    public ResponseEntity<Object> getCommentsByPostId(@RequestParam String postId, @RequestParam(defaultValue = "1") Integer pageNo, @RequestParam(defaultValue = "10") Integer pageSize,
+                                                      @RequestParam(required = false) String after) {
         try {
             int id = Integer.parseInt(postId);
             if(id <= 0) {
@@ -187,7 +188,9 @@ public class CommentController {
                 );
             }
             return APIResponse.responseBuilder(
-                    commentService.getCommentsByPostId(id, pageNo, pageSize),
+                    after != null
+                            ? commentService.getCommentsByPostIdAfter(id, after, pageSize)
+                            : commentService.getCommentsByPostId(id, pageNo, pageSize),
                     "Comments retrieved successfully",
                     HttpStatus.OK
             );
@@ -197,6 +200,12 @@ public class CommentController {
                     "Invalid postId. It must be an integer.",
                     HttpStatus.BAD_REQUEST
             );
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
         }  catch (EntityNotFoundException e) {
             log.error("Error getCommentsByPostId", e);
             return APIResponse.responseBuilder(
@@ -3,6 +3,7 @@ package com.training.social_app.controller;
 import com.training.social_app.dto.response.APIResponse;
 import com.training.social_app.dto.response.FriendShipResponse;
 import com.training.social_app.service.FriendShipService;
+import com.training.social_app.service.FriendSuggestionService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -21,14 +22,25 @@ import java.util.Objects;
 public class FriendShipController {
     private final FriendShipService friendShipService;
 
+    private final FriendSuggestionService friendSuggestionService;
+
     // Get friends of user
     @Operation(summary = "Get friends of user sort by time")
     @GetMapping
     public ResponseEntity<Object> getFriendsOfUser(@RequestParam(defaultValue = "1") Integer pageNo,
-                                                   @RequestParam(defaultValue = "10") Integer pageSize) {
+                                                   @RequestParam(defaultValue = "10") Integer pageSize,
+                                                   @RequestParam(required = false) String after) {
         try {
-            Map<String,Object> friends = friendShipService.getFriends(pageNo, pageSize);
+            Map<String,Object> friends = after != null
+                    ? friendShipService.getFriendsAfter(after, pageSize)
+                    : friendShipService.getFriends(pageNo, pageSize);
             return APIResponse.responseBuilder(friends, "Friends retrieved successfully", HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
         } catch (EntityNotFoundException e) {
             log.error("Error getFriendsOfUser", e);
             return APIResponse.responseBuilder(
@@ -96,6 +108,29 @@ public class FriendShipController {
         }
     }
 
+    // Get people the user may know
+    @Operation(summary = "Get friend suggestions of user")
+    @GetMapping("/suggestions")
+    public ResponseEntity<Object> getFriendSuggestions(@RequestParam(defaultValue = "10") Integer pageSize) {
+        try {
+            Map<String,Object> suggestions = friendSuggestionService.getSuggestions(pageSize);
+            return APIResponse.responseBuilder(suggestions, "Friend suggestions retrieved successfully", HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
+        } catch (Exception e) {
+            log.error("Error getFriendSuggestions", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred",
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
     //Get friendship by friend id
     @Operation(summary = "Get friendship by friend id")
     @GetMapping("/{friendId}")
@@ -134,6 +169,52 @@ public class FriendShipController {
         }
     }
 
+    //Get mutual friends with another user
+    @Operation(summary = "Get mutual friend count and mutual friends with another user")
+    @GetMapping("/{friendId}/mutual")
+    public ResponseEntity<Object> getMutualFriends(@PathVariable String friendId,
+                                                   @RequestParam(defaultValue = "1") Integer pageNo,
+                                                   @RequestParam(defaultValue = "10") Integer pageSize) {
+        try {
+            int id = Integer.parseInt(friendId);
+            if(id<=0) {
+                return APIResponse.responseBuilder(
+                        null,
+                        "Friend id must be greater than 0",
+                        HttpStatus.BAD_REQUEST
+                );
+            }
+            Map<String,Object> mutualFriends = friendShipService.getMutualFriends(id, pageNo, pageSize);
+            return APIResponse.responseBuilder(mutualFriends, "Mutual friends retrieved successfully", HttpStatus.OK);
+        } catch (NumberFormatException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "Invalid friendId. It must be an integer.",
+                    HttpStatus.BAD_REQUEST
+            );
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
+        } catch (EntityNotFoundException e) {
+            log.error("Error getMutualFriends", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    Objects.requireNonNull(e.getMessage()),
+                    HttpStatus.NOT_FOUND
+            );
+        } catch (Exception e) {
+            log.error("Error getMutualFriends", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred",
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
     //Send friend request
     @Operation(summary = "Send friend request")
     @PostMapping("/sendRequest/{requesteeId}")
@@ -0,0 +1,79 @@
+package com.training.social_app.controller;
+
+import com.training.social_app.dto.response.APIResponse;
+import com.training.social_app.exception.UserForbiddenException;
+import com.training.social_app.service.JobService;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class JobController {
+    private final JobService jobService;
+
+    @Operation(summary = "Find all background jobs (admin)")
+    @GetMapping
+    public ResponseEntity<?> findAll() {
+        try {
+            return APIResponse.responseBuilder(
+                    jobService.findAll(),
+                    "Jobs retrieved successfully",
+                    HttpStatus.OK
+            );
+        } catch (UserForbiddenException e) {
+            log.error("Error findAll", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.FORBIDDEN
+            );
+        } catch (Exception e) {
+            log.error("Error findAll", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred",
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    @Operation(summary = "Find background job by id (admin)")
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> findById(@PathVariable String jobId) {
+        try {
+            return APIResponse.responseBuilder(
+                    jobService.findById(jobId),
+                    "Job retrieved successfully",
+                    HttpStatus.OK
+            );
+        } catch (EntityNotFoundException e) {
+            log.error("Error findById", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.NOT_FOUND
+            );
+        } catch (UserForbiddenException e) {
+            log.error("Error findById", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.FORBIDDEN
+            );
+        } catch (Exception e) {
+            log.error("Error findById", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred",
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+}
@@ -20,8 +20,8 @@ import java.util.Objects;
 public class LikeController {
     private final LikeService likeService;
 
-    //Like a post
-    @Operation(summary = "Like a post")
+    //Toggle the like on a post
+    @Operation(summary = "Toggle the like on a post")
     @PostMapping()
     public ResponseEntity<Object> likePost(@RequestParam String postId) {
         try {
@@ -34,7 +34,7 @@ public class LikeController {
                 );
             }
             LikeResponse like = likeService.likePost(id);
-            return APIResponse.responseBuilder(like, "Post liked successfully", HttpStatus.OK);
+            return APIResponse.responseBuilder(like, Boolean.TRUE.equals(like.getLiked()) ? "Post liked successfully" : "Post unliked successfully", HttpStatus.OK);
         }catch (NumberFormatException e) {
             return APIResponse.responseBuilder(
                     null,
@@ -58,10 +58,87 @@ public class LikeController {
         }
     }
 
+    //Like a post
+    @Operation(summary = "Like a post")
+    @PutMapping()
+    public ResponseEntity<Object> like(@RequestParam String postId) {
+        try {
+            int id = Integer.parseInt(postId);
+            if(id <= 0) {
+                return APIResponse.responseBuilder(
+                        null,
+                        "Post id must be greater than 0",
+                        HttpStatus.BAD_REQUEST
+                );
+            }
+            LikeResponse like = likeService.like(id);
+            return APIResponse.responseBuilder(like, "Post liked successfully", HttpStatus.OK);
+        }catch (NumberFormatException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "Invalid postId. It must be an integer.",
+                    HttpStatus.BAD_REQUEST
+            );
+        } catch (EntityNotFoundException e) {
+            log.error("Error like", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    Objects.requireNonNull(e.getMessage()),
+                    HttpStatus.NOT_FOUND
+            );
+        }catch (Exception e) {
+            log.error("Error like", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred",
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    //Unlike a post
+    @Operation(summary = "Unlike a post")
+    @DeleteMapping()
+    public ResponseEntity<Object> unlike(@RequestParam String postId) {
+        try {
+            int id = Integer.parseInt(postId);
+            if(id <= 0) {
+                return APIResponse.responseBuilder(
+                        null,
+                        "Post id must be greater than 0",
+                        HttpStatus.BAD_REQUEST
+                );
+            }
+            LikeResponse like = likeService.unlike(id);
+            return APIResponse.responseBuilder(like, "Post unliked successfully", HttpStatus.OK);
+        }catch (NumberFormatException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    "Invalid postId. It must be an integer.",
+                    HttpStatus.BAD_REQUEST
+            );
+        } catch (EntityNotFoundException e) {
+            log.error("Error unlike", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    Objects.requireNonNull(e.getMessage()),
+                    HttpStatus.NOT_FOUND
+            );
+        }catch (Exception e) {
+            log.error("Error unlike", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred",
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
     //Get all likes for a post
     @Operation(summary = "Get all likes for a post")
     @GetMapping("/post")
-    public ResponseEntity<Object> getLikesForPost(@RequestParam String postId, @RequestParam(defaultValue = "1") Integer pageNo,  @RequestParam(defaultValue = "10") Integer pageSize) {
+    public ResponseEntity<Object> getLikesForPost(@RequestParam String postId, @RequestParam(defaultValue = "1") Integer pageNo,  @RequestParam(defaultValue = "10") Integer pageSize,
+                                                  @RequestParam(required = false) String after) {
         try{
             int id = Integer.parseInt(postId);
             if(id <= 0) {
@@ -72,7 +149,9 @@ public class LikeController {
                 );
             }
             return APIResponse.responseBuilder(
-                    likeService.getLikesForPost(id, pageNo, pageSize),
+                    after != null
+                            ? likeService.getLikesForPostAfter(id, after, pageSize)
+                            : likeService.getLikesForPost(id, pageNo, pageSize),
                     "Likes retrieved successfully",
                     HttpStatus.OK
             );
@@ -82,6 +161,12 @@ public class LikeController {
                     "Invalid postId. It must be an integer.",
                     HttpStatus.BAD_REQUEST
             );
+        }catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
         }catch (EntityNotFoundException e) {
             return APIResponse.responseBuilder(
                     null,
@@ -3,6 +3,7 @@ package com.training.social_app.controller;
 import com.training.social_app.dto.request.DeleteRequest;
 import com.training.social_app.dto.response.APIResponse;
 import com.training.social_app.dto.response.PostResponse;
+import com.training.social_app.exception.ServiceBusyException;
 import com.training.social_app.exception.UserForbiddenException;
 import com.training.social_app.service.PostService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,14 +26,23 @@ import java.util.Objects;
 public class PostController {
     private final PostService postService;
 
-    // Get posts of friends sorted by date
+    // Get posts of friends sorted by date (pass "after" to page with a cursor instead of pageNo)
     @Operation(summary = "Get posts of friends sorted by date")
     @GetMapping
     public ResponseEntity<Object> getPostsOfFriendsSortedByDate(@RequestParam(defaultValue = "1") Integer pageNo,
-                                                                @RequestParam(defaultValue = "10") Integer pageSize) {
+                                                                @RequestParam(defaultValue = "10") Integer pageSize,
+                                                                @RequestParam(required = false) String after) {
         try {
-            Map<String,Object> posts = postService.getPostsOfFriendsSortedByDate(pageNo, pageSize);
+            Map<String,Object> posts = after != null
+                    ? postService.getPostsOfFriendsAfter(after, pageSize)
+                    : postService.getPostsOfFriendsSortedByDate(pageNo, pageSize);
             return APIResponse.responseBuilder(posts, "Posts retrieved successfully", HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
         } catch (RuntimeException e) {
             log.error("Error getPostsOfFriendsSortedByDate", e);
             return APIResponse.responseBuilder(
@@ -224,11 +234,10 @@ public class PostController {
     @DeleteMapping("/delete-posts")
     public ResponseEntity<?> deletePosts(@RequestBody DeleteRequest request) {
         try {
-            postService.deletePosts(request);
             return APIResponse.responseBuilder(
-                    null,
-                    "Posts deleted successfully",
-                    HttpStatus.OK
+                    postService.deletePosts(request),
+                    "Posts deletion started",
+                    HttpStatus.ACCEPTED
             );
         } catch (EntityNotFoundException e) {
             log.error("Error deletePosts", e);
@@ -244,6 +253,13 @@ public class PostController {
                     Objects.requireNonNull(e.getMessage()),
                     HttpStatus.BAD_REQUEST
             );
+        } catch (ServiceBusyException e) {
+            log.error("Error deletePosts", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.SERVICE_UNAVAILABLE
+            );
         } catch (Exception e) {
             log.error("Error deletePosts", e);
             return APIResponse.responseBuilder(
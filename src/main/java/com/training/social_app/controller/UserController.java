@@ -2,6 +2,7 @@ package com.training.social_app.controller;
 
 import com.training.social_app.dto.request.DeleteRequest;
 import com.training.social_app.dto.response.APIResponse;
+import com.training.social_app.exception.ServiceBusyException;
 import com.training.social_app.exception.UserForbiddenException;
 import com.training.social_app.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -29,7 +30,14 @@ public class UserController {
                     "User deleted successfully",
                     HttpStatus.OK
             );
-        }  catch (Exception e) {
+        } catch (EntityNotFoundException e) {
+            log.error("Error deleteUser", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.NOT_FOUND
+            );
+        } catch (Exception e) {
             log.error("Error deleteUser", e);
             return APIResponse.responseBuilder(
                     null,
@@ -46,11 +54,10 @@ public class UserController {
             if (request.getIds() == null || request.getIds().isEmpty()) {
                 return APIResponse.responseBuilder(null, "The data sent is not in the correct format.", HttpStatus.BAD_REQUEST);
             }
-            userService.deleteUsers(request);
             return APIResponse.responseBuilder(
-                    null,
-                    "User deleted successfully",
-                    HttpStatus.OK
+                    userService.deleteUsers(request),
+                    "Users deletion started",
+                    HttpStatus.ACCEPTED
             );
         } catch (EntityNotFoundException e) {
             log.error("Error deleteUser", e);
@@ -66,6 +73,13 @@ public class UserController {
                     e.getMessage(),
                     HttpStatus.FORBIDDEN
             );
+        } catch (ServiceBusyException e) {
+            log.error("Error deleteUser", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.SERVICE_UNAVAILABLE
+            );
         } catch (Exception e) {
             log.error("Error deleteUser", e);
             return APIResponse.responseBuilder(
@@ -161,13 +175,22 @@ public class UserController {
     @GetMapping("/search")
     public ResponseEntity<?> searchUser(@RequestParam String searchText,
                                         @RequestParam(defaultValue = "1") Integer pageNo,
-                                        @RequestParam(defaultValue = "10") Integer pageSize) {
+                                        @RequestParam(defaultValue = "10") Integer pageSize,
+                                        @RequestParam(required = false) String after) {
         try {
             return APIResponse.responseBuilder(
-                    userService.searchUser(searchText, pageNo, pageSize),
+                    after != null
+                            ? userService.searchUserAfter(searchText, after, pageSize)
+                            : userService.searchUser(searchText, pageNo, pageSize),
                     "Users retrieved successfully",
                     HttpStatus.OK
             );
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
         } catch (RuntimeException e) {
             log.error("Error searchUser", e);
             return APIResponse.responseBuilder(
@@ -184,4 +207,52 @@ public class UserController {
             );
         }
     }
+
+    @Operation(summary = "Suggest users for the search box")
+    @GetMapping("/typeahead")
+    public ResponseEntity<?> typeahead(@RequestParam(defaultValue = "") String q) {
+        try {
+            return APIResponse.responseBuilder(
+                    userService.typeahead(q),
+                    "Users retrieved successfully",
+                    HttpStatus.OK
+            );
+        } catch (Exception e) {
+            log.error("Error typeahead", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred",
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
+
+    @Operation(summary = "Browse users by location, occupation and age")
+    @GetMapping("/directory")
+    public ResponseEntity<?> directory(@RequestParam(required = false) String location,
+                                       @RequestParam(required = false) String occupation,
+                                       @RequestParam(required = false) String age,
+                                       @RequestParam(defaultValue = "1") Integer pageNo,
+                                       @RequestParam(defaultValue = "10") Integer pageSize) {
+        try {
+            return APIResponse.responseBuilder(
+                    userService.directory(location, occupation, age, pageNo, pageSize),
+                    "Users retrieved successfully",
+                    HttpStatus.OK
+            );
+        } catch (IllegalArgumentException e) {
+            return APIResponse.responseBuilder(
+                    null,
+                    e.getMessage(),
+                    HttpStatus.BAD_REQUEST
+            );
+        } catch (Exception e) {
+            log.error("Error directory", e);
+            return APIResponse.responseBuilder(
+                    null,
+                    "An unexpected error occurred",
+                    HttpStatus.INTERNAL_SERVER_ERROR
+            );
+        }
+    }
 }
@@ -1,10 +1,14 @@
 package com.training.social_app.dto.response;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class CommentResponse {
     private Integer id;
     private Integer postId;
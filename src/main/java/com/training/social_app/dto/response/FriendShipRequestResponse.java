@@ -2,15 +2,29 @@ package com.training.social_app.dto.response;
 
 import com.training.social_app.enums.RequestStatus;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class FriendShipRequestResponse {
     private Integer id;
     private Integer userId;
     private String userFullName;
     private String userAvatarUrl;
+    private Integer mutualFriendCount;
     private RequestStatus status;
     private LocalDateTime createdAt;
+
+    //Row built by the repository projections; the mutual-friend count is filled in from the friend graph
+    public FriendShipRequestResponse(Integer id, Integer userId, String userFullName, String userAvatarUrl,
+                                     RequestStatus status, LocalDateTime createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.userFullName = userFullName;
+        this.userAvatarUrl = userAvatarUrl;
+        this.status = status;
+        this.createdAt = createdAt;
+    }
 }
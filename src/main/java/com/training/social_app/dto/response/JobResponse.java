@@ -0,0 +1,18 @@
+package com.training.social_app.dto.response;
+
+import com.training.social_app.enums.JobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class JobResponse {
+    private String id;
+    private String type;
+    private JobStatus status;
+    private Integer total;
+    private Integer processed;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -1,10 +1,12 @@
 package com.training.social_app.dto.response;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class LikeResponse {
     private Integer id;
     private Integer postId;
@@ -12,4 +14,16 @@ public class LikeResponse {
     private String userFullName;
     private String userProfileImage;
     private LocalDateTime createdAt;
+    //Whether the post is liked after a like/unlike request; null in like listings
+    private Boolean liked;
+
+    //Listing row built by the repository projections
+    public LikeResponse(Integer id, Integer postId, Integer userId, String userFullName, String userProfileImage, LocalDateTime createdAt) {
+        this.id = id;
+        this.postId = postId;
+        this.userId = userId;
+        this.userFullName = userFullName;
+        this.userProfileImage = userProfileImage;
+        this.createdAt = createdAt;
+    }
 }
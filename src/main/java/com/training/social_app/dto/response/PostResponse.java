@@ -1,10 +1,12 @@
 package com.training.social_app.dto.response;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class PostResponse {
     private Integer id;
     private String content;
@@ -15,6 +17,24 @@ public class PostResponse {
     private boolean isEdited;
     private int likeCount;
     private int commentCount;
+    //Whether the user viewing the post liked it
+    private boolean likedByMe;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    //Row built by the repository projections; the counters are the stored ones, before pending deltas
+    public PostResponse(Integer id, String content, String imageUrl, Integer userId, String userFullName, String userProfileImage,
+                        Boolean isEdited, Integer likeCount, Integer commentCount, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.content = content;
+        this.imageUrl = imageUrl;
+        this.userId = userId;
+        this.userFullName = userFullName;
+        this.userProfileImage = userProfileImage;
+        this.isEdited = Boolean.TRUE.equals(isEdited);
+        this.likeCount = likeCount == null ? 0 : likeCount;
+        this.commentCount = commentCount == null ? 0 : commentCount;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
 }
@@ -7,4 +7,5 @@ public class UserResponse {
     private Integer id;
     private String fullName;
     private String avatarUrl;
+    private Integer mutualFriendCount;
 }
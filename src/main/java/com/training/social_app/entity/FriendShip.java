@@ -11,18 +11,26 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "friendships")
+@Table(name = "friendships",
+        uniqueConstraints = @UniqueConstraint(name = "uk_friendships_pair", columnNames = {"user_low_id", "user_high_id"}))
 public class FriendShip {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user1;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user2;
 
+    //The pair in canonical order, so a pair of users has at most one row whoever sent the request
+    @Column(name = "user_low_id")
+    private Integer userLowId;
+
+    @Column(name = "user_high_id")
+    private Integer userHighId;
+
     @Column(name="created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -34,4 +42,9 @@ public class FriendShip {
     @Enumerated(EnumType.STRING)
     private RequestStatus status;
 
+    @PrePersist
+    void canonicalizePair() {
+        userLowId = Math.min(user1.getId(), user2.getId());
+        userHighId = Math.max(user1.getId(), user2.getId());
+    }
 }
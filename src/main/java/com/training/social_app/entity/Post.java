@@ -17,7 +17,7 @@ public class Post {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
     private User user;
 
@@ -35,4 +35,11 @@ public class Post {
 
     @Column(name="is_edited")
     private Boolean isEdited = false;
+
+    //Maintained by PostCounterService, never written through the entity so a post save cannot clobber them
+    @Column(name="like_count", insertable = false, updatable = false, columnDefinition = "int not null default 0")
+    private Integer likeCount = 0;
+
+    @Column(name="comment_count", insertable = false, updatable = false, columnDefinition = "int not null default 0")
+    private Integer commentCount = 0;
 }
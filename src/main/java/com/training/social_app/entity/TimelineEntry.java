@@ -0,0 +1,38 @@
+package com.training.social_app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+//One row per (reader, post) so that the friends feed is a single range read on (owner_id, post_updated_at)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "timeline_entries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_timeline_owner_post", columnNames = {"owner_id", "post_id"}),
+        indexes = {
+                @Index(name = "idx_timeline_owner_updated", columnList = "owner_id, post_updated_at, post_id"),
+                @Index(name = "idx_timeline_post", columnList = "post_id"),
+                @Index(name = "idx_timeline_author", columnList = "author_id")
+        })
+public class TimelineEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Integer ownerId;
+
+    @Column(name = "post_id", nullable = false)
+    private Integer postId;
+
+    @Column(name = "author_id", nullable = false)
+    private Integer authorId;
+
+    @Column(name = "post_updated_at", nullable = false)
+    private LocalDateTime postUpdatedAt;
+}
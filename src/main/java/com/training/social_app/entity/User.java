@@ -28,28 +28,24 @@ public class User {
     @Column(name="password", nullable = false)
     private String password;
 
+    //Bumped on every password change so that credentials issued before it can be told apart
+    @Column(name="password_version", nullable = false, columnDefinition = "int not null default 0")
+    private Integer passwordVersion = 0;
+
     @Column(name="role")
     @Enumerated(EnumType.STRING)
     private Role role;
 
-    @Column(name="otp")
-    private String otp;
-
-    @Column(name="otp_expiry")
-    private LocalDateTime otpExpiry;
-
-    @Column(name="forgot_password_token")
-    private String forgotPasswordToken;
-
-    @Column(name="forgot_password_token_expiry")
-    private LocalDateTime forgotPasswordTokenExpiry;
-
     @Column(name="created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
     @Column(name="updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    //Set when the account is deleted; the user and their content are hidden from then on and purged in the background
+    @Column(name="deleted_at")
+    private LocalDateTime deletedAt;
+
     @JsonBackReference
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private UserProfile userProfile;
@@ -0,0 +1,5 @@
+package com.training.social_app.enums;
+
+public enum JobStatus {
+    QUEUED, RUNNING, SUCCEEDED, FAILED
+}
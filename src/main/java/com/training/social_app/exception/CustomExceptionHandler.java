@@ -38,6 +38,15 @@ public class CustomExceptionHandler {
         );
     }
 
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Object> handleServiceBusyException(ServiceBusyException ex) {
+        return APIResponse.responseBuilder(
+                null,
+                ex.getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
     @ExceptionHandler(DataAccessResourceFailureException.class)
     public ResponseEntity<Map<String, Object>> handleDataAccessResourceFailureException(DataAccessResourceFailureException ex) {
         Map<String, Object> responseBody = new HashMap<>();
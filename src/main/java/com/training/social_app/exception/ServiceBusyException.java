@@ -0,0 +1,7 @@
+package com.training.social_app.exception;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
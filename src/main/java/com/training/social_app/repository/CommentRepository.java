@@ -1,23 +1,84 @@
 package com.training.social_app.repository;
 
+import com.training.social_app.dto.response.CommentResponse;
 import com.training.social_app.entity.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Integer>, JpaSpecificationExecutor<Comment> {
-    Page<Comment> findAllByPostId(Integer postId, Pageable pageable);
+    //Page of comments of a post with the author's name and avatar, one row per comment
+    @Query(value = """
+    SELECT new com.training.social_app.dto.response.CommentResponse(
+        c.id, c.post.id, c.user.id, up.fullName, up.avatarUrl, c.content, c.createdAt, c.updatedAt)
+    FROM Comment c LEFT JOIN UserProfile up ON up.user.id = c.user.id
+    WHERE c.post.id = :postId AND c.user.deletedAt IS NULL
+""", countQuery = "SELECT COUNT(c) FROM Comment c WHERE c.post.id = :postId AND c.user.deletedAt IS NULL")
+    Page<CommentResponse> findResponsesByPostId(Integer postId, Pageable pageable);
+
+    //Keyset page of comments of a post, newest first
+    @Query("""
+    SELECT new com.training.social_app.dto.response.CommentResponse(
+        c.id, c.post.id, c.user.id, up.fullName, up.avatarUrl, c.content, c.createdAt, c.updatedAt)
+    FROM Comment c LEFT JOIN UserProfile up ON up.user.id = c.user.id
+    WHERE c.post.id = :postId AND c.user.deletedAt IS NULL
+    AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id))
+    ORDER BY c.createdAt DESC, c.id DESC
+""")
+    Slice<CommentResponse> findResponsesByPostIdAfter(Integer postId, LocalDateTime createdAt, Integer id, Pageable pageable);
+
+    @Query("""
+    SELECT new com.training.social_app.dto.response.CommentResponse(
+        c.id, c.post.id, c.user.id, up.fullName, up.avatarUrl, c.content, c.createdAt, c.updatedAt)
+    FROM Comment c LEFT JOIN UserProfile up ON up.user.id = c.user.id
+    WHERE c.id = :id AND c.user.deletedAt IS NULL
+""")
+    Optional<CommentResponse> findResponseById(Integer id);
 
     //count comments for a given user in the past week
     @Query("SELECT COUNT(c) FROM Comment c where c.user.id = :userId and c.createdAt between :startDate and :endDate")
-    int countCommentsByUserIdAndCreatedAtBetween(Integer userId, java.time.LocalDateTime startDate, java.time.LocalDateTime endDate);
+    int countCommentsByUserIdAndCreatedAtBetween(Integer userId, LocalDateTime startDate, LocalDateTime endDate);
 
     //count comments for a post
     @Query("SELECT COUNT(c) FROM Comment c where c.post.id = :postId")
     int countCommentsByPostId(Integer postId);
+
+    //Next batch of a user's comments to purge
+    @Query("SELECT c.id FROM Comment c WHERE c.user.id = :userId ORDER BY c.id")
+    List<Integer> findIdsByUserId(Integer userId, Pageable pageable);
+
+    //Next batch of the comments on posts about to be deleted
+    @Query("SELECT c.id FROM Comment c WHERE c.post.id IN :postIds ORDER BY c.id")
+    List<Integer> findIdsByPostIdIn(Collection<Integer> postIds, Pageable pageable);
+
+    //Comments of the user on other users' posts, as rows of [postId, count]
+    @Query("SELECT c.post.id, COUNT(c) FROM Comment c WHERE c.user.id = :userId AND c.post.user.id <> :userId GROUP BY c.post.id")
+    List<Object[]> countPerPostOnOtherUsersPosts(Integer userId);
+
+    //Comments the user wrote on other users' posts
+    @Query("SELECT COUNT(c) FROM Comment c WHERE c.user.id = :userId AND c.post.user.id <> :userId")
+    long countOnOtherUsersPosts(Integer userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Comment c WHERE c.id IN :ids")
+    int deleteAllByIdIn(Collection<Integer> ids);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Comment c WHERE c.post.id IN :postIds")
+    int deleteAllByPostIdIn(Collection<Integer> postIds);
 }
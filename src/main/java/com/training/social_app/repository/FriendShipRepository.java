@@ -1,7 +1,7 @@
 package com.training.social_app.repository;
 
+import com.training.social_app.dto.response.FriendShipRequestResponse;
 import com.training.social_app.entity.FriendShip;
-import com.training.social_app.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,56 +12,90 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FriendShipRepository extends JpaRepository<FriendShip, Integer>, JpaSpecificationExecutor<FriendShip> {
-    //Find a friendship by user who sent the request and the user who received the request
-    Optional<FriendShip> findByUser1IdAndUser2Id(Integer requesterId, Integer user2Id);
+    //Find the friendship of a pair of users, whichever of them sent the request (lowId < highId)
+    Optional<FriendShip> findByUserLowIdAndUserHighId(Integer lowId, Integer highId);
 
-    //Find all friends of a user
-    @Query("""
-    SELECT u FROM User u\s
-    WHERE u.id IN (
-        SELECT CASE\s
-            WHEN f.user1.id = :userId THEN f.user2.id
-            ELSE f.user1.id\s
-        END\s
-        FROM FriendShip f
-        WHERE (f.user1.id = :userId OR f.user2.id = :userId)\s
-        AND f.status = 'ACCEPTED'
-    )
-""")    List<User> getFriendsByUserId(Integer userId);
+    //Create a pending request unless the pair already has a row: 1 when created, 0 otherwise
+    @Modifying
+    @Transactional
+    @Query(value = """
+    INSERT IGNORE INTO friendships (user1_id, user2_id, user_low_id, user_high_id, status, created_at, updated_at)
+    VALUES (:requesterId, :requesteeId, :lowId, :highId, 'PENDING', :now, :now)
+""", nativeQuery = true)
+    int insertFriendRequest(Integer requesterId, Integer requesteeId, Integer lowId, Integer highId, LocalDateTime now);
+
+    //Every accepted friendship as [user1Id, user2Id], used to build the in-memory friend graph
+    @Query("SELECT f.user1.id, f.user2.id FROM FriendShip f WHERE f.status = 'ACCEPTED' AND f.user1.deletedAt IS NULL AND f.user2.deletedAt IS NULL")
+    List<Object[]> findAcceptedPairs();
 
+    //Users with a pending request from or to a user, in either direction
     @Query("""
-    SELECT u FROM User u\s
-    WHERE u.id IN (
-        SELECT CASE\s
-            WHEN f.user1.id = :userId THEN f.user2.id
-            ELSE f.user1.id\s
-        END\s
-        FROM FriendShip f
-        WHERE (f.user1.id = :userId OR f.user2.id = :userId)\s
-        AND f.status = 'ACCEPTED'
-    )
+    SELECT CASE WHEN f.user1.id = :userId THEN f.user2.id ELSE f.user1.id END
+    FROM FriendShip f
+    WHERE (f.user1.id = :userId OR f.user2.id = :userId)
+    AND f.status = 'PENDING'
 """)
-    Page<User> findFriendsByUserId(Integer userId, Pageable pageable);
+    List<Integer> findPendingCounterpartIds(Integer userId);
+
+    //Pending requests sent by a user, each with the requestee's name and avatar
+    @Query(value = """
+    SELECT new com.training.social_app.dto.response.FriendShipRequestResponse(
+        f.id, f.user2.id, up.fullName, up.avatarUrl, f.status, f.createdAt)
+    FROM FriendShip f LEFT JOIN UserProfile up ON up.user.id = f.user2.id
+    WHERE f.user1.id = :userId AND f.status = 'PENDING' AND f.user2.deletedAt IS NULL
+""", countQuery = "SELECT COUNT(f) FROM FriendShip f WHERE f.user1.id = :userId AND f.status = 'PENDING' AND f.user2.deletedAt IS NULL")
+    Page<FriendShipRequestResponse> findFriendRequestsByUserId(Integer userId, Pageable pageable);
+
+    //Pending requests sent to a user, each with the requester's name and avatar
+    @Query(value = """
+    SELECT new com.training.social_app.dto.response.FriendShipRequestResponse(
+        f.id, f.user1.id, up.fullName, up.avatarUrl, f.status, f.createdAt)
+    FROM FriendShip f LEFT JOIN UserProfile up ON up.user.id = f.user1.id
+    WHERE f.user2.id = :userId AND f.status = 'PENDING' AND f.user1.deletedAt IS NULL
+""", countQuery = "SELECT COUNT(f) FROM FriendShip f WHERE f.user2.id = :userId AND f.status = 'PENDING' AND f.user1.deletedAt IS NULL")
+    Page<FriendShipRequestResponse> findFriendRequestsToUserId(Integer userId, Pageable pageable);
+
+    //Accept a pending request sent to the user: 1 when accepted, 0 when there is no such pending request
+    @Modifying
+    @Transactional
+    @Query("UPDATE FriendShip f SET f.status = 'ACCEPTED', f.updatedAt = :now WHERE f.user2.id = :userId AND f.id = :requestId AND f.status = 'PENDING'")
+    int acceptFriendRequest(Integer userId, Integer requestId, LocalDateTime now);
 
+    //Drop a pending request sent to the user: 1 when rejected, 0 when there is no such pending request
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FriendShip f WHERE f.user2.id = :userId AND f.id = :requestId AND f.status = 'PENDING'")
+    int rejectFriendRequest(Integer userId, Integer requestId);
 
-    @Query("SELECT f FROM FriendShip f WHERE f.user1.id = :userId AND f.status = 'PENDING'")
-    Page<FriendShip> findFriendRequestsByUserId(Integer userId, Pageable pageable);
+    //End an accepted friendship of a pair (lowId < highId): 1 when removed, 0 otherwise
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FriendShip f WHERE f.userLowId = :lowId AND f.userHighId = :highId AND f.status = 'ACCEPTED'")
+    int deleteAcceptedPair(Integer lowId, Integer highId);
 
-    @Query("SELECT f FROM FriendShip f WHERE f.user2.id = :userId AND f.status = 'PENDING'")
-    Page<FriendShip> findFriendRequestsToUserId(Integer userId, Pageable pageable);
+    //Rows written before the canonical pair columns existed: rows of [id, user1Id, user2Id, status]
+    @Query(value = "SELECT id, user1_id, user2_id, status FROM friendships WHERE user_low_id IS NULL ORDER BY id", nativeQuery = true)
+    List<Object[]> findRowsWithoutCanonicalPair();
 
     @Modifying
     @Transactional
-    @Query("UPDATE FriendShip f SET f.status = 'ACCEPTED' WHERE f.user2.id = :userId AND f.id = :requestId AND f.status = 'PENDING'")
-    void acceptFriendRequest(Integer userId, Integer requestId);
+    @Query(value = "UPDATE friendships SET user_low_id = :lowId, user_high_id = :highId WHERE id = :id", nativeQuery = true)
+    int setCanonicalPair(Integer id, Integer lowId, Integer highId);
 
 
     //Count new friends of a user in the past week
     @Query("SELECT COUNT(f) FROM FriendShip f where f.user2.id = :userId and f.status = 'ACCEPTED' and f.createdAt between :startDate and :endDate")
     int countNewFriendsByUserIdInPastWeek(Integer userId, LocalDateTime startDate, LocalDateTime endDate);
+
+    //Friendships and friend requests of the users, in both directions
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FriendShip f WHERE f.user1.id IN :userIds OR f.user2.id IN :userIds")
+    int deleteAllByUserIdIn(Collection<Integer> userIds);
 }
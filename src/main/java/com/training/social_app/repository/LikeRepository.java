@@ -1,14 +1,20 @@
 package com.training.social_app.repository;
 
+import com.training.social_app.dto.response.LikeResponse;
 import com.training.social_app.entity.Like;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,6 +22,33 @@ public interface LikeRepository extends JpaRepository<Like, Integer> , JpaSpecif
     //Find a like by user who liked and the post that was liked
     Optional<Like> findByUserIdAndPostId(Integer userId, Integer postId);
 
+    //Like a post in one statement; 0 when the user already liked it
+    @Modifying
+    @Transactional
+    @Query(value = """
+    INSERT IGNORE INTO likes (user_id, post_id, created_at)
+    VALUES (:userId, :postId, :now)
+""", nativeQuery = true)
+    int insertLike(Integer userId, Integer postId, LocalDateTime now);
+
+    //Unlike a post in one statement; 0 when the user had not liked it
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Like l WHERE l.user.id = :userId AND l.post.id = :postId")
+    int deleteLike(Integer userId, Integer postId);
+
+    //Ids of the users who liked a post, up to the page size; deleted accounts are left out
+    @Query("SELECT l.user.id FROM Like l WHERE l.post.id = :postId AND l.user.deletedAt IS NULL")
+    List<Integer> findUserIdsByPostId(Integer postId, Pageable pageable);
+
+    //Which of these users liked the post; deleted accounts are left out
+    @Query("SELECT l.user.id FROM Like l WHERE l.post.id = :postId AND l.user.id IN :userIds AND l.user.deletedAt IS NULL")
+    List<Integer> findUserIdsByPostIdAndUserIdIn(Integer postId, Collection<Integer> userIds);
+
+    //Which of these posts the user liked, in one query for a whole page
+    @Query("SELECT l.post.id FROM Like l WHERE l.user.id = :userId AND l.post.id IN :postIds")
+    List<Integer> findPostIdsLikedByUser(Integer userId, Collection<Integer> postIds);
+
     //Count likes for a given user's post between two dates
     @Query("SELECT COUNT(l) FROM Like l where l.post.user.id = :userId and l.createdAt between :startDate and :endDate")
     int countLikesByUserAndDate(Integer userId, LocalDateTime startDate, LocalDateTime endDate);
@@ -24,5 +57,57 @@ public interface LikeRepository extends JpaRepository<Like, Integer> , JpaSpecif
     @Query("SELECT COUNT(l) FROM Like l where l.post.id = :postId")
     int countLikesByPostId(Integer postId);
 
-    Page<Like> findByPostId(Integer postId, Pageable pageable);
+    //Page of likes of a post with the liker's name and avatar, one row per like
+    @Query(value = """
+    SELECT new com.training.social_app.dto.response.LikeResponse(
+        l.id, l.post.id, l.user.id, up.fullName, up.avatarUrl, l.createdAt)
+    FROM Like l LEFT JOIN UserProfile up ON up.user.id = l.user.id
+    WHERE l.post.id = :postId AND l.user.deletedAt IS NULL
+""", countQuery = "SELECT COUNT(l) FROM Like l WHERE l.post.id = :postId AND l.user.deletedAt IS NULL")
+    Page<LikeResponse> findResponsesByPostId(Integer postId, Pageable pageable);
+
+    //Keyset page of likes of a post, newest first
+    @Query("""
+    SELECT new com.training.social_app.dto.response.LikeResponse(
+        l.id, l.post.id, l.user.id, up.fullName, up.avatarUrl, l.createdAt)
+    FROM Like l LEFT JOIN UserProfile up ON up.user.id = l.user.id
+    WHERE l.post.id = :postId AND l.user.deletedAt IS NULL
+    AND (l.createdAt < :createdAt OR (l.createdAt = :createdAt AND l.id < :id))
+    ORDER BY l.createdAt DESC, l.id DESC
+""")
+    Slice<LikeResponse> findResponsesByPostIdAfter(Integer postId, LocalDateTime createdAt, Integer id, Pageable pageable);
+
+    @Query("""
+    SELECT new com.training.social_app.dto.response.LikeResponse(
+        l.id, l.post.id, l.user.id, up.fullName, up.avatarUrl, l.createdAt)
+    FROM Like l LEFT JOIN UserProfile up ON up.user.id = l.user.id
+    WHERE l.id = :id AND l.user.deletedAt IS NULL
+""")
+    Optional<LikeResponse> findResponseById(Integer id);
+
+    //Next batch of a user's likes to purge
+    @Query("SELECT l.id FROM Like l WHERE l.user.id = :userId ORDER BY l.id")
+    List<Integer> findIdsByUserId(Integer userId, Pageable pageable);
+
+    //Next batch of the likes on posts about to be deleted
+    @Query("SELECT l.id FROM Like l WHERE l.post.id IN :postIds ORDER BY l.id")
+    List<Integer> findIdsByPostIdIn(Collection<Integer> postIds, Pageable pageable);
+
+    //Posts of other users liked by the user
+    @Query("SELECT l.post.id FROM Like l WHERE l.user.id = :userId AND l.post.user.id <> :userId")
+    List<Integer> findPostIdsLikedOnOtherUsersPosts(Integer userId);
+
+    //Likes the user gave on other users' posts
+    @Query("SELECT COUNT(l) FROM Like l WHERE l.user.id = :userId AND l.post.user.id <> :userId")
+    long countOnOtherUsersPosts(Integer userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Like l WHERE l.id IN :ids")
+    int deleteAllByIdIn(Collection<Integer> ids);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Like l WHERE l.post.id IN :postIds")
+    int deleteAllByPostIdIn(Collection<Integer> postIds);
 }
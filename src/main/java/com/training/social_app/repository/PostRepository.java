@@ -1,20 +1,64 @@
 package com.training.social_app.repository;
 
+import com.training.social_app.dto.response.PostResponse;
 import com.training.social_app.entity.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Integer>, JpaSpecificationExecutor<Post> {
-    Page<Post> findAllByUserId(Integer userId, Pageable pageable);
+    //Page of a user's posts with the author's name and avatar, one row per post
+    @Query(value = """
+    SELECT new com.training.social_app.dto.response.PostResponse(
+        p.id, p.content, p.imageUrl, p.user.id, up.fullName, up.avatarUrl, p.isEdited, p.likeCount, p.commentCount, p.createdAt, p.updatedAt)
+    FROM Post p LEFT JOIN UserProfile up ON up.user.id = p.user.id
+    WHERE p.user.id = :userId
+""", countQuery = "SELECT COUNT(p) FROM Post p WHERE p.user.id = :userId")
+    Page<PostResponse> findResponsesByUserId(Integer userId, Pageable pageable);
+
+    @Query(value = """
+    SELECT new com.training.social_app.dto.response.PostResponse(
+        p.id, p.content, p.imageUrl, p.user.id, up.fullName, up.avatarUrl, p.isEdited, p.likeCount, p.commentCount, p.createdAt, p.updatedAt)
+    FROM Post p LEFT JOIN UserProfile up ON up.user.id = p.user.id
+    WHERE p.user.deletedAt IS NULL
+""", countQuery = "SELECT COUNT(p) FROM Post p WHERE p.user.deletedAt IS NULL")
+    Page<PostResponse> findAllResponses(Pageable pageable);
+
+    @Query("""
+    SELECT new com.training.social_app.dto.response.PostResponse(
+        p.id, p.content, p.imageUrl, p.user.id, up.fullName, up.avatarUrl, p.isEdited, p.likeCount, p.commentCount, p.createdAt, p.updatedAt)
+    FROM Post p LEFT JOIN UserProfile up ON up.user.id = p.user.id
+    WHERE p.id = :id AND p.user.deletedAt IS NULL
+""")
+    Optional<PostResponse> findResponseById(Integer id);
+
     @Query("SELECT COUNT(p) FROM Post p where p.user.id = :userId and p.createdAt between :startDate and :endDate")
     int countByUserIdAndCreatedAtBetween(Integer userId, LocalDateTime startDate, LocalDateTime endDate);
     Page<Post> findByUserIdIn(List<Integer> userIds, Pageable pageable);
+
+    //Ids among the given ones that exist, to tell the missing ones apart before a bulk delete
+    @Query("SELECT p.id FROM Post p WHERE p.id IN :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
+
+    //Next batch of a user's posts to purge
+    @Query("SELECT p.id FROM Post p WHERE p.user.id = :userId ORDER BY p.id")
+    List<Integer> findIdsByUserId(Integer userId, Pageable pageable);
+
+    long countByUserId(Integer userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Post p WHERE p.id IN :ids")
+    int deleteAllByIdIn(Collection<Integer> ids);
 }
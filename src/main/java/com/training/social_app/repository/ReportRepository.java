@@ -2,8 +2,17 @@ package com.training.social_app.repository;
 
 import com.training.social_app.entity.Report;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 
 @Repository
 public interface ReportRepository extends JpaRepository<Report, Integer> {
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Report r WHERE r.user.id IN :userIds")
+    int deleteAllByUserIdIn(Collection<Integer> userIds);
 }
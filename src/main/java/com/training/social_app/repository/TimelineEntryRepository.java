@@ -0,0 +1,85 @@
+package com.training.social_app.repository;
+
+import com.training.social_app.dto.response.PostResponse;
+import com.training.social_app.entity.TimelineEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Integer> {
+    //Read the friends feed of a user, newest first, with the authors' names and avatars in the same rows
+    @Query(value = """
+    SELECT new com.training.social_app.dto.response.PostResponse(
+        p.id, p.content, p.imageUrl, t.authorId, up.fullName, up.avatarUrl, p.isEdited, p.likeCount, p.commentCount, p.createdAt, p.updatedAt)
+    FROM TimelineEntry t JOIN Post p ON p.id = t.postId LEFT JOIN UserProfile up ON up.user.id = t.authorId
+    WHERE t.ownerId = :ownerId AND p.user.deletedAt IS NULL
+    ORDER BY t.postUpdatedAt DESC, t.postId DESC
+""", countQuery = """
+    SELECT COUNT(t) FROM TimelineEntry t JOIN Post p ON p.id = t.postId
+    WHERE t.ownerId = :ownerId AND p.user.deletedAt IS NULL
+""")
+    Page<PostResponse> findTimelineByOwnerId(Integer ownerId, Pageable pageable);
+
+    //Keyset variant: rows strictly after the (updatedAt, id) of the last post seen, no count query
+    @Query("""
+    SELECT new com.training.social_app.dto.response.PostResponse(
+        p.id, p.content, p.imageUrl, t.authorId, up.fullName, up.avatarUrl, p.isEdited, p.likeCount, p.commentCount, p.createdAt, p.updatedAt)
+    FROM TimelineEntry t JOIN Post p ON p.id = t.postId LEFT JOIN UserProfile up ON up.user.id = t.authorId
+    WHERE t.ownerId = :ownerId AND p.user.deletedAt IS NULL
+    AND (t.postUpdatedAt < :updatedAt OR (t.postUpdatedAt = :updatedAt AND t.postId < :postId))
+    ORDER BY t.postUpdatedAt DESC, t.postId DESC
+""")
+    Slice<PostResponse> findTimelineByOwnerIdAfter(Integer ownerId, LocalDateTime updatedAt, Integer postId, Pageable pageable);
+
+    //Copy every post of an author into the timeline of a new friend
+    @Modifying
+    @Transactional
+    @Query("""
+    INSERT INTO TimelineEntry (ownerId, postId, authorId, postUpdatedAt)
+    SELECT :ownerId, p.id, :authorId, p.updatedAt
+    FROM Post p
+    WHERE p.user.id = :authorId
+""")
+    int copyPostsOfAuthor(Integer ownerId, Integer authorId);
+
+    //Rebuild every timeline from the accepted friendships (used when the table is empty)
+    @Modifying
+    @Transactional
+    @Query("""
+    INSERT INTO TimelineEntry (ownerId, postId, authorId, postUpdatedAt)
+    SELECT CASE WHEN f.user1.id = p.user.id THEN f.user2.id ELSE f.user1.id END, p.id, p.user.id, p.updatedAt
+    FROM FriendShip f JOIN Post p ON (p.user.id = f.user1.id OR p.user.id = f.user2.id)
+    WHERE f.status = 'ACCEPTED'
+""")
+    int rebuildAll();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE TimelineEntry t SET t.postUpdatedAt = :updatedAt WHERE t.postId = :postId")
+    int touchPost(Integer postId, LocalDateTime updatedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TimelineEntry t WHERE t.ownerId = :ownerId AND t.authorId = :authorId")
+    int deleteByOwnerIdAndAuthorId(Integer ownerId, Integer authorId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TimelineEntry t WHERE t.postId IN :postIds")
+    int deleteAllByPostIdIn(Collection<Integer> postIds);
+
+    //Timelines of the users and their posts in other timelines
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TimelineEntry t WHERE t.ownerId IN :userIds OR t.authorId IN :userIds")
+    int deleteAllByUserIdIn(Collection<Integer> userIds);
+}
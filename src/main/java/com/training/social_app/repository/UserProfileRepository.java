@@ -2,8 +2,13 @@ package com.training.social_app.repository;
 
 import com.training.social_app.entity.UserProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -13,4 +18,25 @@ public interface UserProfileRepository extends JpaRepository<UserProfile, Intege
     Optional<UserProfile> findByUserId(Integer userId);
 
     void deleteByUserId(Integer userId);
+
+    //Name and avatar of several users in one query: rows of [userId, fullName, avatarUrl]
+    @Query("SELECT up.user.id, up.fullName, up.avatarUrl FROM UserProfile up WHERE up.user.id IN :userIds")
+    List<Object[]> findNamesAndAvatarsByUserIds(Collection<Integer> userIds);
+
+    //Full name of every user: rows of [userId, fullName], used to build the name search index
+    @Query("SELECT up.user.id, up.fullName FROM UserProfile up WHERE up.user.deletedAt IS NULL")
+    List<Object[]> findAllNames();
+
+    //Location and occupation of every user: rows of [userId, location, occupation]
+    @Query("SELECT up.user.id, up.location, up.occupation FROM UserProfile up WHERE up.user.deletedAt IS NULL")
+    List<Object[]> findAllLocationsAndOccupations();
+
+    //Directory fields of every user: rows of [userId, location, occupation, birthDate], used to build the directory index
+    @Query("SELECT up.user.id, up.location, up.occupation, up.birthDate FROM UserProfile up WHERE up.user.deletedAt IS NULL")
+    List<Object[]> findAllDirectoryFields();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserProfile up WHERE up.user.id IN :userIds")
+    int deleteAllByUserIdIn(Collection<Integer> userIds);
 }
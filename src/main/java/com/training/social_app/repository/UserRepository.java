@@ -3,19 +3,69 @@ package com.training.social_app.repository;
 import com.training.social_app.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer>, JpaSpecificationExecutor<User> {
     Optional<User> findByEmail(String email);
     Optional<User> findByUsername(String username);
-    Optional<User> findByForgotPasswordToken(String token);
-    @Query("SELECT u FROM User u JOIN u.userProfile up WHERE up.fullName LIKE %:fullName%")
-    Page<User> findByUserProfileFullNameContaining(@Param("fullName") String fullName, Pageable pageable);
+
+    //Lookups that skip deleted accounts still waiting for their purge
+    Optional<User> findByIdAndDeletedAtIsNull(Integer id);
+    Optional<User> findByUsernameAndDeletedAtIsNull(String username);
+    Optional<User> findByEmailAndDeletedAtIsNull(String email);
+    boolean existsByIdAndDeletedAtIsNull(Integer id);
+
+    //Username of every user: rows of [userId, username], used to build the typeahead index
+    @Query("SELECT u.id, u.username FROM User u WHERE u.deletedAt IS NULL")
+    List<Object[]> findAllUsernames();
+
+    //A page of a set of users, as ids: names and avatars come from the author card cache
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    Page<Integer> findPageOfIds(@Param("ids") Collection<Integer> ids, Pageable pageable);
+
+    //Keyset page of a set of users, most recently updated first: rows of [userId, updatedAt]
+    @Query("""
+    SELECT u.id, u.updatedAt FROM User u
+    WHERE u.id IN :ids
+    AND (u.updatedAt < :updatedAt OR (u.updatedAt = :updatedAt AND u.id < :id))
+    ORDER BY u.updatedAt DESC, u.id DESC
+""")
+    Slice<Object[]> findIdsAfter(@Param("ids") Collection<Integer> ids, @Param("updatedAt") LocalDateTime updatedAt,
+                                 @Param("id") Integer id, Pageable pageable);
+
+    //Ids among the given ones that exist, to tell the missing ones apart before a bulk delete
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
+
+    //Rows of [userId, username] of the given users
+    @Query("SELECT u.id, u.username FROM User u WHERE u.id IN :ids")
+    List<Object[]> findUsernamesByIdIn(Collection<Integer> ids);
+
+    //Soft delete: 1 when the account was marked, 0 when it was already deleted
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.deletedAt = :now WHERE u.id = :id AND u.deletedAt IS NULL")
+    int markDeleted(Integer id, LocalDateTime now);
+
+    //Deleted accounts whose purge has not finished
+    @Query("SELECT u.id FROM User u WHERE u.deletedAt IS NOT NULL ORDER BY u.deletedAt")
+    List<Integer> findDeletedIds();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM User u WHERE u.id IN :ids")
+    int deleteAllByIdIn(Collection<Integer> ids);
 }
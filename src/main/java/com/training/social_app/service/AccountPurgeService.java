@@ -0,0 +1,15 @@
+package com.training.social_app.service;
+
+import com.training.social_app.dto.response.JobResponse;
+
+public interface AccountPurgeService {
+    //Take a just soft-deleted account out of the like and comment counters and liker sets of other users' posts
+    void detach(Integer userId);
+    //Start removing the rows of a soft-deleted account in small batches; null when its purge is already running
+    JobResponse purge(Integer userId);
+    //Remove the rows of a soft-deleted account in the same small batches, on the calling thread;
+    //false when its purge is already running elsewhere
+    boolean purgeNow(Integer userId);
+    //Start the purge of every soft-deleted account left over, e.g. after a restart
+    void purgePending();
+}
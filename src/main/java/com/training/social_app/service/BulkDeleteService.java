@@ -0,0 +1,11 @@
+package com.training.social_app.service;
+
+import java.util.List;
+
+public interface BulkDeleteService {
+    //Delete posts with their likes, comments and timeline entries, in one transaction
+    void deletePosts(List<Integer> postIds);
+    //Delete users with the rows bounded per user (friendships, timelines, reports, profile), in one transaction;
+    //their posts, likes and comments must be deleted first
+    void deleteUsers(List<Integer> userIds);
+}
@@ -10,5 +10,6 @@ public interface CommentService {
     CommentResponse editComment(CommentRequest commentRequest, Integer commentId);
     void deleteComment(Integer postId);
     Map<String, Object> getCommentsByPostId(Integer postId, Integer page, Integer size);
+    Map<String, Object> getCommentsByPostIdAfter(Integer postId, String after, Integer size);
     CommentResponse getCommentById(Integer commentId);
 }
@@ -6,7 +6,10 @@ import java.util.Map;
 
 public interface FriendShipService {
     Map<String, Object> getFriends(int page, int size);
+    Map<String, Object> getFriendsAfter(String after, int size);
     FriendShipResponse getFriendship(Integer friendId);
+    //Get the mutual-friend count and a page of mutual friends with another user
+    Map<String, Object> getMutualFriends(Integer otherUserId, int page, int size);
     //Get users who received friend requests from the current user
     Map<String, Object> getFriendRequests(int page, int size);
     //Get users who sent friend requests to the current user
@@ -0,0 +1,18 @@
+package com.training.social_app.service;
+
+import java.util.Map;
+
+public interface FriendSuggestionService {
+    //Get the precomputed "people you may know" of the current user
+    Map<String, Object> getSuggestions(int size);
+    //Two users became or stopped being friends: their suggestions and their friends' are stale
+    void friendshipChanged(Integer userId, Integer otherUserId);
+    //A user sent, received or dropped a friend request
+    void requestChanged(Integer userId);
+    //Location or occupation of a user changed
+    void profileChanged(Integer userId, String location, String occupation);
+    //Forget a deleted user
+    void removeUser(Integer userId);
+    //Recompute the suggestions of the users marked stale
+    void recomputeStale();
+}
@@ -0,0 +1,20 @@
+package com.training.social_app.service;
+
+import com.training.social_app.dto.response.JobResponse;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+public interface JobService {
+    //Work of a background job; reports the items it finished through the progress callback
+    interface Task {
+        void run(IntConsumer progress);
+    }
+
+    //Queue a job over total items and return its state right away
+    JobResponse submit(String type, int total, Task task);
+    //State of a job (admin)
+    JobResponse findById(String jobId);
+    //State of every job still kept, newest first (admin)
+    List<JobResponse> findAll();
+}
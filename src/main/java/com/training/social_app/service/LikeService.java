@@ -5,11 +5,21 @@ import com.training.social_app.dto.response.LikeResponse;
 import java.util.Map;
 
 public interface LikeService {
+    //Toggle the current user's like on a post
     LikeResponse likePost(Integer postId);
 
+    //Like a post; liking it again changes nothing
+    LikeResponse like(Integer postId);
+
+    //Remove the like from a post; unliking it again changes nothing
+    LikeResponse unlike(Integer postId);
+
     //Get all likes for a post
     Map<String, Object> getLikesForPost(Integer postId, Integer page, Integer size);
 
+    //Get likes for a post after an opaque cursor
+    Map<String, Object> getLikesForPostAfter(Integer postId, String after, Integer size);
+
     //Get like by id
     LikeResponse getLikeById(Integer likeId);
 }
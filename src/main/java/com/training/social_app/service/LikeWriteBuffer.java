@@ -0,0 +1,18 @@
+package com.training.social_app.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+public interface LikeWriteBuffer {
+    //Whether likes go through the buffer instead of being written by the request
+    boolean isEnabled();
+    //Record the like state a user asked for on a post (null toggles it) and return the resulting state
+    boolean submit(Integer userId, Integer postId, Boolean liked);
+    //Like states of the user on these posts that are not written yet; posts without pending changes are absent
+    Map<Integer, Boolean> pendingStates(Integer userId, Collection<Integer> postIds);
+    //Posts among these with likes or unlikes not written yet, buffered or being flushed
+    Set<Integer> pendingPostIds(Collection<Integer> postIds);
+    //Write the pending likes and unlikes to the likes table
+    void flush();
+}
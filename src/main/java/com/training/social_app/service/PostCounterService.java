@@ -0,0 +1,19 @@
+package com.training.social_app.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface PostCounterService {
+    //Buffer a change of the like count of a post, written to the database on the next flush
+    void addLikes(Integer postId, int delta);
+    //Buffer a change of the comment count of a post, written to the database on the next flush
+    void addComments(Integer postId, int delta);
+    //Deltas not flushed yet, as {likes, comments} per post id; posts without pending deltas are absent
+    Map<Integer, long[]> pending(Collection<Integer> postIds);
+    //Drop the deltas not flushed yet of posts that were deleted
+    void discard(Collection<Integer> postIds);
+    //Write the buffered deltas to the posts table
+    void flush();
+    //Recount likes and comments and correct the stored counters that drifted
+    void reconcile();
+}
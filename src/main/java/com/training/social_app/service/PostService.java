@@ -1,6 +1,7 @@
 package com.training.social_app.service;
 
 import com.training.social_app.dto.request.DeleteRequest;
+import com.training.social_app.dto.response.JobResponse;
 import com.training.social_app.dto.response.PostResponse;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -12,7 +13,9 @@ public interface PostService {
     void deletePost(Integer postId);
     Map<String, Object> getPostsByUserId(Integer page, Integer size);
     Map<String, Object> getPostsOfFriendsSortedByDate(Integer page, Integer size);
+    //Keyset variant of the friends feed, continues after an opaque cursor
+    Map<String, Object> getPostsOfFriendsAfter(String after, Integer size);
     Map<String, Object> findAll(Integer page, Integer size);
-    void deletePosts(DeleteRequest deleteRequest);
+    JobResponse deletePosts(DeleteRequest deleteRequest);
     PostResponse findById(Integer postId);
 }
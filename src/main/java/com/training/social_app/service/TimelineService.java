@@ -0,0 +1,27 @@
+package com.training.social_app.service;
+
+import com.training.social_app.dto.response.PostResponse;
+import com.training.social_app.entity.Post;
+import com.training.social_app.utils.PageCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+
+public interface TimelineService {
+    //Read the materialized friends feed of a user
+    Page<PostResponse> getTimeline(Integer userId, Pageable pageable);
+    //Keyset read of the friends feed, strictly after the cursor
+    Slice<PostResponse> getTimelineAfter(Integer userId, PageCursor cursor, Pageable pageable);
+    //Push a new post to the timelines of the author's friends
+    void publish(Post post);
+    //Move an edited post to the top of the timelines it is already in
+    void touch(Post post);
+    //Remove posts from every timeline, in one statement
+    void retract(Collection<Integer> postIds);
+    //Two users became friends: each one sees the other's posts
+    void link(Integer userId, Integer friendId);
+    //Two users are no longer friends: drop each other's posts
+    void unlink(Integer userId, Integer friendId);
+}
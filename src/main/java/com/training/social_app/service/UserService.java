@@ -4,8 +4,11 @@ import com.training.social_app.dto.request.DeleteRequest;
 import com.training.social_app.dto.request.LoginRequest;
 import com.training.social_app.dto.request.UserRequest;
 import com.training.social_app.dto.response.DetailUserResponse;
+import com.training.social_app.dto.response.JobResponse;
+import com.training.social_app.dto.response.UserResponse;
 import com.training.social_app.entity.User;
 
+import java.util.List;
 import java.util.Map;
 
 public interface UserService {
@@ -16,10 +19,16 @@ public interface UserService {
     String generateForgotPasswordToken(String email);
     void resetPassword(String token, String newPassword);
     void deleteUser();
-    void deleteUsers(DeleteRequest request);
+    //admin bulk delete, run as a background job
+    JobResponse deleteUsers(DeleteRequest request);
     Map<String,Object> findAll(String searchText, int page, int size);
     DetailUserResponse findById(Integer userId);
     DetailUserResponse getUserProfile();
     //search user by full name (for normal user)
     Map<String,Object> searchUser(String searchText, int page, int size);
+    Map<String,Object> searchUserAfter(String searchText, String after, int size);
+    //users whose name or username starts with a word of the query, for the search box
+    List<UserResponse> typeahead(String query);
+    //users filtered by location, occupation and age bucket, with the count of every facet value
+    Map<String,Object> directory(String location, String occupation, String age, int page, int size);
 }
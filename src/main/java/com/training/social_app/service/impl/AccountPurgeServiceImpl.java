@@ -0,0 +1,176 @@
+package com.training.social_app.service.impl;
+
+import com.training.social_app.cache.PostLikerCache;
+import com.training.social_app.dto.response.JobResponse;
+import com.training.social_app.exception.ServiceBusyException;
+import com.training.social_app.repository.CommentRepository;
+import com.training.social_app.repository.LikeRepository;
+import com.training.social_app.repository.PostRepository;
+import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.AccountPurgeService;
+import com.training.social_app.service.BulkDeleteService;
+import com.training.social_app.service.JobService;
+import com.training.social_app.service.PostCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+// Purge of soft-deleted accounts as background jobs: posts (each batch after the likes and comments on it),
+// then likes, then comments, purge.batch-size rows per transaction with a pause between batches,
+// so a very active account or a viral post never locks the hot tables for long.
+// The user row goes last, with whatever still points at it. Read paths already hide the account meanwhile,
+// and its likes and comments were taken out of the counters when it was soft-deleted.
+// Accounts left soft-deleted, because of a restart or a failed job, are picked up again by the periodic sweep.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AccountPurgeServiceImpl implements AccountPurgeService {
+    @Autowired
+    private final UserRepository userRepository;
+
+    @Autowired
+    private final PostRepository postRepository;
+
+    @Autowired
+    private final LikeRepository likeRepository;
+
+    @Autowired
+    private final CommentRepository commentRepository;
+
+    @Autowired
+    private final BulkDeleteService bulkDeleteService;
+
+    @Autowired
+    private final PostCounterService postCounterService;
+
+    @Autowired
+    private final PostLikerCache postLikerCache;
+
+    @Autowired
+    private final JobService jobService;
+
+    @Value("${purge.batch-size:200}")
+    private int batchSize;
+
+    @Value("${purge.pause-ms:100}")
+    private long pauseMs;
+
+    private final Set<Integer> running = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void detach(Integer userId) {
+        for (Integer postId : likeRepository.findPostIdsLikedOnOtherUsersPosts(userId)) {
+            postCounterService.addLikes(postId, -1);
+            postLikerCache.removed(postId, userId);
+        }
+        for (Object[] row : commentRepository.countPerPostOnOtherUsersPosts(userId)) {
+            postCounterService.addComments((Integer) row[0], (int) -(Long) row[1]);
+        }
+    }
+
+    @Override
+    public JobResponse purge(Integer userId) {
+        if (!running.add(userId)) {
+            return null;
+        }
+        try {
+            //Likes and comments on the user's own posts go with the posts, so only the others are counted
+            long total = postRepository.countByUserId(userId) + likeRepository.countOnOtherUsersPosts(userId)
+                    + commentRepository.countOnOtherUsersPosts(userId) + 1;
+            return jobService.submit("purge-user:" + userId, (int) Math.min(total, Integer.MAX_VALUE), progress -> {
+                try {
+                    purgeRows(userId, progress);
+                } finally {
+                    running.remove(userId);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.remove(userId);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean purgeNow(Integer userId) {
+        if (!running.add(userId)) {
+            return false;
+        }
+        try {
+            purgeRows(userId, rows -> {});
+        } finally {
+            running.remove(userId);
+        }
+        return true;
+    }
+
+    private void purgeRows(Integer userId, IntConsumer progress) {
+        List<Integer> postIds;
+        while (!(postIds = postRepository.findIdsByUserId(userId, firstBatch())).isEmpty()) {
+            //A popular post can carry far more likes and comments than a batch: they go first, in batches of their own
+            List<Integer> batch = postIds;
+            drain(() -> likeRepository.findIdsByPostIdIn(batch, firstBatch()), likeRepository::deleteAllByIdIn, rows -> {});
+            drain(() -> commentRepository.findIdsByPostIdIn(batch, firstBatch()), commentRepository::deleteAllByIdIn, rows -> {});
+            bulkDeleteService.deletePosts(postIds);
+            progress.accept(postIds.size());
+            pause();
+        }
+        drain(() -> likeRepository.findIdsByUserId(userId, firstBatch()), likeRepository::deleteAllByIdIn, progress);
+        drain(() -> commentRepository.findIdsByUserId(userId, firstBatch()), commentRepository::deleteAllByIdIn, progress);
+        //Friendships, timelines, reports and the profile are bounded per user: one transaction with the user row
+        bulkDeleteService.deleteUsers(List.of(userId));
+        progress.accept(1);
+    }
+
+    private PageRequest firstBatch() {
+        return PageRequest.of(0, batchSize);
+    }
+
+    // Deletes the ids returned by next, one batch per transaction with a pause in between, until none are left
+    private void drain(Supplier<List<Integer>> next, Consumer<List<Integer>> delete, IntConsumer progress) {
+        List<Integer> ids;
+        while (!(ids = next.get()).isEmpty()) {
+            delete.accept(ids);
+            progress.accept(ids.size());
+            pause();
+        }
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Purge was interrupted", e);
+        }
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${purge.sweep-initial-delay-ms:60000}", fixedDelayString = "${purge.sweep-interval-ms:600000}")
+    public void purgePending() {
+        for (Integer userId : userRepository.findDeletedIds()) {
+            try {
+                if (purge(userId) != null) {
+                    log.info("Resumed purge of deleted user {}", userId);
+                }
+            } catch (ServiceBusyException e) {
+                //The job queue is full; the next sweep tries again
+                log.warn("Job queue is full, purge of deleted user {} postponed", userId);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.training.social_app.service.impl;
+
+import com.training.social_app.cache.PostLikerCache;
+import com.training.social_app.repository.CommentRepository;
+import com.training.social_app.repository.FriendShipRepository;
+import com.training.social_app.repository.LikeRepository;
+import com.training.social_app.repository.PostRepository;
+import com.training.social_app.repository.ReportRepository;
+import com.training.social_app.repository.TimelineEntryRepository;
+import com.training.social_app.repository.UserProfileRepository;
+import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.BulkDeleteService;
+import com.training.social_app.service.PostCounterService;
+import com.training.social_app.service.TimelineService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Set-based deletes: one DELETE ... WHERE IN statement per table, children before parents,
+// instead of loading the entities and removing them row by row. Callers keep the id lists to a chunk size.
+// The deleted posts are dropped from the liker cache and the counter buffer here too, so no caller can forget it.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkDeleteServiceImpl implements BulkDeleteService {
+    @Autowired
+    private final PostRepository postRepository;
+
+    @Autowired
+    private final LikeRepository likeRepository;
+
+    @Autowired
+    private final CommentRepository commentRepository;
+
+    @Autowired
+    private final TimelineEntryRepository timelineEntryRepository;
+
+    @Autowired
+    private final FriendShipRepository friendShipRepository;
+
+    @Autowired
+    private final ReportRepository reportRepository;
+
+    @Autowired
+    private final UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private final UserRepository userRepository;
+
+    @Autowired
+    private final PostLikerCache postLikerCache;
+
+    @Autowired
+    private final PostCounterService postCounterService;
+
+    @Autowired
+    private final TimelineService timelineService;
+
+    @Override
+    @Transactional
+    public void deletePosts(List<Integer> postIds) {
+        likeRepository.deleteAllByPostIdIn(postIds);
+        commentRepository.deleteAllByPostIdIn(postIds);
+        timelineService.retract(postIds);
+        int deleted = postRepository.deleteAllByIdIn(postIds);
+        forgetPosts(postIds);
+        log.debug("Deleted {} posts", deleted);
+    }
+
+    @Override
+    @Transactional
+    public void deleteUsers(List<Integer> userIds) {
+        //Posts, likes and comments can be many: AccountPurgeService deletes them in batches before this runs,
+        //and a row left over fails the delete so the purge is retried
+        timelineEntryRepository.deleteAllByUserIdIn(userIds);
+        friendShipRepository.deleteAllByUserIdIn(userIds);
+        reportRepository.deleteAllByUserIdIn(userIds);
+        userProfileRepository.deleteAllByUserIdIn(userIds);
+        int deleted = userRepository.deleteAllByIdIn(userIds);
+        log.debug("Deleted {} users", deleted);
+    }
+
+    // A like or comment buffered for a deleted post would only be flushed into a missing row
+    private void forgetPosts(List<Integer> postIds) {
+        postLikerCache.evict(postIds);
+        postCounterService.discard(postIds);
+    }
+}
@@ -1,5 +1,7 @@
 package com.training.social_app.service.impl;
 
+import com.training.social_app.cache.AuthorCard;
+import com.training.social_app.cache.AuthorCardCache;
 import com.training.social_app.dto.request.CommentRequest;
 import com.training.social_app.dto.response.CommentResponse;
 import com.training.social_app.entity.Comment;
@@ -9,6 +11,8 @@ import com.training.social_app.repository.CommentRepository;
 import com.training.social_app.repository.PostRepository;
 import com.training.social_app.repository.UserRepository;
 import com.training.social_app.service.CommentService;
+import com.training.social_app.service.PostCounterService;
+import com.training.social_app.utils.PageCursor;
 import com.training.social_app.utils.UserContext;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -17,12 +21,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -36,15 +41,15 @@ public class CommentServiceImpl implements CommentService {
     @Autowired
     private final PostRepository postRepository;
 
-    private Integer getCurrentUserId() {
-        User currentUser = userRepository.findById(UserContext.getUser().getUser().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Current user not found"));
-        return currentUser.getId();
-    }
+    @Autowired
+    private final PostCounterService postCounterService;
+
+    @Autowired
+    private final AuthorCardCache authorCardCache;
 
     @Override
     public CommentResponse commentPost(CommentRequest commentRequest) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         //Handle validation
         User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found for id: " + userId));
         //Create a new comment
@@ -52,12 +57,14 @@ public class CommentServiceImpl implements CommentService {
         comment.setPost(postRepository.findById(commentRequest.getPostId()).orElseThrow(() -> new EntityNotFoundException("Post not found for id: " + commentRequest.getPostId())));
         comment.setUser(user);
         comment.setContent(commentRequest.getContent());
-        return convertToDto(commentRepository.save(comment)) ;
+        Comment savedComment = commentRepository.save(comment);
+        postCounterService.addComments(savedComment.getPost().getId(), 1);
+        return convertToDto(savedComment);
     }
 
     @Override
     public CommentResponse editComment(CommentRequest commentRequest,Integer commentId ) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         //Handle validation
         Comment existingComment = commentRepository.findById(commentId).orElseThrow(() -> new EntityNotFoundException("Comment not found for id: " + commentId));
         if (!existingComment.getUser().getId().equals(userId)) {
@@ -73,13 +80,14 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     public void deleteComment(Integer commentId) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         //Handle validation
         Comment existingComment = commentRepository.findById(commentId).orElseThrow(() -> new EntityNotFoundException("Comment not found for id: " + commentId));
         if (!existingComment.getUser().getId().equals(userId)) {
             throw new UserForbiddenException("You are not allowed to delete this comment");
         }
         commentRepository.delete(existingComment);
+        postCounterService.addComments(existingComment.getPost().getId(), -1);
     }
 
     @Override
@@ -91,19 +99,35 @@ public class CommentServiceImpl implements CommentService {
             page = page - 1;
         }
         Pageable pageable = PageRequest.of(page, size);
-        Page<Comment> pageComments = commentRepository.findAllByPostId(postId, pageable);
+        Page<CommentResponse> pageComments = commentRepository.findResponsesByPostId(postId, pageable);
         Map<String, Object> response = new HashMap<>();
-        response.put("listComment", pageComments.getContent().stream().map(this::convertToDto).collect(Collectors.toList()));
+        response.put("listComment", pageComments.getContent());
         response.put("pageSize", pageComments.getSize());
         response.put("pageNo", pageComments.getNumber() + 1);
         response.put("totalPage", pageComments.getTotalPages());
         return response;
     }
 
+    @Override
+    public Map<String, Object> getCommentsByPostIdAfter(Integer postId, String after, Integer size) {
+        if (!postRepository.existsById(postId)) {
+            throw new EntityNotFoundException("Post not found for id: " + postId);
+        }
+        PageCursor cursor = PageCursor.decode(after);
+        Slice<CommentResponse> sliceComments = commentRepository.findResponsesByPostIdAfter(postId, cursor.time(), cursor.id(), PageRequest.of(0, size));
+        List<CommentResponse> comments = sliceComments.getContent();
+        Map<String, Object> response = new HashMap<>();
+        response.put("listComment", comments);
+        response.put("pageSize", sliceComments.getSize());
+        response.put("nextCursor", sliceComments.hasNext()
+                ? PageCursor.of(comments.getLast().getCreatedAt(), comments.getLast().getId()).encode()
+                : null);
+        return response;
+    }
+
     @Override
     public CommentResponse getCommentById(Integer commentId) {
-        Comment comment = commentRepository.findById(commentId).orElseThrow(() -> new EntityNotFoundException("Comment not found for id: " + commentId));
-        return convertToDto(comment);
+        return commentRepository.findResponseById(commentId).orElseThrow(() -> new EntityNotFoundException("Comment not found for id: " + commentId));
     }
 
     private CommentResponse convertToDto(Comment comment) {
@@ -111,8 +135,9 @@ public class CommentServiceImpl implements CommentService {
         commentResponse.setId(comment.getId());
         commentResponse.setPostId(comment.getPost().getId());
         commentResponse.setUserId(comment.getUser().getId());
-        commentResponse.setUserFullName(comment.getUser().getUserProfile().getFullName());
-        commentResponse.setUserProfileImage(comment.getUser().getUserProfile().getAvatarUrl());
+        AuthorCard author = authorCardCache.get(comment.getUser().getId());
+        commentResponse.setUserFullName(author.fullName());
+        commentResponse.setUserProfileImage(author.avatarUrl());
         commentResponse.setContent(comment.getContent());
         commentResponse.setCreatedAt(comment.getCreatedAt());
         commentResponse.setUpdatedAt(comment.getUpdatedAt());
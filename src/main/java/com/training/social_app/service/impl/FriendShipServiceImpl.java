@@ -1,105 +1,183 @@
 package com.training.social_app.service.impl;
 
+import com.training.social_app.cache.AuthorCard;
+import com.training.social_app.cache.AuthorCardCache;
+import com.training.social_app.cache.FriendGraph;
 import com.training.social_app.dto.response.FriendShipRequestResponse;
 import com.training.social_app.dto.response.FriendShipResponse;
 import com.training.social_app.dto.response.UserResponse;
 import com.training.social_app.entity.FriendShip;
-import com.training.social_app.entity.User;
 import com.training.social_app.enums.RequestStatus;
 import com.training.social_app.repository.FriendShipRepository;
 import com.training.social_app.repository.UserRepository;
 import com.training.social_app.service.FriendShipService;
+import com.training.social_app.service.FriendSuggestionService;
+import com.training.social_app.service.TimelineService;
+import com.training.social_app.utils.PageCursor;
 import com.training.social_app.utils.UserContext;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class FriendShipServiceImpl implements FriendShipService {
     private final FriendShipRepository friendShipRepository;
 
     @Autowired
     private final UserRepository userRepository;
 
-    private Integer getCurrentUserId() {
-        User currentUser = userRepository.findById(UserContext.getUser().getUser().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Current user not found"));
-        return currentUser.getId();
-    }
+    @Autowired
+    private final TimelineService timelineService;
+
+    @Autowired
+    private final FriendGraph friendGraph;
+
+    @Autowired
+    private final FriendSuggestionService friendSuggestionService;
 
-    private UserResponse convertToUserResponse(User user) {
+    @Autowired
+    private final AuthorCardCache authorCardCache;
+
+    private UserResponse convertToUserResponse(AuthorCard card) {
         UserResponse userResponse = new UserResponse();
-        userResponse.setId(user.getId());
-        userResponse.setFullName(user.getUserProfile().getFullName());
-        userResponse.setAvatarUrl(user.getUserProfile().getAvatarUrl());
+        userResponse.setId(card.id());
+        userResponse.setFullName(card.fullName());
+        userResponse.setAvatarUrl(card.avatarUrl());
         return userResponse;
     }
 
+    // Names and avatars of a page of users in one cache lookup, in the order of the page
+    private List<UserResponse> toUserResponses(List<Integer> userIds) {
+        Map<Integer, AuthorCard> cards = authorCardCache.getAll(userIds);
+        return userIds.stream()
+                .map(id -> convertToUserResponse(cards.get(id)))
+                .collect(Collectors.toList());
+    }
+
+    private List<Integer> friendIdsOf(Integer userId) {
+        return Arrays.stream(friendGraph.friendsOf(userId)).boxed().toList();
+    }
+
     // Get friends of user
     @Override
     public Map<String, Object> getFriends(int page, int size) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         if (page > 0) {
             page = page - 1;
         }
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "updatedAt"));
-        Page<User> friendsPage = friendShipRepository.findFriendsByUserId(userId, pageable);
+        List<Integer> friendIds = friendIdsOf(userId);
+        Page<Integer> friendsPage = friendIds.isEmpty()
+                ? Page.empty(pageable)
+                : userRepository.findPageOfIds(friendIds, pageable);
         Map<String, Object> response = new HashMap<>();
-        response.put("listFriends", friendsPage.getContent().stream()
-                .map(this::convertToUserResponse)
-                .collect(Collectors.toList()));
+        response.put("listFriends", toUserResponses(friendsPage.getContent()));
         response.put("pageSize", friendsPage.getSize());
         response.put("pageNo", friendsPage.getNumber() + 1);
         response.put("totalPage", friendsPage.getTotalPages());
         return response;
     }
 
+    @Override
+    public Map<String, Object> getFriendsAfter(String after, int size) {
+        Integer userId = UserContext.getCurrentUserId();
+        PageCursor cursor = PageCursor.decode(after);
+        List<Integer> friendIds = friendIdsOf(userId);
+        Slice<Object[]> friendsSlice = friendIds.isEmpty()
+                ? new SliceImpl<>(List.of(), PageRequest.of(0, size), false)
+                : userRepository.findIdsAfter(friendIds, cursor.time(), cursor.id(), PageRequest.of(0, size));
+        List<Object[]> friends = friendsSlice.getContent();
+        Map<String, Object> response = new HashMap<>();
+        response.put("listFriends", toUserResponses(friends.stream().map(row -> (Integer) row[0]).toList()));
+        response.put("pageSize", friendsSlice.getSize());
+        response.put("nextCursor", friendsSlice.hasNext()
+                ? PageCursor.of((LocalDateTime) friends.getLast()[1], (Integer) friends.getLast()[0]).encode()
+                : null);
+        return response;
+    }
+
     @Override
     public FriendShipResponse getFriendship(Integer friendId) {
-        Integer userId = getCurrentUserId();
-        FriendShip friendShip = friendShipRepository.findByUser1IdAndUser2Id(userId, friendId)
+        Integer userId = UserContext.getCurrentUserId();
+        if (!friendGraph.areFriends(userId, friendId)) {
+            throw new EntityNotFoundException("Friendship not found for user id: " + userId + " and friend id: " + friendId);
+        }
+        FriendShip friendShip = friendShipRepository.findByUserLowIdAndUserHighId(Math.min(userId, friendId), Math.max(userId, friendId))
                 .orElseThrow(() -> new EntityNotFoundException("Friendship not found for user id: " + userId + " and friend id: " + friendId));
         return convertToDto(friendShip);
     }
 
-    private FriendShipRequestResponse convertToFriendShipRequestResponse(FriendShip friendShip, boolean isRequester) {
-        FriendShipRequestResponse friendShipRequestResponse = new FriendShipRequestResponse();
-        friendShipRequestResponse.setId(friendShip.getId());
-        User user = isRequester ? friendShip.getUser2() : friendShip.getUser1();
-        if (user.getUserProfile() != null) {
-            friendShipRequestResponse.setUserId(user.getId());
-            friendShipRequestResponse.setUserFullName(user.getUserProfile().getFullName());
-            friendShipRequestResponse.setUserAvatarUrl(user.getUserProfile().getAvatarUrl());
-        } else {
-            friendShipRequestResponse.setUserId(user.getId());
-            friendShipRequestResponse.setUserFullName(null);
-            friendShipRequestResponse.setUserAvatarUrl(null);
+    @Override
+    public Map<String, Object> getMutualFriends(Integer otherUserId, int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Page number must not be negative and page size must be at least 1");
+        }
+        Integer userId = UserContext.getCurrentUserId();
+        if (!userRepository.existsByIdAndDeletedAtIsNull(otherUserId)) {
+            throw new EntityNotFoundException("User not found for id: " + otherUserId);
+        }
+        if (page > 0) {
+            page = page - 1;
+        }
+        int[] mutualIds = friendGraph.mutualFriends(userId, otherUserId);
+        int from = (int) Math.min((long) page * size, mutualIds.length);
+        int to = Math.min(from + size, mutualIds.length);
+        int[] pageIds = Arrays.copyOfRange(mutualIds, from, to);
+        int[] counts = friendGraph.mutualCounts(userId, pageIds);
+        Map<Integer, AuthorCard> cards = authorCardCache.getAll(Arrays.stream(pageIds).boxed().toList());
+        List<UserResponse> mutualFriends = new ArrayList<>();
+        for (int i = 0; i < pageIds.length; i++) {
+            UserResponse userResponse = convertToUserResponse(cards.get(pageIds[i]));
+            userResponse.setMutualFriendCount(counts[i]);
+            mutualFriends.add(userResponse);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("mutualFriendCount", mutualIds.length);
+        response.put("listMutualFriends", mutualFriends);
+        response.put("pageSize", size);
+        response.put("pageNo", page + 1);
+        response.put("totalPage", (mutualIds.length + size - 1) / size);
+        return response;
+    }
+
+    // Fill in the mutual-friend count of every card of a page from the friend graph
+    private List<FriendShipRequestResponse> withMutualCounts(Integer userId, List<FriendShipRequestResponse> cards) {
+        int[] counts = friendGraph.mutualCounts(userId, cards.stream().mapToInt(FriendShipRequestResponse::getUserId).toArray());
+        for (int i = 0; i < counts.length; i++) {
+            cards.get(i).setMutualFriendCount(counts[i]);
         }
-        friendShipRequestResponse.setStatus(friendShip.getStatus());
-        friendShipRequestResponse.setCreatedAt(friendShip.getCreatedAt());
-        return friendShipRequestResponse;
+        return cards;
     }
 
     @Override
     public Map<String, Object> getFriendRequests(int page, int size) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         Pageable pageable = PageRequest.of(page - 1, size);
-        Page<FriendShip> friendRequestsPage = friendShipRepository.findFriendRequestsByUserId(userId, pageable);
+        Page<FriendShipRequestResponse> friendRequestsPage = friendShipRepository.findFriendRequestsByUserId(userId, pageable);
         Map<String, Object> response = new HashMap<>();
-        response.put("listFriendRequests", friendRequestsPage.getContent().stream()
-                .map(friendShip -> convertToFriendShipRequestResponse(friendShip, true))
-                .collect(Collectors.toList()));
+        response.put("listFriendRequests", withMutualCounts(userId, friendRequestsPage.getContent()));
         response.put("pageSize", friendRequestsPage.getSize());
         response.put("pageNo", friendRequestsPage.getNumber() + 1);
         response.put("totalPage", friendRequestsPage.getTotalPages());
@@ -108,13 +186,11 @@ public class FriendShipServiceImpl implements FriendShipService {
 
     @Override
     public Map<String, Object> getFriendRequestsToUser(int page, int size) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         Pageable pageable = PageRequest.of(page - 1, size);
-        Page<FriendShip> friendRequestsToUserPage = friendShipRepository.findFriendRequestsToUserId(userId, pageable);
+        Page<FriendShipRequestResponse> friendRequestsToUserPage = friendShipRepository.findFriendRequestsToUserId(userId, pageable);
         Map<String, Object> response = new HashMap<>();
-        response.put("listFriendRequests", friendRequestsToUserPage.getContent().stream()
-                .map(friendShip -> convertToFriendShipRequestResponse(friendShip, false))
-                .collect(Collectors.toList()));
+        response.put("listFriendRequests", withMutualCounts(userId, friendRequestsToUserPage.getContent()));
         response.put("pageSize", friendRequestsToUserPage.getSize());
         response.put("pageNo", friendRequestsToUserPage.getNumber() + 1);
         response.put("totalPage", friendRequestsToUserPage.getTotalPages());
@@ -123,21 +199,48 @@ public class FriendShipServiceImpl implements FriendShipService {
 
     @Override
     public FriendShipResponse sendFriendRequest(Integer requesteeId) {
-        Integer requesterId = getCurrentUserId();
-        if(friendShipRepository.findByUser1IdAndUser2Id(requesterId,userRepository.findById(requesteeId).orElseThrow(() -> new EntityNotFoundException("User not found for requestee id: " + requesteeId)).getId() ).isPresent()) {
-            throw new RuntimeException("Friend request already sent or accepted");
+        Integer requesterId = UserContext.getCurrentUserId();
+        if(Objects.equals(requesterId, requesteeId)) {
+            throw new RuntimeException("User cannot send friend request to themselves");
         }
-        if(friendShipRepository.findByUser1IdAndUser2Id(requesteeId,requesterId).isPresent()) {
+        int lowId = Math.min(requesterId, requesteeId);
+        int highId = Math.max(requesterId, requesteeId);
+        // The unique pair key decides: nothing is inserted if either user already asked the other
+        if (friendShipRepository.insertFriendRequest(requesterId, requesteeId, lowId, highId, LocalDateTime.now()) == 0) {
+            if (!userRepository.existsByIdAndDeletedAtIsNull(requesteeId)) {
+                throw new EntityNotFoundException("User not found for requestee id: " + requesteeId);
+            }
             throw new RuntimeException("Friend request already sent or accepted");
         }
-        if(Objects.equals(requesterId, requesteeId)) {
-            throw new RuntimeException("User cannot send friend request to themselves");
+        friendSuggestionService.requestChanged(requesterId);
+        friendSuggestionService.requestChanged(requesteeId);
+        return convertToDto(friendShipRepository.findByUserLowIdAndUserHighId(lowId, highId)
+                .orElseThrow(() -> new EntityNotFoundException("Friend request not found for user id: " + requesteeId)));
+    }
+
+    // Rows created before the canonical pair columns existed get them once at startup.
+    // A legacy duplicate of a pair (both directions stored) is resolved to one row, the accepted one if any,
+    // so that no row is left that the pair queries cannot reach.
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCanonicalPairs() {
+        for (Object[] row : friendShipRepository.findRowsWithoutCanonicalPair()) {
+            int id = ((Number) row[0]).intValue();
+            int lowId = Math.min(((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+            int highId = Math.max(((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+            try {
+                friendShipRepository.setCanonicalPair(id, lowId, highId);
+            } catch (DataIntegrityViolationException e) {
+                FriendShip kept = friendShipRepository.findByUserLowIdAndUserHighId(lowId, highId).orElse(null);
+                if (kept != null && kept.getStatus() != RequestStatus.ACCEPTED && RequestStatus.ACCEPTED.name().equals(row[3])) {
+                    friendShipRepository.deleteById(kept.getId());
+                    friendShipRepository.setCanonicalPair(id, lowId, highId);
+                    log.warn("Friendship {} duplicated the accepted pair ({}, {}), removed", kept.getId(), lowId, highId);
+                } else {
+                    friendShipRepository.deleteById(id);
+                    log.warn("Friendship {} duplicated the pair ({}, {}), removed", id, lowId, highId);
+                }
+            }
         }
-        FriendShip friendShip = new FriendShip();
-        friendShip.setUser1(userRepository.findById(requesterId).orElseThrow(() -> new EntityNotFoundException("User not found for requester id: " + requesterId)));
-        friendShip.setUser2(userRepository.findById(requesteeId).orElseThrow(() -> new EntityNotFoundException("User not found for requestee id: " + requesteeId)));
-        friendShip.setStatus(RequestStatus.PENDING);
-        return convertToDto( friendShipRepository.save(friendShip));
     }
 
     private FriendShipResponse convertToDto(FriendShip friendShip) {
@@ -153,43 +256,45 @@ public class FriendShipServiceImpl implements FriendShipService {
 
     @Override
     public FriendShipResponse acceptFriendRequest(Integer requestId) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
+        if (friendShipRepository.acceptFriendRequest(userId, requestId, LocalDateTime.now()) == 0) {
+            throw new EntityNotFoundException("Friend request not found for id: " + requestId);
+        }
         FriendShip friendShip = friendShipRepository.findById(requestId)
                 .orElseThrow(() -> new EntityNotFoundException("Friend request not found for id: " + requestId));
-        if (!Objects.equals(friendShip.getUser2().getId(), userId)) {
-            throw new EntityNotFoundException("Friend request not found for user id: " + userId);
-        }
-        friendShipRepository.acceptFriendRequest(userId, requestId);
-        friendShip.setStatus(RequestStatus.ACCEPTED);
+        friendGraph.link(friendShip.getUser1().getId(), userId);
+        friendSuggestionService.friendshipChanged(friendShip.getUser1().getId(), userId);
+        timelineService.link(friendShip.getUser1().getId(), userId);
         return convertToDto(friendShip);
     }
 
     @Override
     public void rejectFriendRequest(Integer requestId) {
-        Integer userId = getCurrentUserId();
-        FriendShip friendShip = friendShipRepository.findById(requestId)
-                .orElseThrow(() -> new EntityNotFoundException("Friend request not found for id: " + requestId));
-        if (!Objects.equals(friendShip.getUser2().getId(), userId)) {
-            throw new EntityNotFoundException("Friend request not found for user id: " + userId);
+        Integer userId = UserContext.getCurrentUserId();
+        if (friendShipRepository.rejectFriendRequest(userId, requestId) == 0) {
+            throw new EntityNotFoundException("Friend request not found for id: " + requestId);
         }
-        friendShipRepository.deleteById(requestId);
+        // The requester's suggestions only lost an exclusion; their next recompute brings the user back
+        friendSuggestionService.requestChanged(userId);
     }
 
     @Override
     public void unfriend(Integer friendId) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         if (Objects.equals(userId, friendId)) {
             throw new RuntimeException("User cannot unfriend themselves");
         }
 
-        FriendShip friendShip = friendShipRepository.findByUser1IdAndUser2Id(userId, friendId)
-                .orElseGet(() -> friendShipRepository.findByUser1IdAndUser2Id(friendId, userId)
-                        .orElseThrow(() -> new EntityNotFoundException("Friendship not found for user id: " + userId + " and friend id: " + friendId)));
-
-        if (friendShip.getStatus() != RequestStatus.ACCEPTED) {
+        int lowId = Math.min(userId, friendId);
+        int highId = Math.max(userId, friendId);
+        if (friendShipRepository.deleteAcceptedPair(lowId, highId) == 0) {
+            // Nothing deleted: only now find out why
+            friendShipRepository.findByUserLowIdAndUserHighId(lowId, highId)
+                    .orElseThrow(() -> new EntityNotFoundException("Friendship not found for user id: " + userId + " and friend id: " + friendId));
             throw new RuntimeException("Friend request not accepted");
         }
-
-        friendShipRepository.delete(friendShip);
+        friendGraph.unlink(userId, friendId);
+        friendSuggestionService.friendshipChanged(userId, friendId);
+        timelineService.unlink(userId, friendId);
     }
 }
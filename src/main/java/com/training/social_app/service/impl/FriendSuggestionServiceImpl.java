@@ -0,0 +1,240 @@
+package com.training.social_app.service.impl;
+
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.dto.response.UserResponse;
+import com.training.social_app.repository.FriendShipRepository;
+import com.training.social_app.repository.UserProfileRepository;
+import com.training.social_app.service.FriendSuggestionService;
+import com.training.social_app.utils.UserContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// "People you may know": friends-of-friends ranked by mutual friends, then shared location and occupation.
+// Top candidates are precomputed per user in the background and kept as packed longs
+// (score in the high 32 bits, candidate id in the low 32 bits), highest score first.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FriendSuggestionServiceImpl implements FriendSuggestionService {
+    private static final int MUTUAL_WEIGHT = 10;
+    private static final int LOCATION_WEIGHT = 5;
+    private static final int OCCUPATION_WEIGHT = 3;
+    private static final long[] NONE = new long[0];
+
+    private final FriendGraph friendGraph;
+
+    private final FriendShipRepository friendShipRepository;
+
+    private final UserProfileRepository userProfileRepository;
+
+    // userId -> packed top-N candidates
+    private final ConcurrentHashMap<Integer, long[]> suggestions = new ConcurrentHashMap<>();
+
+    // userId -> (location code << 32 | occupation code), 0 meaning unknown
+    private final ConcurrentHashMap<Integer, Long> attributes = new ConcurrentHashMap<>();
+
+    // Normalized location/occupation text -> small int code, so comparisons are int equality
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextCode = new AtomicInteger();
+
+    private final Set<Integer> stale = ConcurrentHashMap.newKeySet();
+
+    @Value("${suggestion.top-n:20}")
+    private int topN;
+
+    @Value("${suggestion.recompute-batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Object[] row : userProfileRepository.findAllLocationsAndOccupations()) {
+            attributes.put((Integer) row[0], encode((String) row[1], (String) row[2]));
+        }
+        stale.addAll(friendGraph.userIds());
+        log.info("Friend suggestions scheduled for {} users", stale.size());
+    }
+
+    @Override
+    public Map<String, Object> getSuggestions(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        // No more than top-n suggestions are kept per user
+        size = Math.min(size, topN);
+        Integer userId = UserContext.getCurrentUserId();
+        long[] packed = suggestions.get(userId);
+        if (packed == null) {
+            // Never computed: serve nothing now and let the background job pick the user up
+            stale.add(userId);
+            packed = NONE;
+        }
+        List<Integer> candidateIds = new ArrayList<>();
+        for (long entry : packed) {
+            int candidateId = (int) entry;
+            // Skip people who became friends since the last recompute
+            if (!friendGraph.areFriends(userId, candidateId)) {
+                candidateIds.add(candidateId);
+                if (candidateIds.size() == size) {
+                    break;
+                }
+            }
+        }
+        Map<Integer, Object[]> profiles = new HashMap<>();
+        if (!candidateIds.isEmpty()) {
+            for (Object[] row : userProfileRepository.findNamesAndAvatarsByUserIds(candidateIds)) {
+                profiles.put((Integer) row[0], row);
+            }
+        }
+        int[] mutualCounts = friendGraph.mutualCounts(userId, candidateIds.stream().mapToInt(Integer::intValue).toArray());
+        List<UserResponse> listSuggestions = new ArrayList<>();
+        for (int i = 0; i < candidateIds.size(); i++) {
+            Object[] profile = profiles.get(candidateIds.get(i));
+            if (profile == null) {
+                continue;
+            }
+            UserResponse userResponse = new UserResponse();
+            userResponse.setId(candidateIds.get(i));
+            userResponse.setFullName((String) profile[1]);
+            userResponse.setAvatarUrl((String) profile[2]);
+            userResponse.setMutualFriendCount(mutualCounts[i]);
+            listSuggestions.add(userResponse);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("listSuggestions", listSuggestions);
+        response.put("pageSize", size);
+        return response;
+    }
+
+    @Override
+    public void friendshipChanged(Integer userId, Integer otherUserId) {
+        // The new or removed edge changes the friends-of-friends of both users' friends too
+        stale.add(userId);
+        stale.add(otherUserId);
+        for (int friendId : friendGraph.friendsOf(userId)) {
+            stale.add(friendId);
+        }
+        for (int friendId : friendGraph.friendsOf(otherUserId)) {
+            stale.add(friendId);
+        }
+    }
+
+    @Override
+    public void requestChanged(Integer userId) {
+        stale.add(userId);
+    }
+
+    @Override
+    public void profileChanged(Integer userId, String location, String occupation) {
+        long encoded = encode(location, occupation);
+        Long previous = encoded == 0 ? attributes.remove(userId) : attributes.put(userId, encoded);
+        if (previous == null ? encoded != 0 : previous != encoded) {
+            // Only friends-of-friends can be affected, and they are reached through the user's friends
+            stale.add(userId);
+            for (int friendId : friendGraph.friendsOf(userId)) {
+                for (int friendOfFriendId : friendGraph.friendsOf(friendId)) {
+                    stale.add(friendOfFriendId);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void removeUser(Integer userId) {
+        suggestions.remove(userId);
+        attributes.remove(userId);
+        stale.remove(userId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${suggestion.recompute-interval-ms:5000}")
+    public void recomputeStale() {
+        int done = 0;
+        Iterator<Integer> iterator = stale.iterator();
+        while (iterator.hasNext() && done < batchSize) {
+            Integer userId = iterator.next();
+            iterator.remove();
+            suggestions.put(userId, compute(userId));
+            done++;
+        }
+        if (done > 0) {
+            log.debug("Recomputed friend suggestions of {} users, {} left", done, stale.size());
+        }
+    }
+
+    private long[] compute(int userId) {
+        int[] friends = friendGraph.friendsOf(userId);
+        if (friends.length == 0) {
+            return NONE;
+        }
+        Set<Integer> excluded = new HashSet<>(friendShipRepository.findPendingCounterpartIds(userId));
+        excluded.add(userId);
+
+        // Mutual counts of every friend-of-friend, gathered by walking two hops in the graph
+        Map<Integer, int[]> mutualCounts = new HashMap<>();
+        for (int friendId : friends) {
+            for (int candidateId : friendGraph.friendsOf(friendId)) {
+                if (!excluded.contains(candidateId) && !friendGraph.areFriends(userId, candidateId)) {
+                    mutualCounts.computeIfAbsent(candidateId, id -> new int[1])[0]++;
+                }
+            }
+        }
+        if (mutualCounts.isEmpty()) {
+            return NONE;
+        }
+
+        long own = attributes.getOrDefault(userId, 0L);
+        long[] packed = new long[mutualCounts.size()];
+        int size = 0;
+        for (Map.Entry<Integer, int[]> candidate : mutualCounts.entrySet()) {
+            long theirs = attributes.getOrDefault(candidate.getKey(), 0L);
+            int score = candidate.getValue()[0] * MUTUAL_WEIGHT;
+            if (sameCode(own >>> 32, theirs >>> 32)) {
+                score += LOCATION_WEIGHT;
+            }
+            if (sameCode(own & 0xffffffffL, theirs & 0xffffffffL)) {
+                score += OCCUPATION_WEIGHT;
+            }
+            packed[size++] = ((long) score << 32) | (candidate.getKey() & 0xffffffffL);
+        }
+        Arrays.sort(packed);
+        int keep = Math.min(topN, size);
+        long[] top = new long[keep];
+        for (int i = 0; i < keep; i++) {
+            top[i] = packed[size - 1 - i];
+        }
+        return top;
+    }
+
+    private static boolean sameCode(long own, long theirs) {
+        return own != 0 && own == theirs;
+    }
+
+    private long encode(String location, String occupation) {
+        return ((long) code(location) << 32) | code(occupation);
+    }
+
+    private int code(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        return codes.computeIfAbsent(value.trim().toLowerCase(Locale.ROOT), key -> nextCode.incrementAndGet());
+    }
+}
@@ -0,0 +1,151 @@
+package com.training.social_app.service.impl;
+
+import com.training.social_app.dto.response.JobResponse;
+import com.training.social_app.enums.JobStatus;
+import com.training.social_app.enums.Role;
+import com.training.social_app.exception.ServiceBusyException;
+import com.training.social_app.exception.UserForbiddenException;
+import com.training.social_app.service.JobService;
+import com.training.social_app.utils.UserContext;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Background jobs on a small dedicated pool, so long admin operations do not hold a request thread.
+// The state of every job is kept in memory for job.retention-minutes after it ends, for polling through /api/jobs.
+// The queue is bounded and a full queue is rejected with ServiceBusyException (503), like the password hashing pool.
+@Service
+@Slf4j
+public class JobServiceImpl implements JobService {
+    private static final class Job {
+        private final String id = UUID.randomUUID().toString();
+        private final String type;
+        private final int total;
+        private final AtomicInteger processed = new AtomicInteger();
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String type, int total) {
+            this.type = type;
+            this.total = total;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor executor;
+
+    private final Duration retention;
+
+    public JobServiceImpl(@Value("${job.pool-size:1}") int poolSize,
+                          @Value("${job.queue-capacity:16}") int queueCapacity,
+                          @Value("${job.retention-minutes:60}") long retentionMinutes) {
+        this.retention = Duration.ofMinutes(retentionMinutes);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public JobResponse submit(String type, int total, Task task) {
+        Job job = new Job(type, total);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            log.warn("Job queue is full, rejecting {} job", type);
+            throw new ServiceBusyException("Too many jobs running, please try again later");
+        }
+        return convertToDTO(job);
+    }
+
+    private void run(Job job, Task task) {
+        job.status = JobStatus.RUNNING;
+        try {
+            task.run(job.processed::addAndGet);
+            job.finishedAt = LocalDateTime.now();
+            job.status = JobStatus.SUCCEEDED;
+            log.info("Job {} ({}) processed {} of {} items", job.id, job.type, job.processed.get(), job.total);
+        } catch (Exception e) {
+            //Chunks already done stay done; processed tells how far the job got
+            job.error = e.getMessage();
+            job.finishedAt = LocalDateTime.now();
+            job.status = JobStatus.FAILED;
+            log.error("Job {} ({}) failed after {} of {} items: ", job.id, job.type, job.processed.get(), job.total, e);
+        }
+    }
+
+    @Override
+    public JobResponse findById(String jobId) {
+        checkAdmin();
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new EntityNotFoundException("Job not found for id: " + jobId);
+        }
+        return convertToDTO(job);
+    }
+
+    @Override
+    public List<JobResponse> findAll() {
+        checkAdmin();
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.createdAt).reversed())
+                .map(this::convertToDTO)
+                .toList();
+    }
+
+    // Forget jobs that ended more than the retention ago
+    @Scheduled(fixedRateString = "${job.evict-interval-ms:60000}")
+    public void evictFinished() {
+        LocalDateTime limit = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(limit));
+    }
+
+    private void checkAdmin() {
+        if (!Role.ADMIN.equals(UserContext.getUser().getUser().getRole())) {
+            throw new UserForbiddenException("User is not allowed to see jobs");
+        }
+    }
+
+    private JobResponse convertToDTO(Job job) {
+        JobResponse jobResponse = new JobResponse();
+        jobResponse.setId(job.id);
+        jobResponse.setType(job.type);
+        jobResponse.setStatus(job.status);
+        jobResponse.setTotal(job.total);
+        jobResponse.setProcessed(job.processed.get());
+        jobResponse.setError(job.error);
+        jobResponse.setCreatedAt(job.createdAt);
+        jobResponse.setFinishedAt(job.finishedAt);
+        return jobResponse;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,13 +1,18 @@
 package com.training.social_app.service.impl;
 
+import com.training.social_app.cache.AuthorCard;
+import com.training.social_app.cache.AuthorCardCache;
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.cache.PostLikerCache;
 import com.training.social_app.dto.response.LikeResponse;
-import com.training.social_app.entity.Like;
+import com.training.social_app.dto.response.UserResponse;
 import com.training.social_app.entity.Post;
-import com.training.social_app.entity.User;
 import com.training.social_app.repository.LikeRepository;
 import com.training.social_app.repository.PostRepository;
-import com.training.social_app.repository.UserRepository;
 import com.training.social_app.service.LikeService;
+import com.training.social_app.service.LikeWriteBuffer;
+import com.training.social_app.service.PostCounterService;
+import com.training.social_app.utils.PageCursor;
 import com.training.social_app.utils.UserContext;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -16,61 +21,120 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.text.NumberFormat;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class LikeServiceImpl implements LikeService {
+    //Friend names spelled out in the liked-by summary
+    private static final int SUMMARY_NAMES = 2;
+
     private final LikeRepository likeRepository;
 
     @Autowired
-    private final UserRepository userRepository;
+    private final PostRepository postRepository;
 
     @Autowired
-    private final PostRepository postRepository;
+    private final PostCounterService postCounterService;
+
+    @Autowired
+    private final LikeWriteBuffer likeWriteBuffer;
+
+    @Autowired
+    private final PostLikerCache postLikerCache;
 
-    private Integer getCurrentUserId() {
-        User currentUser = userRepository.findById(UserContext.getUser().getUser().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Current user not found"));
-        return currentUser.getId();
+    @Autowired
+    private final FriendGraph friendGraph;
+
+    @Autowired
+    private final AuthorCardCache authorCardCache;
+
+    @Override
+    public LikeResponse likePost(Integer postId) {
+        Integer userId = UserContext.getCurrentUserId();
+        if (likeWriteBuffer.isEnabled()) {
+            return likeState(userId, postId, submit(userId, postId, null));
+        }
+        if (insertLike(userId, postId)) {
+            return likeState(userId, postId, true);
+        }
+        // Already liked: the toggle removes it (a concurrent unlike may have removed it first)
+        deleteLike(userId, postId);
+        return likeState(userId, postId, false);
     }
 
-    private LikeResponse convertToDTO(Like like) {
-        LikeResponse likeResponse = new LikeResponse();
-        likeResponse.setId(like.getId());
-        likeResponse.setPostId(like.getPost().getId());
-        likeResponse.setUserId(like.getUser().getId());
-        likeResponse.setUserFullName(like.getUser().getUserProfile().getFullName());
-        likeResponse.setUserProfileImage(like.getUser().getUserProfile().getAvatarUrl());
-        likeResponse.setCreatedAt(like.getCreatedAt());
-        return likeResponse;
+    @Override
+    public LikeResponse like(Integer postId) {
+        Integer userId = UserContext.getCurrentUserId();
+        if (likeWriteBuffer.isEnabled()) {
+            return likeState(userId, postId, submit(userId, postId, true));
+        }
+        insertLike(userId, postId);
+        return likeState(userId, postId, true);
     }
 
     @Override
-    public LikeResponse likePost(Integer postId) {
-        Integer userId = getCurrentUserId();
-        // Handle validation
-        Post post = postRepository.findById(postId).orElseThrow(() -> new EntityNotFoundException("Post not found for id: " + postId));
-        User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found for id: " + userId));
-
-        // Check if the like already exists
-        Optional<Like> existingLike = likeRepository.findByUserIdAndPostId(userId, postId);
-        if (existingLike.isPresent()) {
-            likeRepository.delete(existingLike.get());
-            return convertToDTO(existingLike.get());
+    public LikeResponse unlike(Integer postId) {
+        Integer userId = UserContext.getCurrentUserId();
+        if (likeWriteBuffer.isEnabled()) {
+            return likeState(userId, postId, submit(userId, postId, false));
+        }
+        deleteLike(userId, postId);
+        return likeState(userId, postId, false);
+    }
+
+    // The buffer writes later, so a missing post is reported now instead of being dropped by the flush
+    private boolean submit(Integer userId, Integer postId, Boolean liked) {
+        requirePost(postId);
+        return likeWriteBuffer.submit(userId, postId, liked);
+    }
+
+    // One INSERT IGNORE guarded by the unique key; the post is only looked up when nothing was inserted.
+    // IGNORE also turns a foreign key violation on a missing post into 0 affected rows
+    private boolean insertLike(Integer userId, Integer postId) {
+        if (likeRepository.insertLike(userId, postId, LocalDateTime.now()) == 1) {
+            postCounterService.addLikes(postId, 1);
+            postLikerCache.added(postId, userId);
+            return true;
         }
+        requirePost(postId);
+        return false;
+    }
 
-        // Create a new like
-        Like like = new Like();
-        like.setPost(post);
-        like.setUser(user);
-        return convertToDTO(likeRepository.save(like)) ;
+    // One conditional DELETE; the post is only looked up when nothing was deleted
+    private boolean deleteLike(Integer userId, Integer postId) {
+        if (likeRepository.deleteLike(userId, postId) == 1) {
+            postCounterService.addLikes(postId, -1);
+            postLikerCache.removed(postId, userId);
+            return true;
+        }
+        requirePost(postId);
+        return false;
+    }
+
+    private void requirePost(Integer postId) {
+        if (!postRepository.existsById(postId)) {
+            throw new EntityNotFoundException("Post not found for id: " + postId);
+        }
+    }
+
+    private LikeResponse likeState(Integer userId, Integer postId, boolean liked) {
+        LikeResponse likeResponse = new LikeResponse();
+        likeResponse.setPostId(postId);
+        likeResponse.setUserId(userId);
+        likeResponse.setLiked(liked);
+        return likeResponse;
     }
 
     @Override
@@ -80,16 +144,20 @@ public class LikeServiceImpl implements LikeService {
             throw new EntityNotFoundException("Post not found for id: " + postId);
         }
         try {
+            boolean firstPage = page <= 1;
             if (page > 0) {
                 page = page - 1;
             }
             Pageable pageable = PageRequest.of(page, size);
-            Page<Like> pageLikes = likeRepository.findByPostId(postId, pageable);
+            Page<LikeResponse> pageLikes = likeRepository.findResponsesByPostId(postId, pageable);
             Map<String, Object> mapLike = new HashMap<>();
-            mapLike.put("listLike", pageLikes.getContent().stream().map(this::convertToDTO).collect(Collectors.toList()));
+            mapLike.put("listLike", pageLikes.getContent());
             mapLike.put("pageSize", pageLikes.getSize());
             mapLike.put("pageNo", pageLikes.getNumber()+1);
             mapLike.put("totalPage", pageLikes.getTotalPages());
+            if (firstPage) {
+                putLikedBy(mapLike, post.get(), size);
+            }
             return mapLike;
         } catch (Exception e) {
             e.printStackTrace();
@@ -97,9 +165,71 @@ public class LikeServiceImpl implements LikeService {
         }
     }
 
+    @Override
+    public Map<String, Object> getLikesForPostAfter(Integer postId, String after, Integer size) {
+        Post post = postRepository.findById(postId)
+                .orElseThrow(() -> new EntityNotFoundException("Post not found for id: " + postId));
+        PageCursor cursor = PageCursor.decode(after);
+        Slice<LikeResponse> sliceLikes = likeRepository.findResponsesByPostIdAfter(postId, cursor.time(), cursor.id(), PageRequest.of(0, size));
+        List<LikeResponse> likes = sliceLikes.getContent();
+        Map<String, Object> mapLike = new HashMap<>();
+        mapLike.put("listLike", likes);
+        mapLike.put("pageSize", sliceLikes.getSize());
+        mapLike.put("nextCursor", sliceLikes.hasNext()
+                ? PageCursor.of(likes.getLast().getCreatedAt(), likes.getLast().getId()).encode()
+                : null);
+        if (PageCursor.START.equals(cursor)) {
+            putLikedBy(mapLike, post, size);
+        }
+        return mapLike;
+    }
+
+    // First-page extras: the viewer's friends who liked the post, the total and a "Liked by A, B and N others" line.
+    // The friends come from the viewer's friends looked up in the post's cached likers, and the total from the
+    // like counter with its unflushed delta
+    private void putLikedBy(Map<String, Object> mapLike, Post post, int limit) {
+        int[] friendLikers = postLikerCache.likersAmong(post.getId(), friendGraph.friendsOf(UserContext.getCurrentUserId()));
+        List<Integer> shownIds = new ArrayList<>();
+        for (int i = 0; i < friendLikers.length && i < limit; i++) {
+            shownIds.add(friendLikers[i]);
+        }
+        List<UserResponse> likedByFriends = new ArrayList<>();
+        for (AuthorCard card : authorCardCache.getAll(shownIds).values()) {
+            UserResponse friend = new UserResponse();
+            friend.setId(card.id());
+            friend.setFullName(card.fullName());
+            friend.setAvatarUrl(card.avatarUrl());
+            likedByFriends.add(friend);
+        }
+        long[] pending = postCounterService.pending(List.of(post.getId())).getOrDefault(post.getId(), new long[2]);
+        int totalLikes = (int) Math.max(friendLikers.length, post.getLikeCount() + pending[0]);
+        mapLike.put("likedByFriends", likedByFriends);
+        mapLike.put("totalLikes", totalLikes);
+        mapLike.put("likedBySummary", likedBySummary(likedByFriends, totalLikes));
+    }
+
+    private static String likedBySummary(List<UserResponse> friends, int total) {
+        if (total == 0) {
+            return null;
+        }
+        NumberFormat numberFormat = NumberFormat.getIntegerInstance(Locale.US);
+        List<String> names = friends.stream()
+                .map(UserResponse::getFullName)
+                .filter(name -> name != null && !name.isBlank())
+                .limit(SUMMARY_NAMES)
+                .toList();
+        if (names.isEmpty()) {
+            return "Liked by " + numberFormat.format(total) + (total == 1 ? " person" : " people");
+        }
+        int others = total - names.size();
+        if (others == 0) {
+            return "Liked by " + (names.size() == 1 ? names.getFirst() : names.get(0) + " and " + names.get(1));
+        }
+        return "Liked by " + String.join(", ", names) + " and " + numberFormat.format(others) + (others == 1 ? " other" : " others");
+    }
+
     @Override
     public LikeResponse getLikeById(Integer likeId) {
-        Like like = likeRepository.findById(likeId).orElseThrow(() -> new EntityNotFoundException("Like not found for id: " + likeId));
-        return convertToDTO(like);
+        return likeRepository.findResponseById(likeId).orElseThrow(() -> new EntityNotFoundException("Like not found for id: " + likeId));
     }
 }
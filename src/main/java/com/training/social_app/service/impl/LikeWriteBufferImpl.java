@@ -0,0 +1,308 @@
+package com.training.social_app.service.impl;
+
+import com.training.social_app.cache.PostLikerCache;
+import com.training.social_app.service.LikeWriteBuffer;
+import com.training.social_app.service.PostCounterService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Write-behind mode for likes (like.write-behind.enabled). A like or unlike only records the wanted state
+// of the (user, post) pair in memory; repeated requests on the same pair collapse into the last one,
+// and the pairs are written as JDBC batches every flush interval or as soon as a shard holds batch-size pairs.
+// One flush runs at a time and the others wait for it rather than skip, so the flush on shutdown never returns
+// while another one still holds pairs in flight.
+// The like counter is adjusted when the state is accepted, so counts and the user's own state show it at once.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LikeWriteBufferImpl implements LikeWriteBuffer {
+    private static final int SHARDS = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PostCounterService postCounterService;
+
+    private final PostLikerCache postLikerCache;
+
+    private final TaskScheduler taskScheduler;
+
+    private final Shard[] shards = newShards();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Set while a flush handed to the scheduler has not started yet
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Failed flushes in a row, and when the next one may run; guarded by the flush lock
+    private int failures;
+    private long retryAt = System.nanoTime();
+
+    @Value("${like.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${like.write-behind.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${like.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${like.write-behind.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    private static Shard[] newShards() {
+        Shard[] shards = new Shard[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+        return shards;
+    }
+
+    private static final class Shard {
+        // (userId << 32 | postId) -> wanted like state
+        private Map<Long, Boolean> pending = new HashMap<>();
+        // Pairs handed to the flusher and not committed yet
+        private Map<Long, Boolean> inflight = Map.of();
+        // Bumped after every flush, so a state read before it is known to be stale
+        private long version;
+
+        Boolean stateOf(long key) {
+            Boolean state = pending.get(key);
+            return state != null ? state : inflight.get(key);
+        }
+    }
+
+    private static long key(Integer userId, Integer postId) {
+        return ((long) userId << 32) | (postId & 0xffffffffL);
+    }
+
+    private Shard shardOf(long key) {
+        return shards[(Long.hashCode(key * 0x9E3779B97F4A7C15L) >>> 16) & (SHARDS - 1)];
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // The current state of a pair comes from the buffer, or else from the post's cached likers, so accepting
+    // a like reads nothing from the database in the common case. The caller checks that the post exists; one deleted
+    // since is left to the flush: INSERT IGNORE drops a like on a missing post and DELETE of a missing row changes nothing
+    @Override
+    public boolean submit(Integer userId, Integer postId, Boolean liked) {
+        long key = key(userId, postId);
+        Shard shard = shardOf(key);
+        boolean target;
+        boolean changed;
+        while (true) {
+            long version;
+            synchronized (shard) {
+                Boolean current = shard.stateOf(key);
+                if (current != null) {
+                    target = liked != null ? liked : !current;
+                    changed = accept(shard, key, userId, postId, current, target);
+                    break;
+                }
+                version = shard.version;
+            }
+            // Nothing pending for the pair; may load the post's likers, so not under the shard lock
+            boolean current = postLikerCache.contains(postId, userId);
+            synchronized (shard) {
+                if (shard.version != version || shard.stateOf(key) != null) {
+                    // A flush or a concurrent request changed the pair meanwhile; read again
+                    continue;
+                }
+                target = liked != null ? liked : !current;
+                changed = accept(shard, key, userId, postId, current, target);
+                break;
+            }
+        }
+        if (changed) {
+            postCounterService.addLikes(postId, target ? 1 : -1);
+            // A full shard is written by the scheduler right away instead of on the caller's thread
+            if (sizeOf(shard) >= batchSize && flushScheduled.compareAndSet(false, true)) {
+                taskScheduler.schedule(this::flush, Instant.now());
+            }
+        }
+        return target;
+    }
+
+    // Records the new state of a pair; the caller holds the shard's monitor, so the liker cache changes
+    // in the same step as the buffer and a concurrent submit cannot read one without the other
+    private boolean accept(Shard shard, long key, Integer userId, Integer postId, boolean current, boolean target) {
+        if (target == current) {
+            return false;
+        }
+        shard.pending.put(key, target);
+        if (target) {
+            postLikerCache.added(postId, userId);
+        } else {
+            postLikerCache.removed(postId, userId);
+        }
+        return true;
+    }
+
+    private static int sizeOf(Shard shard) {
+        synchronized (shard) {
+            return shard.pending.size();
+        }
+    }
+
+    @Override
+    public Map<Integer, Boolean> pendingStates(Integer userId, Collection<Integer> postIds) {
+        Map<Integer, Boolean> states = new HashMap<>();
+        for (Integer postId : postIds) {
+            long key = key(userId, postId);
+            Shard shard = shardOf(key);
+            synchronized (shard) {
+                Boolean state = shard.stateOf(key);
+                if (state != null) {
+                    states.put(postId, state);
+                }
+            }
+        }
+        return states;
+    }
+
+    @Override
+    public Set<Integer> pendingPostIds(Collection<Integer> postIds) {
+        Set<Integer> wanted = new HashSet<>(postIds);
+        Set<Integer> found = new HashSet<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (Map<Long, Boolean> pairs : List.of(shard.pending, shard.inflight)) {
+                    for (Long key : pairs.keySet()) {
+                        int postId = (int) (long) key;
+                        if (wanted.contains(postId)) {
+                            found.add(postId);
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${like.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        flush(false);
+    }
+
+    // After a failed write the next attempts wait twice as long each time, up to max-backoff-ms,
+    // unless forced on shutdown
+    private void flush(boolean force) {
+        flushScheduled.set(false);
+        flushLock.lock();
+        try {
+            if (!force && System.nanoTime() - retryAt < 0) {
+                return;
+            }
+            try {
+                drainAndWrite();
+                failures = 0;
+            } catch (RuntimeException e) {
+                failures++;
+                long backoffMs = Math.min(maxBackoffMs, flushIntervalMs << Math.min(failures, 16));
+                retryAt = System.nanoTime() + backoffMs * 1_000_000L;
+                log.error("Failed to flush buffered likes ({} in a row), retrying in {} ms", failures, backoffMs, e);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Drains the shards into one batch and writes it; the caller holds the flush lock.
+    // On failure the pairs are kept for the next flush and the error is rethrown
+    private void drainAndWrite() {
+        List<Shard> drained = new ArrayList<>();
+        Map<Long, Boolean> batch = new HashMap<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                if (shard.pending.isEmpty()) {
+                    continue;
+                }
+                batch.putAll(shard.pending);
+                shard.inflight = shard.pending;
+                shard.pending = new HashMap<>();
+            }
+            drained.add(shard);
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        boolean written = false;
+        try {
+            write(batch);
+            written = true;
+        } finally {
+            for (Shard shard : drained) {
+                synchronized (shard) {
+                    if (!written) {
+                        // Keep the pairs for the next flush unless a newer request replaced them
+                        shard.inflight.forEach(shard.pending::putIfAbsent);
+                    }
+                    shard.inflight = Map.of();
+                    shard.version++;
+                }
+            }
+        }
+    }
+
+    private void write(Map<Long, Boolean> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> likes = new ArrayList<>();
+        List<Object[]> unlikes = new ArrayList<>();
+        batch.forEach((key, liked) -> {
+            int userId = (int) (key >>> 32);
+            int postId = (int) (long) key;
+            if (liked) {
+                likes.add(new Object[]{userId, postId, now});
+            } else {
+                unlikes.add(new Object[]{userId, postId});
+            }
+        });
+        if (!unlikes.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM likes WHERE user_id = ? AND post_id = ?", unlikes);
+        }
+        if (!likes.isEmpty()) {
+            String insert = "INSERT IGNORE INTO likes (user_id, post_id, created_at) VALUES (?, ?, ?)";
+            try {
+                jdbcTemplate.batchUpdate(insert, likes);
+            } catch (DataIntegrityViolationException e) {
+                // A post was deleted while its likes were buffered: write row by row and drop those
+                for (Object[] like : likes) {
+                    try {
+                        jdbcTemplate.update(insert, like);
+                    } catch (DataIntegrityViolationException rowError) {
+                        log.warn("Dropped buffered like of user {} on missing post {}", like[0], like[1]);
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush(true);
+    }
+}
@@ -0,0 +1,234 @@
+package com.training.social_app.service.impl;
+
+import com.training.social_app.service.LikeWriteBuffer;
+import com.training.social_app.service.PostCounterService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Like and comment counters are buffered in memory and written as batched deltas.
+// The buffer is split into stripes picked by thread, each stripe guarded by its own lock,
+// so concurrent likes on the same hot post do not serialize on one monitor.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PostCounterServiceImpl implements PostCounterService {
+    private static final int STRIPES = 16;
+    private static final int LIKES = 0;
+    private static final int COMMENTS = 1;
+
+    // Likes and comments of soft-deleted accounts are not counted: they left the counters at deletion
+    private static final String COUNTED_LIKES =
+            "(SELECT COUNT(*) FROM likes l JOIN users u ON u.id = l.user_id WHERE l.post_id = p.id AND u.deleted_at IS NULL)";
+    private static final String COUNTED_COMMENTS =
+            "(SELECT COUNT(*) FROM comments c JOIN users u ON u.id = c.user_id WHERE c.post_id = p.id AND u.deleted_at IS NULL)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Stripe[] stripes = newStripes();
+
+    // The buffer adjusts the counters through this service, hence the lazy reference back
+    @Lazy
+    @Autowired
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Value("${counter.reconcile-chunk-size:1000}")
+    private int reconcileChunkSize;
+
+    private static Stripe[] newStripes() {
+        Stripe[] stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        return stripes;
+    }
+
+    private static final class Stripe {
+        private Map<Integer, long[]> deltas = new HashMap<>();
+        // Deltas handed to the flusher and not committed yet, still reported by pending()
+        private Map<Integer, long[]> inflight = Map.of();
+
+        synchronized void add(Integer postId, int index, long delta) {
+            deltas.computeIfAbsent(postId, id -> new long[2])[index] += delta;
+        }
+
+        // Hand the buffered deltas over to the flusher and start a fresh map
+        synchronized Map<Integer, long[]> drain() {
+            inflight = deltas;
+            deltas = new HashMap<>();
+            return inflight;
+        }
+
+        // The drained deltas were written, or are put back to be retried on the next flush
+        synchronized void settle(boolean written) {
+            if (!written) {
+                inflight.forEach((postId, delta) -> merge(deltas, postId, delta));
+            }
+            inflight = Map.of();
+        }
+
+        synchronized void collect(Collection<Integer> postIds, Map<Integer, long[]> into) {
+            if (deltas.isEmpty() && inflight.isEmpty()) {
+                return;
+            }
+            for (Integer postId : postIds) {
+                long[] delta = deltas.get(postId);
+                if (delta != null) {
+                    merge(into, postId, delta);
+                }
+                delta = inflight.get(postId);
+                if (delta != null) {
+                    merge(into, postId, delta);
+                }
+            }
+        }
+
+        synchronized void discard(Collection<Integer> postIds) {
+            if (!deltas.isEmpty()) {
+                postIds.forEach(deltas::remove);
+            }
+        }
+    }
+
+    private static void merge(Map<Integer, long[]> into, Integer postId, long[] delta) {
+        long[] total = into.computeIfAbsent(postId, id -> new long[2]);
+        total[LIKES] += delta[LIKES];
+        total[COMMENTS] += delta[COMMENTS];
+    }
+
+    private Stripe stripe() {
+        return stripes[(int) (Thread.currentThread().threadId() & (STRIPES - 1))];
+    }
+
+    @Override
+    public void addLikes(Integer postId, int delta) {
+        stripe().add(postId, LIKES, delta);
+    }
+
+    @Override
+    public void addComments(Integer postId, int delta) {
+        stripe().add(postId, COMMENTS, delta);
+    }
+
+    @Override
+    public Map<Integer, long[]> pending(Collection<Integer> postIds) {
+        Map<Integer, long[]> pending = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            stripe.collect(postIds, pending);
+        }
+        return pending;
+    }
+
+    @Override
+    public void discard(Collection<Integer> postIds) {
+        for (Stripe stripe : stripes) {
+            stripe.discard(postIds);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${counter.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<Integer, long[]> deltas = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            stripe.drain().forEach((postId, delta) -> merge(deltas, postId, delta));
+        }
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.forEach((postId, delta) -> {
+            if (delta[LIKES] != 0 || delta[COMMENTS] != 0) {
+                batch.add(new Object[]{delta[LIKES], delta[COMMENTS], postId});
+            }
+        });
+        boolean written = false;
+        try {
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(
+                        "UPDATE posts SET like_count = like_count + ?, comment_count = comment_count + ? WHERE id = ?",
+                        batch);
+            }
+            written = true;
+        } catch (RuntimeException e) {
+            log.error("Failed to flush counters of {} posts", batch.size(), e);
+        } finally {
+            // Until here the drained deltas stay visible to pending(); on failure they are retried on the next flush
+            for (Stripe stripe : stripes) {
+                stripe.settle(written);
+            }
+        }
+    }
+
+    // Runs once shortly after startup, which also backfills the counters of posts created before the columns existed,
+    // then every interval
+    @Override
+    @Scheduled(fixedDelayString = "${counter.reconcile-interval-ms:600000}",
+            initialDelayString = "${counter.reconcile-initial-delay-ms:5000}")
+    public void reconcile() {
+        flush();
+        Integer maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM posts", Integer.class);
+        if (maxId == null) {
+            return;
+        }
+        int corrected = 0;
+        // Walk the posts in id ranges so no statement holds locks on the whole table
+        for (int low = 1; low <= maxId; low += reconcileChunkSize) {
+            int high = low + reconcileChunkSize - 1;
+            List<Object[]> counted = jdbcTemplate.query(
+                    "SELECT p.id, p.like_count, p.comment_count, " + COUNTED_LIKES + ", " + COUNTED_COMMENTS
+                            + " FROM posts p WHERE p.id BETWEEN ? AND ?",
+                    (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)},
+                    low, high);
+            corrected += correct(counted);
+        }
+        if (corrected > 0) {
+            log.warn("Reconciled drifted counters of {} posts", corrected);
+        }
+    }
+
+    // Holds the flush lock for one chunk only, so no flush is half applied while the chunk is corrected.
+    // Posts with buffered deltas or buffered like rows are left for the next round: their counter is ahead of
+    // the rows on purpose. A correction only applies if the stored counters and the rows are still the ones counted,
+    // so neither a counter flush nor a like write that ran after the count is overwritten
+    private synchronized int correct(List<Object[]> counted) {
+        List<Integer> ids = counted.stream().map(row -> (Integer) row[0]).toList();
+        Map<Integer, long[]> pending = pending(ids);
+        Set<Integer> bufferedLikes = likeWriteBuffer.pendingPostIds(ids);
+        List<Object[]> corrections = new ArrayList<>();
+        for (Object[] row : counted) {
+            if (!pending.containsKey(row[0]) && !bufferedLikes.contains(row[0])
+                    && (!row[1].equals(row[3]) || !row[2].equals(row[4]))) {
+                corrections.add(new Object[]{row[3], row[4], row[0], row[1], row[2], row[3], row[4]});
+            }
+        }
+        if (corrections.isEmpty()) {
+            return 0;
+        }
+        int corrected = 0;
+        for (int updated : jdbcTemplate.batchUpdate(
+                "UPDATE posts p SET like_count = ?, comment_count = ? WHERE id = ? AND like_count = ? AND comment_count = ?"
+                        + " AND " + COUNTED_LIKES + " = ? AND " + COUNTED_COMMENTS + " = ?",
+                corrections)) {
+            if (updated > 0) {
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -1,13 +1,23 @@
 package com.training.social_app.service.impl;
 
+import com.training.social_app.cache.AuthorCard;
+import com.training.social_app.cache.AuthorCardCache;
 import com.training.social_app.dto.request.DeleteRequest;
+import com.training.social_app.dto.response.JobResponse;
 import com.training.social_app.dto.response.PostResponse;
 import com.training.social_app.entity.Post;
 import com.training.social_app.entity.User;
 import com.training.social_app.enums.Role;
 import com.training.social_app.exception.UserForbiddenException;
 import com.training.social_app.repository.*;
+import com.training.social_app.service.BulkDeleteService;
+import com.training.social_app.service.JobService;
+import com.training.social_app.service.LikeWriteBuffer;
+import com.training.social_app.service.PostCounterService;
 import com.training.social_app.service.PostService;
+import com.training.social_app.service.TimelineService;
+import com.training.social_app.utils.Chunks;
+import com.training.social_app.utils.PageCursor;
 import com.training.social_app.utils.UserContext;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -17,7 +27,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -27,9 +37,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -42,49 +56,89 @@ public class PostServiceImpl implements PostService {
     private final UserRepository userRepository;
 
     @Autowired
-    private final FriendShipRepository friendShipRepository;
+    private final TimelineService timelineService;
+
+    @Autowired
+    private final PostCounterService postCounterService;
 
     @Autowired
     private final LikeRepository likeRepository;
 
     @Autowired
-    private final CommentRepository commentRepository;
+    private final LikeWriteBuffer likeWriteBuffer;
+
+    @Autowired
+    private final AuthorCardCache authorCardCache;
+
+    @Autowired
+    private final BulkDeleteService bulkDeleteService;
+
+    @Autowired
+    private final JobService jobService;
 
     @Value("${file.upload-dir}")
     private String uploadDir;
 
-    private Integer getCurrentUserId() {
-        User currentUser = userRepository.findById(UserContext.getUser().getUser().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Current user not found"));
-        return currentUser.getId();
-    }
+    @Value("${bulk-delete.chunk-size:500}")
+    private int deleteChunkSize;
 
+    // A post just written: everything but the author's card is on the entity already
     private PostResponse convertToDTO(Post post) {
-        PostResponse postDTO = new PostResponse();
-        postDTO.setId(post.getId());
-        postDTO.setContent(post.getContent());
-        postDTO.setImageUrl(post.getImageUrl());
-        postDTO.setUserId(post.getUser().getId());
-        postDTO.setUserFullName(post.getUser().getUserProfile().getFullName());
-        postDTO.setUserProfileImage(post.getUser().getUserProfile().getAvatarUrl());
-        postDTO.setEdited(post.getIsEdited());
-        postDTO.setLikeCount(likeRepository.countLikesByPostId(post.getId()));
-        postDTO.setCommentCount(commentRepository.countCommentsByPostId(post.getId()));
-        postDTO.setCreatedAt(post.getCreatedAt());
-        postDTO.setUpdatedAt(post.getUpdatedAt());
-        return postDTO;
+        AuthorCard author = authorCardCache.get(post.getUser().getId());
+        PostResponse postDTO = new PostResponse(post.getId(), post.getContent(), post.getImageUrl(), author.id(),
+                author.fullName(), author.avatarUrl(), post.getIsEdited(), post.getLikeCount(), post.getCommentCount(),
+                post.getCreatedAt(), post.getUpdatedAt());
+        return withLiveState(List.of(postDTO)).getFirst();
+    }
+
+    private PostResponse findDTO(Integer postId) {
+        PostResponse postDTO = postRepository.findResponseById(postId)
+                .orElseThrow(() -> new EntityNotFoundException("Post not found for id: " + postId));
+        return withLiveState(List.of(postDTO)).getFirst();
+    }
+
+    // The rows of a page come from one projection query with the author's profile joined in; what is not in
+    // the tables yet is added here for the whole page at once: counter deltas not flushed and the viewer's likes
+    private List<PostResponse> withLiveState(List<PostResponse> postDTOs) {
+        if (postDTOs.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Integer> postIds = postDTOs.stream().map(PostResponse::getId).collect(Collectors.toSet());
+        Map<Integer, long[]> pendingCounts = postCounterService.pending(postIds);
+        Set<Integer> likedByMe = likedByCurrentUser(postIds);
+        for (PostResponse postDTO : postDTOs) {
+            long[] pending = pendingCounts.getOrDefault(postDTO.getId(), new long[2]);
+            postDTO.setLikeCount((int) Math.max(0, postDTO.getLikeCount() + pending[0]));
+            postDTO.setCommentCount((int) Math.max(0, postDTO.getCommentCount() + pending[1]));
+            postDTO.setLikedByMe(likedByMe.contains(postDTO.getId()));
+        }
+        return postDTOs;
+    }
+
+    // Posts of the page liked by the viewer: the stored likes, overridden by likes and unlikes not written yet
+    private Set<Integer> likedByCurrentUser(Set<Integer> postIds) {
+        Integer userId = UserContext.getCurrentUserId();
+        Set<Integer> liked = new HashSet<>(likeRepository.findPostIdsLikedByUser(userId, postIds));
+        likeWriteBuffer.pendingStates(userId, postIds).forEach((postId, pendingLike) -> {
+            if (pendingLike) {
+                liked.add(postId);
+            } else {
+                liked.remove(postId);
+            }
+        });
+        return liked;
     }
 
     @Override
     public Map<String, Object> getPostsByUserId(Integer page, Integer size) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         if (page > 0) {
             page = page - 1;
         }
         Pageable pageable = PageRequest.of(page, size);
-        Page<Post> postPage = postRepository.findAllByUserId(userId, pageable);
+        Page<PostResponse> postPage = postRepository.findResponsesByUserId(userId, pageable);
         Map<String, Object> response = new HashMap<>();
-        response.put("listPost", postPage.getContent().stream().map(this::convertToDTO).collect(Collectors.toList()));
+        response.put("listPost", withLiveState(postPage.getContent()));
         response.put("pageSize", postPage.getSize());
         response.put("pageNo", postPage.getNumber() + 1);
         response.put("totalPage", postPage.getTotalPages());
@@ -93,26 +147,39 @@ public class PostServiceImpl implements PostService {
 
     @Override
     public Map<String, Object> getPostsOfFriendsSortedByDate(Integer page, Integer size) {
-        Integer userId = getCurrentUserId();
-        List<User> friends = friendShipRepository.getFriendsByUserId(userId);
-        List<Integer> friendIds = friends.stream().map(User::getId).collect(Collectors.toList());
-
+        Integer userId = UserContext.getCurrentUserId();
         if (page > 0) {
             page = page - 1;
         }
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "updatedAt"));
-        Page<Post> pagePosts = postRepository.findByUserIdIn(friendIds, pageable);
+        // The timeline is already sorted by updatedAt, newest first
+        Pageable pageable = PageRequest.of(page, size);
+        Page<PostResponse> pagePosts = timelineService.getTimeline(userId, pageable);
         Map<String, Object> response = new HashMap<>();
-        response.put("listPost", pagePosts.getContent().stream().map(this::convertToDTO).collect(Collectors.toList()));
+        response.put("listPost", withLiveState(pagePosts.getContent()));
         response.put("pageSize", pagePosts.getSize());
         response.put("pageNo", pagePosts.getNumber() + 1);
         response.put("totalPage", pagePosts.getTotalPages());
         return response;
     }
 
+    @Override
+    public Map<String, Object> getPostsOfFriendsAfter(String after, Integer size) {
+        Integer userId = UserContext.getCurrentUserId();
+        PageCursor cursor = PageCursor.decode(after);
+        Slice<PostResponse> slicePosts = timelineService.getTimelineAfter(userId, cursor, PageRequest.of(0, size));
+        List<PostResponse> posts = slicePosts.getContent();
+        Map<String, Object> response = new HashMap<>();
+        response.put("listPost", withLiveState(posts));
+        response.put("pageSize", slicePosts.getSize());
+        response.put("nextCursor", slicePosts.hasNext()
+                ? PageCursor.of(posts.getLast().getUpdatedAt(), posts.getLast().getId()).encode()
+                : null);
+        return response;
+    }
+
     @Override
     public PostResponse createPost(String content, MultipartFile file) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found for id: " + userId));
         Post newPost = new Post();
@@ -140,12 +207,14 @@ public class PostServiceImpl implements PostService {
                 throw new RuntimeException("Failed to store file", e);
             }
         }
-        return convertToDTO(postRepository.save(newPost));
+        Post savedPost = postRepository.save(newPost);
+        timelineService.publish(savedPost);
+        return convertToDTO(savedPost);
     }
 
     @Override
     public PostResponse updatePost(String content, MultipartFile file ,Integer postId) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new EntityNotFoundException("Post not found for id: " + postId));
         if (!post.getUser().getId().equals(userId)) {
@@ -174,54 +243,54 @@ public class PostServiceImpl implements PostService {
         post.setIsEdited(true);
         post.setUpdatedAt(LocalDateTime.now());
 
-        return convertToDTO(postRepository.save(post));
+        Post savedPost = postRepository.save(post);
+        timelineService.touch(savedPost);
+        return convertToDTO(savedPost);
     }
 
 
     @Override
     public void deletePost(Integer postId) {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new EntityNotFoundException("Post not found for id: " + postId));
         if (!post.getUser().getId().equals(userId)) {
             throw new UserForbiddenException("You are not allowed to delete this post");
         }
-        postRepository.delete(post);
+        bulkDeleteService.deletePosts(List.of(postId));
     }
 
     @Override
     public Map<String, Object> findAll(Integer page, Integer size) {
-        User user = userRepository.findById(UserContext.getUser().getUser().getId())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        if (!user.getRole().equals(Role.ADMIN)) {
+        // The role comes from the verified token's principal, no lookup needed
+        if (!Role.ADMIN.equals(UserContext.getUser().getUser().getRole())) {
             throw new UserForbiddenException("You are not allowed to see all posts");
         }
         if (page > 0) {
             page = page - 1;
         }
         Pageable pageable = PageRequest.of(page, size);
-        Page<Post> pagePosts = postRepository.findAll(pageable);
+        Page<PostResponse> pagePosts = postRepository.findAllResponses(pageable);
         Map<String, Object> response = new HashMap<>();
-        response.put("listPost", pagePosts.getContent().stream().map(this::convertToDTO).collect(Collectors.toList()));
+        response.put("listPost", withLiveState(pagePosts.getContent()));
         response.put("pageSize", pagePosts.getSize());
         response.put("pageNo", pagePosts.getNumber() + 1);
         response.put("totalPage", pagePosts.getTotalPages());
         return response;
     }
 
+    // Existence is checked up front in chunks; the deletion itself runs as a background job, one transaction per chunk
     @Override
-    public void deletePosts(DeleteRequest request){
-        User user = userRepository.findById(UserContext.getUser().getUser().getId()).orElseThrow(() -> new EntityNotFoundException("User not found"));
-        if (!user.getRole().equals(Role.ADMIN)) {
+    public JobResponse deletePosts(DeleteRequest request){
+        if (!Role.ADMIN.equals(UserContext.getUser().getUser().getRole())) {
             throw new UserForbiddenException("User is not authorized to delete posts");
         }
 
-        List<Integer> ids = request.getIds();
-        List<Post> postsToDelete = postRepository.findAllById(ids);
-
-        List<Integer> existingIds = postsToDelete.stream()
-                .map(Post::getId)
-                .toList();
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(request.getIds()));
+        Set<Integer> existingIds = new HashSet<>();
+        for (List<Integer> chunk : Chunks.of(ids, deleteChunkSize)) {
+            existingIds.addAll(postRepository.findExistingIds(chunk));
+        }
 
         List<Integer> notFoundIds = ids.stream()
                 .filter(id -> !existingIds.contains(id))
@@ -231,13 +300,16 @@ public class PostServiceImpl implements PostService {
             throw new EntityNotFoundException("Posts not found for ids: " + notFoundIds);
         }
 
-        postRepository.deleteAll(postsToDelete);
+        return jobService.submit("delete-posts", ids.size(), progress -> {
+            for (List<Integer> chunk : Chunks.of(ids, deleteChunkSize)) {
+                bulkDeleteService.deletePosts(chunk);
+                progress.accept(chunk.size());
+            }
+        });
     }
 
     @Override
     public PostResponse findById(Integer postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new EntityNotFoundException("Post not found for id: " + postId));
-        return convertToDTO(post);
+        return findDTO(postId);
     }
 }
@@ -29,15 +29,9 @@ public class ReportServiceImpl implements ReportService {
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
 
-    private Integer getCurrentUserId() {
-        User currentUser = userRepository.findById(UserContext.getUser().getUser().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Current user not found"));
-        return currentUser.getId();
-    }
-
     @Override
     public byte[] generateWeeklyReport() {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         User currentUser = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found for id: " + userId));
         return generateExcelFile(currentUser);
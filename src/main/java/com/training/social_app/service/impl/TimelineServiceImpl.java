@@ -0,0 +1,106 @@
+package com.training.social_app.service.impl;
+
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.dto.response.PostResponse;
+import com.training.social_app.entity.Post;
+import com.training.social_app.repository.TimelineEntryRepository;
+import com.training.social_app.service.TimelineService;
+import com.training.social_app.utils.PageCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TimelineServiceImpl implements TimelineService {
+    private final TimelineEntryRepository timelineEntryRepository;
+
+    private final FriendGraph friendGraph;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Timelines are derived data: build them once from the existing posts and friendships
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (timelineEntryRepository.count() == 0) {
+            int entries = timelineEntryRepository.rebuildAll();
+            log.info("Timeline store rebuilt with {} entries", entries);
+        }
+    }
+
+    @Override
+    public Page<PostResponse> getTimeline(Integer userId, Pageable pageable) {
+        return timelineEntryRepository.findTimelineByOwnerId(userId, pageable);
+    }
+
+    @Override
+    public Slice<PostResponse> getTimelineAfter(Integer userId, PageCursor cursor, Pageable pageable) {
+        return timelineEntryRepository.findTimelineByOwnerIdAfter(userId, cursor.time(), cursor.id(), pageable);
+    }
+
+    @Override
+    public void publish(Post post) {
+        // Readers come from the friend graph, rows go in as one JDBC batch
+        int[] friendIds = friendGraph.friendsOf(post.getUser().getId());
+        if (friendIds.length == 0) {
+            return;
+        }
+        Timestamp updatedAt = Timestamp.valueOf(post.getUpdatedAt());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO timeline_entries (owner_id, post_id, author_id, post_updated_at) VALUES (?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setInt(1, friendIds[i]);
+                        ps.setInt(2, post.getId());
+                        ps.setInt(3, post.getUser().getId());
+                        ps.setTimestamp(4, updatedAt);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return friendIds.length;
+                    }
+                });
+    }
+
+    @Override
+    public void touch(Post post) {
+        timelineEntryRepository.touchPost(post.getId(), post.getUpdatedAt());
+    }
+
+    @Override
+    public void retract(Collection<Integer> postIds) {
+        if (!postIds.isEmpty()) {
+            timelineEntryRepository.deleteAllByPostIdIn(postIds);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void link(Integer userId, Integer friendId) {
+        timelineEntryRepository.copyPostsOfAuthor(userId, friendId);
+        timelineEntryRepository.copyPostsOfAuthor(friendId, userId);
+    }
+
+    @Override
+    @Transactional
+    public void unlink(Integer userId, Integer friendId) {
+        timelineEntryRepository.deleteByOwnerIdAndAuthorId(userId, friendId);
+        timelineEntryRepository.deleteByOwnerIdAndAuthorId(friendId, userId);
+    }
+}
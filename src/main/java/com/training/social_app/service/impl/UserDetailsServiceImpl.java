@@ -1,5 +1,7 @@
 package com.training.social_app.service.impl;
 
+import com.training.social_app.cache.CachedPrincipal;
+import com.training.social_app.cache.PrincipalCache;
 import com.training.social_app.dto.response.UserDto;
 import com.training.social_app.entity.User;
 import com.training.social_app.repository.UserRepository;
@@ -14,10 +16,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
-        return new UserDto(user);
+        CachedPrincipal principal = principalCache.get(username);
+        if (principal == null) {
+            User user = userRepository.findByUsernameAndDeletedAtIsNull(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+            principal = CachedPrincipal.of(user);
+            principalCache.put(principal);
+        }
+        return new UserDto(principal.toUser());
     }
 }
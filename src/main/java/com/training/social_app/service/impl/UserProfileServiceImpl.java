@@ -1,10 +1,15 @@
 package com.training.social_app.service.impl;
 
+import com.training.social_app.cache.AuthorCardCache;
+import com.training.social_app.cache.DirectoryIndex;
+import com.training.social_app.cache.NameTrigramIndex;
+import com.training.social_app.cache.TypeaheadIndex;
 import com.training.social_app.dto.request.UserProfileRequest;
 import com.training.social_app.entity.UserProfile;
 import com.training.social_app.entity.User;
 import com.training.social_app.repository.UserProfileRepository;
 import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.FriendSuggestionService;
 import com.training.social_app.service.UserProfileService;
 import com.training.social_app.utils.DateUtils;
 import com.training.social_app.utils.UserContext;
@@ -35,17 +40,26 @@ public class UserProfileServiceImpl implements UserProfileService {
     @Autowired
     private final UserRepository userRepository;
 
+    @Autowired
+    private final FriendSuggestionService friendSuggestionService;
+
+    @Autowired
+    private final AuthorCardCache authorCardCache;
+
+    @Autowired
+    private final NameTrigramIndex nameTrigramIndex;
+
+    @Autowired
+    private final TypeaheadIndex typeaheadIndex;
+
+    @Autowired
+    private final DirectoryIndex directoryIndex;
+
     @Value("${file.upload-dir}")
     private String uploadDir;
 
-    private Integer getCurrentUserId() {
-        User currentUser = userRepository.findById(UserContext.getUser().getUser().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Current user not found"));
-        return currentUser.getId();
-    }
-
     public UserProfile getUserProfileByUserId() {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         return userProfileRepository.findByUserId(userId).orElseThrow(() -> new EntityNotFoundException("User profile not found for user id: " + userId));
     }
 
@@ -60,7 +74,7 @@ public class UserProfileServiceImpl implements UserProfileService {
             throw new RuntimeException("Invalid birth date");
         }
 
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found for id: " + userId));
         Optional<UserProfile> existingUserProfile = userProfileRepository.findByUserId(userId);
@@ -97,7 +111,13 @@ public class UserProfileServiceImpl implements UserProfileService {
             }
         }
 
-        return userProfileRepository.save(profile);
+        UserProfile savedProfile = userProfileRepository.save(profile);
+        authorCardCache.evict(userId);
+        nameTrigramIndex.put(userId, savedProfile.getFullName());
+        typeaheadIndex.putName(userId, savedProfile.getFullName());
+        directoryIndex.put(userId, savedProfile.getLocation(), savedProfile.getOccupation(), savedProfile.getBirthDate());
+        friendSuggestionService.profileChanged(userId, savedProfile.getLocation(), savedProfile.getOccupation());
+        return savedProfile;
     }
 
     @Override
@@ -107,13 +127,18 @@ public class UserProfileServiceImpl implements UserProfileService {
 
     @Override
     public void deleteUserProfile() {
-        Integer userId = getCurrentUserId();
+        Integer userId = UserContext.getCurrentUserId();
         userProfileRepository.deleteByUserId(userId);
+        authorCardCache.evict(userId);
+        nameTrigramIndex.remove(userId);
+        typeaheadIndex.putName(userId, null);
+        directoryIndex.remove(userId);
+        friendSuggestionService.profileChanged(userId, null, null);
     }
 
     @Override
     public UserProfile getUserProfileById(Integer id) {
-        userRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("User not found for id: " + id));
+        userRepository.findByIdAndDeletedAtIsNull(id).orElseThrow(() -> new EntityNotFoundException("User not found for id: " + id));
         return userProfileRepository.findByUserId(id).orElseThrow(() -> new EntityNotFoundException("User profile not found for id: " + id));
     }
 }
@@ -1,30 +1,47 @@
 package com.training.social_app.service.impl;
 
+import com.training.social_app.cache.AuthorCardCache;
+import com.training.social_app.cache.AuthorCard;
+import com.training.social_app.cache.DirectoryIndex;
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.cache.NameTrigramIndex;
+import com.training.social_app.cache.PrincipalCache;
+import com.training.social_app.cache.SecretStore;
+import com.training.social_app.cache.TypeaheadIndex;
 import com.training.social_app.dto.request.DeleteRequest;
 import com.training.social_app.dto.request.LoginRequest;
 import com.training.social_app.dto.request.UserRequest;
 import com.training.social_app.dto.response.UserResponse;
 import com.training.social_app.dto.response.DetailUserResponse;
+import com.training.social_app.dto.response.JobResponse;
 import com.training.social_app.entity.User;
 import com.training.social_app.entity.UserProfile;
 import com.training.social_app.enums.Role;
+import com.training.social_app.exception.ServiceBusyException;
 import com.training.social_app.exception.UserForbiddenException;
 import com.training.social_app.repository.UserProfileRepository;
 import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.AccountPurgeService;
+import com.training.social_app.service.FriendSuggestionService;
+import com.training.social_app.service.JobService;
 import com.training.social_app.service.UserService;
+import com.training.social_app.utils.Chunks;
+import com.training.social_app.utils.PasswordHasher;
+import com.training.social_app.utils.SearchCursor;
 import com.training.social_app.utils.UserContext;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -34,6 +51,12 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class UserServiceImpl implements UserService {
+    private static final String OTP_KEY_PREFIX = "otp:";
+    private static final String RESET_TOKEN_KEY_PREFIX = "reset:";
+    private static final Duration OTP_TTL = Duration.ofMinutes(5);
+    private static final Duration RESET_TOKEN_TTL = Duration.ofMinutes(30);
+    private static final int TYPEAHEAD_SIZE = 10;
+
     @Autowired
     private final UserRepository userRepository;
 
@@ -41,7 +64,40 @@ public class UserServiceImpl implements UserService {
     private final UserProfileRepository userProfileRepository;
 
     @Autowired
-    private final BCryptPasswordEncoder bCryptPasswordEncoder; //bcrypt password encoder
+    private final PasswordHasher passwordHasher; //bcrypt on the bounded hashing pool
+
+    @Autowired
+    private final FriendGraph friendGraph;
+
+    @Autowired
+    private final SecretStore secretStore;
+
+    @Autowired
+    private final PrincipalCache principalCache;
+
+    @Autowired
+    private final FriendSuggestionService friendSuggestionService;
+
+    @Autowired
+    private final AuthorCardCache authorCardCache;
+
+    @Autowired
+    private final NameTrigramIndex nameTrigramIndex;
+
+    @Autowired
+    private final TypeaheadIndex typeaheadIndex;
+
+    @Autowired
+    private final DirectoryIndex directoryIndex;
+
+    @Autowired
+    private final JobService jobService;
+
+    @Autowired
+    private final AccountPurgeService accountPurgeService;
+
+    @Value("${bulk-delete.chunk-size:500}")
+    private int deleteChunkSize;
 
     @Override
     public User registerUser(UserRequest request) {
@@ -54,7 +110,7 @@ public class UserServiceImpl implements UserService {
         User user = new User();
         user.setUsername(username);
         user.setEmail(request.getEmail());
-        user.setPassword(bCryptPasswordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
         user.setRole(Role.USER);
         userRepository.save(user);
 
@@ -67,6 +123,7 @@ public class UserServiceImpl implements UserService {
         userProfile.setAvatarUrl(null);
         userProfileRepository.save(userProfile);
         user.setUserProfile(userProfile);
+        typeaheadIndex.putUsername(user.getId(), username);
 
         return user;
     }
@@ -77,79 +134,91 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User findByUsername(String username) {
-        return userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found for username: " + username));
+        return userRepository.findByUsernameAndDeletedAtIsNull(username).orElseThrow(() -> new RuntimeException("User not found for username: " + username));
     }
 
     @Override
     public String login(LoginRequest loginRequest) {
-        User user = userRepository.findByUsername(loginRequest.getUsername()).orElseThrow(() -> new RuntimeException("User not found for username: " + loginRequest.getUsername()));
-        if (!bCryptPasswordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-            throw new RuntimeException("Invalid password");
+        User user = userRepository.findByUsernameAndDeletedAtIsNull(loginRequest.getUsername()).orElseThrow(() -> new RuntimeException("User not found for username: " + loginRequest.getUsername()));
+        //The only password verification of a login
+        if (!passwordHasher.matches(loginRequest.getPassword(), user.getPassword())) {
+            throw new RuntimeException("Invalid username or password");
         }
 
         String otp = generateOtp();
-        user.setOtp(otp);
-        user.setOtpExpiry(LocalDateTime.now().plusMinutes(5));
-        userRepository.save(user);
+        secretStore.put(OTP_KEY_PREFIX + user.getUsername(), otp, OTP_TTL);
         return "Your OTP is " + otp;
     }
 
     public boolean verifyOtp(User user, String otp) {
-        if (user.getOtp() == null || user.getOtpExpiry() == null || LocalDateTime.now().isAfter(user.getOtpExpiry())) {
+        String key = OTP_KEY_PREFIX + user.getUsername();
+        String expected = secretStore.get(key);
+        if (expected == null) {
             throw new RuntimeException("Verified failed. OTP is invalid or expired");
         }
-        if (!user.getOtp().equals(otp)) {
+        if (!expected.equals(otp)) {
             throw new RuntimeException("Invalid OTP");
         }
-        user.setOtp(null);
-        user.setOtpExpiry(null);
-        userRepository.save(user);
+        //A concurrent verification may have used it first
+        if (!secretStore.remove(key, otp)) {
+            throw new RuntimeException("Verified failed. OTP is invalid or expired");
+        }
         return true;
     }
 
     @Override
     public String generateForgotPasswordToken(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found for email: " + email));
+        User user = userRepository.findByEmailAndDeletedAtIsNull(email).orElseThrow(() -> new RuntimeException("User not found for email: " + email));
         String token = UUID.randomUUID().toString();
-        user.setForgotPasswordToken(token);
-        user.setForgotPasswordTokenExpiry(LocalDateTime.now().plusMinutes(30));
-        userRepository.save(user);
+        secretStore.put(RESET_TOKEN_KEY_PREFIX + token, user.getUsername(), RESET_TOKEN_TTL);
         return token;
     }
 
     @Override
     public void resetPassword(String token, String newPassword) {
-        User user = userRepository.findByForgotPasswordToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-
-        if (LocalDateTime.now().isAfter(user.getForgotPasswordTokenExpiry())) {
+        //Taking the token makes it single use
+        String username = secretStore.take(RESET_TOKEN_KEY_PREFIX + token);
+        if (username == null) {
             throw new RuntimeException("Invalid or expired token");
         }
-        user.setPassword(bCryptPasswordEncoder.encode(newPassword));
-        user.setForgotPasswordToken(null);
-        user.setForgotPasswordTokenExpiry(null);
+        User user = userRepository.findByUsernameAndDeletedAtIsNull(username)
+                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
+
+        user.setPassword(passwordHasher.encode(newPassword));
+        user.setPasswordVersion(user.getPasswordVersion() + 1);
         userRepository.save(user);
+        principalCache.invalidate(user.getUsername());
     }
 
     @Override
     public void deleteUser() {
-        Integer userId = UserContext.getUser().getUser().getId();
-        userRepository.deleteById(userId);
+        Integer userId = UserContext.getCurrentUserId();
+        if (userRepository.markDeleted(userId, LocalDateTime.now()) == 0) {
+            throw new EntityNotFoundException("User not found");
+        }
+        principalCache.invalidate(UserContext.getUser().getUsername());
+        forget(userId);
+        accountPurgeService.detach(userId);
+        //The account is hidden already; its rows go in small batches on the job pool
+        try {
+            accountPurgeService.purge(userId);
+        } catch (ServiceBusyException e) {
+            log.warn("Job queue is full, purge of deleted user {} left to the next sweep", userId);
+        }
     }
 
+    // Existence is checked up front in chunks; the deletion itself runs as a background job, one transaction per chunk
     @Override
-    public void deleteUsers(DeleteRequest request) {
-        User user = userRepository.findById(UserContext.getUser().getUser().getId()).orElseThrow(() -> new EntityNotFoundException("User not found"));
-        if (!user.getRole().equals(Role.ADMIN)) {
+    public JobResponse deleteUsers(DeleteRequest request) {
+        if (!Role.ADMIN.equals(UserContext.getUser().getUser().getRole())) {
             throw new UserForbiddenException("User is not allowed to delete users");
         }
 
-        List<Integer> ids = request.getIds();
-        List<User> usersToDelete = userRepository.findAllById(ids);
-
-        List<Integer> existingIds = usersToDelete.stream()
-                .map(User::getId)
-                .toList();
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(request.getIds()));
+        Set<Integer> existingIds = new HashSet<>();
+        for (List<Integer> chunk : Chunks.of(ids, deleteChunkSize)) {
+            existingIds.addAll(userRepository.findExistingIds(chunk));
+        }
 
         List<Integer> notFoundIds = ids.stream()
                 .filter(id -> !existingIds.contains(id))
@@ -159,13 +228,41 @@ public class UserServiceImpl implements UserService {
             throw new EntityNotFoundException("Users not found for ids: " + notFoundIds);
         }
 
-        userRepository.deleteAll(usersToDelete);
+        //Each chunk is soft-deleted and taken out of the counters and liker sets first, like a self-deletion,
+        //then every account is purged in small batches; a job cut short is finished by the purge sweep
+        return jobService.submit("delete-users", ids.size(), progress -> {
+            for (List<Integer> chunk : Chunks.of(ids, deleteChunkSize)) {
+                List<Object[]> usernames = userRepository.findUsernamesByIdIn(chunk);
+                LocalDateTime now = LocalDateTime.now();
+                for (Integer userId : chunk) {
+                    //Accounts deleted already were detached then
+                    if (userRepository.markDeleted(userId, now) > 0) {
+                        accountPurgeService.detach(userId);
+                    }
+                }
+                usernames.forEach(row -> principalCache.invalidate((String) row[1]));
+                chunk.forEach(this::forget);
+                for (Integer userId : chunk) {
+                    accountPurgeService.purgeNow(userId);
+                    progress.accept(1);
+                }
+            }
+        });
+    }
+
+    // Drop a deleted user from the in-memory indexes and caches
+    private void forget(Integer userId) {
+        friendGraph.removeUser(userId);
+        friendSuggestionService.removeUser(userId);
+        authorCardCache.evict(userId);
+        nameTrigramIndex.remove(userId);
+        typeaheadIndex.remove(userId);
+        directoryIndex.remove(userId);
     }
 
     @Override
     public Map<String,Object> findAll(String searchText, int page, int size) {
-        User user = userRepository.findById(UserContext.getUser().getUser().getId()).orElseThrow(() -> new EntityNotFoundException("User not found"));
-        if (!user.getRole().equals(Role.ADMIN)) {
+        if (!Role.ADMIN.equals(UserContext.getUser().getUser().getRole())) {
             throw new UserForbiddenException("User is not allowed to see all users");
         }
             if (page > 0) {
@@ -174,6 +271,7 @@ public class UserServiceImpl implements UserService {
             Pageable pageable = PageRequest.of(page, size);
             Specification<User> specification = (root, query, criteriaBuilder) -> {
                 List<Predicate> predicates = new ArrayList<>();
+                predicates.add(criteriaBuilder.isNull(root.get("deletedAt")));
                 if (searchText != null && !searchText.isEmpty()) {
                     predicates.add(criteriaBuilder.like(root.get("username"), "%" + searchText + "%"));
                 }
@@ -206,40 +304,126 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public DetailUserResponse findById(Integer userId) {
-        User user = userRepository.findById(userId)
+        User user = userRepository.findByIdAndDeletedAtIsNull(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found for id: " + userId));
         return convertToDTO(user);
     }
 
     @Override
     public DetailUserResponse getUserProfile() {
-        User user = userRepository.findById(UserContext.getUser().getUser().getId()).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        User user = userRepository.findById(UserContext.getCurrentUserId()).orElseThrow(() -> new EntityNotFoundException("User not found"));
         return convertToDTO(user);
     }
 
+    // Matches come ranked from the in-memory name index; only the cards of the page shown are looked up
     @Override
     public Map<String,Object> searchUser(String searchText, int page, int size) {
         if (searchText == null || searchText.isEmpty()) {
             throw new RuntimeException("Search text is required");
         }
+        requireValidPage(page, size);
         if (page > 0) {
             page = page - 1;
         }
-        Pageable pageable = PageRequest.of(page, size);
-        Page<User> usersPage = userRepository.findByUserProfileFullNameContaining(searchText, pageable);
+        List<NameTrigramIndex.Match> matches = nameTrigramIndex.search(searchText);
+        int from = (int) Math.min((long) page * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+        Map<String,Object> response = new HashMap<>();
+        response.put("listUser", toSearchResults(matches.subList(from, to)));
+        response.put("pageSize", size);
+        response.put("pageNo", page + 1);
+        response.put("totalPage", (matches.size() + size - 1) / size);
+        return response;
+    }
+
+    @Override
+    public Map<String,Object> searchUserAfter(String searchText, String after, int size) {
+        if (searchText == null || searchText.isEmpty()) {
+            throw new RuntimeException("Search text is required");
+        }
+        requireValidPage(0, size);
+        SearchCursor cursor = SearchCursor.decode(after);
+        List<NameTrigramIndex.Match> matches = nameTrigramIndex.search(searchText);
+        //Matches are ordered by (rank DESC, id DESC) like the other cursor lists: skip up to the last one seen
+        int from = 0;
+        while (from < matches.size() && !cursor.isBefore(matches.get(from).rank(), matches.get(from).userId())) {
+            from++;
+        }
+        int to = Math.min(from + size, matches.size());
+        List<NameTrigramIndex.Match> pageMatches = matches.subList(from, to);
         Map<String,Object> response = new HashMap<>();
-        response.put("listUser", usersPage.getContent().stream().map(this::convertToSearchUserResponse).collect(Collectors.toList()));
-        response.put("pageSize", usersPage.getSize());
-        response.put("pageNo", usersPage.getNumber() + 1);
-        response.put("totalPage", usersPage.getTotalPages());
+        response.put("listUser", toSearchResults(pageMatches));
+        response.put("pageSize", size);
+        response.put("nextCursor", to < matches.size()
+                ? new SearchCursor(pageMatches.getLast().rank(), pageMatches.getLast().userId()).encode()
+                : null);
         return response;
     }
 
-    private UserResponse convertToSearchUserResponse (User user) {
+    @Override
+    public List<UserResponse> typeahead(String query) {
+        if (query == null || query.isBlank()) {
+            return new ArrayList<>();
+        }
+        Integer userId = UserContext.getCurrentUserId();
+        List<Integer> userIds = typeaheadIndex.suggest(query, userId, TYPEAHEAD_SIZE);
+        return withMutualCounts(authorCardCache.getAll(userIds).values().stream()
+                .map(this::convertToSearchUserResponse)
+                .collect(Collectors.toList()));
+    }
+
+    // Filtering and facet counts come from the in-memory directory bitmaps; newest users first
+    @Override
+    public Map<String,Object> directory(String location, String occupation, String age, int page, int size) {
+        requireValidPage(page, size);
+        if (page > 0) {
+            page = page - 1;
+        }
+        Map<String, String> filters = new HashMap<>();
+        filters.put(DirectoryIndex.LOCATION, location);
+        filters.put(DirectoryIndex.OCCUPATION, occupation);
+        filters.put(DirectoryIndex.AGE, age);
+        DirectoryIndex.Result result = directoryIndex.query(filters, (int) Math.min((long) page * size, Integer.MAX_VALUE), size);
+        int total = result.total();
+        List<Integer> pageIds = result.userIds();
+        Map<String,Object> response = new HashMap<>();
+        response.put("listUser", withMutualCounts(authorCardCache.getAll(pageIds).values().stream()
+                .map(this::convertToSearchUserResponse)
+                .collect(Collectors.toList())));
+        response.put("facets", result.facets());
+        response.put("totalUser", total);
+        response.put("pageSize", size);
+        response.put("pageNo", page + 1);
+        response.put("totalPage", (total + size - 1) / size);
+        return response;
+    }
+
+    private static void requireValidPage(int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Page number must not be negative and page size must be at least 1");
+        }
+    }
+
+    private List<UserResponse> toSearchResults(List<NameTrigramIndex.Match> matches) {
+        Map<Integer, AuthorCard> cards = authorCardCache.getAll(matches.stream().map(NameTrigramIndex.Match::userId).toList());
+        return withMutualCounts(cards.values().stream().map(this::convertToSearchUserResponse).collect(Collectors.toList()));
+    }
+
+    // Mutual-friend counts between the current user and every search result, from the friend graph
+    private List<UserResponse> withMutualCounts(List<UserResponse> results) {
+        Integer userId = UserContext.getCurrentUserId();
+        int[] counts = friendGraph.mutualCounts(userId, results.stream().mapToInt(UserResponse::getId).toArray());
+        for (int i = 0; i < counts.length; i++) {
+            results.get(i).setMutualFriendCount(counts[i]);
+        }
+        return results;
+    }
+
+    private UserResponse convertToSearchUserResponse(AuthorCard card) {
         UserResponse userDTO = new UserResponse();
-        userDTO.setId(user.getId());
-        userDTO.setFullName(user.getUserProfile().getFullName());
-        userDTO.setAvatarUrl(user.getUserProfile().getAvatarUrl());
+        userDTO.setId(card.id());
+        userDTO.setFullName(card.fullName());
+        userDTO.setAvatarUrl(card.avatarUrl());
         return userDTO;
     }
-}
\ No newline at end of file
+}
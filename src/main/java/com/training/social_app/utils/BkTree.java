@@ -0,0 +1,95 @@
+package com.training.social_app.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Burkhard-Keller tree of words under the Levenshtein distance, to find every word within a few edits of a query.
+// Each child sits under its distance to the parent, so by the triangle inequality a search within k edits
+// only visits the children whose key is within k of the parent's distance to the query.
+// Words are never removed; callers skip the ones that are no longer used. Adds must be serialized by the caller,
+// searches may run at the same time.
+public class BkTree {
+    private record Node(String word, ConcurrentHashMap<Integer, Node> children) {
+    }
+
+    // A word of the tree and its distance to the query
+    public record Hit(String word, int distance) {
+    }
+
+    private volatile Node root;
+
+    private int size;
+
+    public void add(String word) {
+        if (root == null) {
+            root = new Node(word, new ConcurrentHashMap<>());
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(node.word(), word);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.children().get(distance);
+            if (child == null) {
+                node.children().put(distance, new Node(word, new ConcurrentHashMap<>()));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<Hit> search(String query, int maxDistance) {
+        List<Hit> hits = new ArrayList<>();
+        Node start = root;
+        if (start == null) {
+            return hits;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(node.word(), query);
+            if (distance <= maxDistance) {
+                hits.add(new Hit(node.word(), distance));
+            }
+            for (int key = Math.max(1, distance - maxDistance); key <= distance + maxDistance; key++) {
+                Node child = node.children().get(key);
+                if (child != null) {
+                    pending.push(child);
+                }
+            }
+        }
+        return hits;
+    }
+
+    // Levenshtein distance with two rows
+    public static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
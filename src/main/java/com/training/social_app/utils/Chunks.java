@@ -0,0 +1,18 @@
+package com.training.social_app.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Chunks {
+    private Chunks() {
+    }
+
+    // Consecutive sublists of at most size elements, for IN lists that must stay bounded
+    public static <T> List<List<T>> of(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return chunks;
+    }
+}
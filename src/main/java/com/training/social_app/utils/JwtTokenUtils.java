@@ -1,6 +1,11 @@
 package com.training.social_app.utils;
 
+import com.training.social_app.cache.ExpiringLruCache;
+import com.training.social_app.dto.response.UserDto;
+import com.training.social_app.entity.User;
+import com.training.social_app.enums.Role;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,10 +14,13 @@ import org.springframework.stereotype.Component;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
 @Component
 public class JwtTokenUtils implements Serializable {
@@ -22,38 +30,60 @@ public class JwtTokenUtils implements Serializable {
 
     public static final long JWT_TOKEN_VALIDITY = 5 * 60 * 60;
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_PASSWORD_VERSION = "pwv";
+
     @Value("${jwt.secret}")
     private String secret;
 
-    // retrieve email from jwt token
-    public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
-    }
-
-    // retrieve expiration date from jwt token
-    public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
-    }
+    // Tokens already verified, keyed by the SHA-256 of the token so raw tokens are not kept in memory
+    private final transient ExpiringLruCache<String, VerifiedToken> verifiedTokens;
 
-    public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getAllClaimsFromToken(token);
-        return claimsResolver.apply(claims);
+    public JwtTokenUtils(@Value("${jwt.verified-cache.max-size:10000}") int maxSize,
+                         @Value("${jwt.verified-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.verifiedTokens = new ExpiringLruCache<>(maxSize, ttlSeconds * 1000);
     }
 
-    // for retrieving any information from token we will need the secret key
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+    // Parse and check the signature once; later requests with the same token are answered from the cache
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken verified = verifiedTokens.get(digest);
+        if (verified == null) {
+            Claims claims = Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+            String role = claims.get(CLAIM_ROLE, String.class);
+            verified = new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get(CLAIM_USER_ID, Integer.class),
+                    role != null ? Role.valueOf(role) : null,
+                    claims.get(CLAIM_PASSWORD_VERSION, Integer.class),
+                    claims.getExpiration());
+            verifiedTokens.put(digest, verified);
+        }
+        if (verified.isExpired()) {
+            verifiedTokens.remove(digest);
+            throw new ExpiredJwtException(null, null, "JWT Token has expired");
+        }
+        return verified;
     }
 
-    // check if the token has expired
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public String generateToken(UserDetails userDetails) {
-//        UserDetails userDetails = new UserDto();
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof UserDto userDto) {
+            User user = userDto.getUser();
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLE, user.getRole().name());
+            claims.put(CLAIM_PASSWORD_VERSION, user.getPasswordVersion());
+        }
         return doGenerateToken(claims, userDetails.getUsername());
     }
 
@@ -67,10 +97,4 @@ public class JwtTokenUtils implements Serializable {
                 .setExpiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY * 1000))
                 .signWith(SignatureAlgorithm.HS512, secret).compact();
     }
-
-    // validate token
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
 }
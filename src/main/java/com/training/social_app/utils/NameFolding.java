@@ -0,0 +1,29 @@
+package com.training.social_app.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Search key of a name: accents removed, lower case, single spaces between words.
+// "Nguyễn Văn  Long" and "nguyen van long" fold to the same key, so search does not depend on how names are typed.
+public final class NameFolding {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private NameFolding() {
+    }
+
+    public static String fold(String name) {
+        if (name == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        //đ is a letter of its own, not d with a mark, so NFD leaves it alone
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'd')
+                .toLowerCase(Locale.ROOT)
+                .trim();
+        return folded.isEmpty() ? "" : SPACES.matcher(folded).replaceAll(" ");
+    }
+}
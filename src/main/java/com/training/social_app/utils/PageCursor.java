@@ -0,0 +1,44 @@
+package com.training.social_app.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+// Opaque keyset cursor: the sort key and id of the last row a client has seen.
+// Lists read with a cursor are ordered by (key DESC, id DESC) and never run OFFSET or COUNT.
+public record PageCursor(long key, int id) {
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    // Cursor of the first page: every row sorts before it
+    public static final PageCursor START = of(MAX_TIME, Integer.MAX_VALUE);
+
+    public static PageCursor of(LocalDateTime time, Integer id) {
+        long micros = time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+        return new PageCursor(micros, id);
+    }
+
+    public LocalDateTime time() {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1_000_000L),
+                (int) Math.floorMod(key, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    public String encode() {
+        String raw = key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // An empty cursor means "start from the first page"
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new PageCursor(Long.parseLong(raw.substring(0, separator)), Integer.parseInt(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
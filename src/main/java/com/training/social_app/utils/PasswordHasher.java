@@ -0,0 +1,88 @@
+package com.training.social_app.utils;
+
+import com.training.social_app.exception.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// BCrypt hashing and verification on a small dedicated pool sized to the CPU count.
+// The queue is bounded and a full queue is rejected straight away with ServiceBusyException (503),
+// so a burst of logins waits on at most pool + queue hashes instead of tying up every request thread.
+@Component
+@Slf4j
+public class PasswordHasher {
+    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutMs;
+
+    public PasswordHasher(BCryptPasswordEncoder bCryptPasswordEncoder,
+                          @Value("${password-hashing.pool-size:0}") int poolSize,
+                          @Value("${password-hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${password-hashing.timeout-ms:5000}") long timeoutMs) {
+        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.timeoutMs = timeoutMs;
+        //0 means one thread per core
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> bCryptPasswordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> bCryptPasswordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing queue is full, rejecting request");
+            throw new ServiceBusyException("Server is busy, please try again later");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException("Server is busy, please try again later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
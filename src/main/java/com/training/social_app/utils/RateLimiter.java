@@ -0,0 +1,55 @@
+package com.training.social_app.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket in its GCRA form: each key keeps only the theoretical arrival time of its next request,
+// and admitting a request is one compare-and-set on that time, so buckets need no locks.
+// Buckets that have fully refilled are indistinguishable from new ones and are dropped by evictIdle;
+// when the map still holds maxKeys buckets, requests of new keys are let through without a bucket.
+public class RateLimiter {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    // limit requests per period on average, with up to burst requests back to back
+    public RateLimiter(int limit, long periodNanos, int burst, int maxKeys) {
+        this.emissionIntervalNanos = periodNanos / limit;
+        this.burstToleranceNanos = emissionIntervalNanos * (Math.max(burst, 1) - 1);
+        this.maxKeys = maxKeys;
+    }
+
+    // 0 when the request is admitted, otherwise the nanos to wait before it would be
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                evictIdle(nowNanos);
+                if (buckets.size() >= maxKeys) {
+                    return 0;
+                }
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+        while (true) {
+            long theoreticalArrival = bucket.get();
+            long start = theoreticalArrival - nowNanos > 0 ? theoreticalArrival : nowNanos;
+            long wait = start - burstToleranceNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public void evictIdle(long nowNanos) {
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() - nowNanos <= 0);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,34 @@
+package com.training.social_app.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque cursor of the user search: the match rank and user id of the last result a client has seen.
+// Results are ordered by (rank DESC, userId DESC), so the next page starts at the first match below it.
+public record SearchCursor(long rank, int userId) {
+    // Cursor of the first page: every match sorts before it
+    public static final SearchCursor START = new SearchCursor(Long.MAX_VALUE, Integer.MAX_VALUE);
+
+    public boolean isBefore(long matchRank, int matchUserId) {
+        return matchRank < rank || (matchRank == rank && matchUserId < userId);
+    }
+
+    public String encode() {
+        String raw = rank + ":" + userId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // An empty cursor means "start from the first page"
+    public static SearchCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new SearchCursor(Long.parseLong(raw.substring(0, separator)), Integer.parseInt(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.training.social_app.utils;
+
+import java.util.Arrays;
+
+// Helpers for ascending, duplicate-free int arrays used as compact id sets.
+// Arrays are treated as immutable: every update returns a new array.
+public final class SortedIntArrays {
+    public static final int[] EMPTY = new int[0];
+
+    private static final int SKEW_RATIO = 32;
+
+    private SortedIntArrays() {
+    }
+
+    public static boolean contains(int[] array, int value) {
+        return Arrays.binarySearch(array, value) >= 0;
+    }
+
+    public static int[] insert(int[] array, int value) {
+        int index = Arrays.binarySearch(array, value);
+        if (index >= 0) {
+            return array;
+        }
+        int at = -index - 1;
+        int[] result = new int[array.length + 1];
+        System.arraycopy(array, 0, result, 0, at);
+        result[at] = value;
+        System.arraycopy(array, at, result, at + 1, array.length - at);
+        return result;
+    }
+
+    public static int[] remove(int[] array, int value) {
+        int index = Arrays.binarySearch(array, value);
+        if (index < 0) {
+            return array;
+        }
+        int[] result = new int[array.length - 1];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    // Sort and drop duplicates in place, returning the used prefix
+    public static int[] sortedDistinct(int[] values, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(values, 0, length);
+        int size = 1;
+        for (int i = 1; i < length; i++) {
+            if (values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    // Linear merge of two sorted arrays; when one side is much smaller its values are binary searched instead
+    public static int intersectionSize(int[] a, int[] b) {
+        if (a.length > b.length) {
+            int[] swap = a;
+            a = b;
+            b = swap;
+        }
+        if ((long) a.length * SKEW_RATIO < b.length) {
+            int count = 0;
+            for (int value : a) {
+                if (contains(b, value)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        int i = 0, j = 0, count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    public static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+}
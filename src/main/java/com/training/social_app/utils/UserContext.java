@@ -17,6 +17,11 @@ public class UserContext {
         return userHolder.get();
     }
 
+    // The caller was resolved by the JWT filter from the principal cache: no query needed
+    public static Integer getCurrentUserId() {
+        return getUser().getUser().getId();
+    }
+
     public static void clear() {
         userHolder.remove();
     }
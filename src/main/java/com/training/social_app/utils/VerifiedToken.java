@@ -0,0 +1,17 @@
+package com.training.social_app.utils;
+
+import com.training.social_app.enums.Role;
+
+import java.util.Date;
+
+// Claims of a JWT whose signature has already been checked.
+// userId, role and passwordVersion are null for tokens issued before they were embedded.
+public record VerifiedToken(String username, Integer userId, Role role, Integer passwordVersion, Date expiration) {
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+
+    public boolean isSelfContained() {
+        return userId != null && role != null && passwordVersion != null;
+    }
+}
@@ -0,0 +1,99 @@
+package com.training.social_app.Auth.cache;
+
+import com.training.social_app.cache.SecretStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecretStoreTest {
+
+    @Test
+    void take_ShouldReturnValueOnlyOnce() {
+        SecretStore store = new SecretStore(64, 1000, "");
+        store.put("reset:token", "john", Duration.ofMinutes(30));
+
+        assertEquals("john", store.get("reset:token"));
+        assertEquals("john", store.take("reset:token"));
+        assertNull(store.take("reset:token"));
+    }
+
+    @Test
+    void remove_DifferentValue_ShouldKeepEntry() {
+        SecretStore store = new SecretStore(64, 1000, "");
+        store.put("otp:john", "123456", Duration.ofMinutes(5));
+
+        assertFalse(store.remove("otp:john", "654321"));
+        assertTrue(store.remove("otp:john", "123456"));
+        assertNull(store.get("otp:john"));
+    }
+
+    @Test
+    void advance_ShouldDropExpiredEntries() throws InterruptedException {
+        SecretStore store = new SecretStore(8, 10, "");
+        store.put("otp:short", "1", Duration.ofMillis(20));
+        // Several turns of the 8-slot wheel away
+        store.put("otp:long", "2", Duration.ofMinutes(5));
+
+        Thread.sleep(60);
+        store.advance();
+
+        assertEquals(1, store.size());
+        assertNull(store.get("otp:short"));
+        assertEquals("2", store.get("otp:long"));
+    }
+
+    @Test
+    void journal_ShouldRestoreLiveEntriesAfterRestart(@TempDir Path dir) {
+        String journal = dir.resolve("secrets.journal").toString();
+        SecretStore store = new SecretStore(64, 1000, journal);
+        store.openJournal();
+        store.put("otp:john", "123456", Duration.ofMinutes(5));
+        store.put("reset:used", "jane", Duration.ofMinutes(30));
+        store.take("reset:used");
+        store.closeJournal();
+
+        SecretStore restarted = new SecretStore(64, 1000, journal);
+        restarted.openJournal();
+
+        assertEquals("123456", restarted.get("otp:john"));
+        assertNull(restarted.get("reset:used"));
+        restarted.closeJournal();
+    }
+
+    @Test
+    void journal_TakeRacingPut_ShouldNotBringTakenSecretsBack(@TempDir Path dir) throws Exception {
+        String journal = dir.resolve("secrets.journal").toString();
+        SecretStore store = new SecretStore(64, 1000, journal);
+        store.openJournal();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 200; i++) {
+                String key = "otp:" + i;
+                // The OTP is used as soon as it is issued
+                Future<?> taker = executor.submit(() -> {
+                    while (store.take(key) == null) {
+                        Thread.onSpinWait();
+                    }
+                });
+                executor.submit(() -> store.put(key, "123456", Duration.ofMinutes(5))).get();
+                taker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        store.closeJournal();
+
+        SecretStore restarted = new SecretStore(64, 1000, journal);
+        restarted.openJournal();
+
+        assertEquals(0, restarted.size());
+        restarted.closeJournal();
+    }
+}
@@ -0,0 +1,61 @@
+package com.training.social_app.Auth.utils;
+
+import com.training.social_app.dto.response.UserDto;
+import com.training.social_app.entity.User;
+import com.training.social_app.enums.Role;
+import com.training.social_app.utils.JwtTokenUtils;
+import com.training.social_app.utils.VerifiedToken;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtTokenUtilsTest {
+    private JwtTokenUtils jwtTokenUtils;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtils = new JwtTokenUtils(100, 60);
+        ReflectionTestUtils.setField(jwtTokenUtils, "secret", "test-secret");
+
+        user = new User();
+        user.setId(7);
+        user.setUsername("john");
+        user.setRole(Role.ADMIN);
+        user.setPasswordVersion(3);
+    }
+
+    @Test
+    void verify_GeneratedToken_ShouldCarryUserIdRoleAndPasswordVersion() {
+        String token = jwtTokenUtils.generateToken(new UserDto(user));
+
+        VerifiedToken verified = jwtTokenUtils.verify(token);
+
+        assertEquals("john", verified.username());
+        assertEquals(7, verified.userId());
+        assertEquals(Role.ADMIN, verified.role());
+        assertEquals(3, verified.passwordVersion());
+        assertTrue(verified.isSelfContained());
+        assertFalse(verified.isExpired());
+    }
+
+    @Test
+    void verify_SameTokenTwice_ShouldReturnCachedClaims() {
+        String token = jwtTokenUtils.generateToken(new UserDto(user));
+
+        assertSame(jwtTokenUtils.verify(token), jwtTokenUtils.verify(token));
+    }
+
+    @Test
+    void verify_TokenSignedWithAnotherSecret_ShouldThrowException() {
+        JwtTokenUtils otherIssuer = new JwtTokenUtils(100, 60);
+        ReflectionTestUtils.setField(otherIssuer, "secret", "another-secret");
+        String token = otherIssuer.generateToken(new UserDto(user));
+
+        assertThrows(SignatureException.class, () -> jwtTokenUtils.verify(token));
+    }
+}
@@ -0,0 +1,84 @@
+package com.training.social_app.Auth.utils;
+
+import com.training.social_app.exception.ServiceBusyException;
+import com.training.social_app.utils.PasswordHasher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    private PasswordHasher passwordHasher;
+
+    private ExecutorService callers;
+
+    @AfterEach
+    void tearDown() {
+        if (passwordHasher != null) {
+            passwordHasher.shutdown();
+        }
+        if (callers != null) {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_ShouldVerifyOnThePool() {
+        passwordHasher = new PasswordHasher(new BCryptPasswordEncoder(4), 1, 4, 5000);
+
+        String hash = passwordHasher.encode("secret");
+
+        assertTrue(passwordHasher.matches("secret", hash));
+        assertFalse(passwordHasher.matches("wrong", hash));
+    }
+
+    @Test
+    void matches_QueueFull_ShouldRejectImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Blocks the only worker until released
+        BCryptPasswordEncoder blockingEncoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        passwordHasher = new PasswordHasher(blockingEncoder, 1, 1, 5000);
+        callers = Executors.newFixedThreadPool(2);
+
+        Future<Boolean> running = callers.submit(() -> passwordHasher.matches("a", "hash"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<Boolean> queued = callers.submit(() -> passwordHasher.matches("b", "hash"));
+        // Wait until the second call occupies the single queue slot
+        while (!queued.isDone() && countQueued() == 0) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(ServiceBusyException.class, () -> passwordHasher.matches("c", "hash"));
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private int countQueued() {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordHasher, "executor");
+        return executor.getQueue().size();
+    }
+}
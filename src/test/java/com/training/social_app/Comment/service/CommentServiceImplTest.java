@@ -1,5 +1,7 @@
 package com.training.social_app.Comment.service;
 
+import com.training.social_app.cache.AuthorCard;
+import com.training.social_app.cache.AuthorCardCache;
 import com.training.social_app.dto.request.CommentRequest;
 import com.training.social_app.dto.response.CommentResponse;
 import com.training.social_app.dto.response.UserDto;
@@ -11,6 +13,7 @@ import com.training.social_app.exception.UserForbiddenException;
 import com.training.social_app.repository.CommentRepository;
 import com.training.social_app.repository.PostRepository;
 import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.PostCounterService;
 import com.training.social_app.service.impl.CommentServiceImpl;
 import com.training.social_app.utils.UserContext;
 import jakarta.persistence.EntityNotFoundException;
@@ -46,6 +49,12 @@ public class CommentServiceImplTest {
     @Mock
     private PostRepository postRepository;
 
+    @Mock
+    private PostCounterService postCounterService;
+
+    @Mock
+    private AuthorCardCache authorCardCache;
+
     @InjectMocks
     private CommentServiceImpl commentService;
 
@@ -56,6 +65,7 @@ public class CommentServiceImplTest {
     @BeforeAll
     static void init() {
         mockedUserContext = mockStatic(UserContext.class);
+        mockedUserContext.when(UserContext::getCurrentUserId).thenCallRealMethod();
     }
 
     @AfterAll
@@ -114,6 +124,7 @@ public class CommentServiceImplTest {
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(postRepository.findById(postId)).thenReturn(Optional.of(post));
         when(commentRepository.save(any(Comment.class))).thenReturn(comment);
+        when(authorCardCache.get(userId)).thenReturn(new AuthorCard(userId, "John Doe", "avatar.jpg"));
 
         CommentResponse response = commentService.commentPost(request);
 
@@ -122,9 +133,11 @@ public class CommentServiceImplTest {
         assertEquals(userId, response.getUserId());
         assertEquals(postId, response.getPostId());
         assertEquals(content, response.getContent());
+        assertEquals("John Doe", response.getUserFullName());
 
         verify(postRepository).findById(postId);
         verify(commentRepository).save(any(Comment.class));
+        verify(postCounterService).addComments(postId, 1);
     }
 
     @Test
@@ -168,6 +181,7 @@ public class CommentServiceImplTest {
 
         when(commentRepository.findById(commentId)).thenReturn(Optional.of(existingComment));
         when(commentRepository.save(any(Comment.class))).thenReturn(existingComment);
+        when(authorCardCache.get(userId)).thenReturn(AuthorCard.empty(userId));
 
         CommentResponse response = commentService.editComment(request, commentId);
 
@@ -230,23 +244,12 @@ public class CommentServiceImplTest {
         Post post = new Post();
         post.setId(postId);
 
-        User user = new User();
-        user.setId(1);
-        UserProfile userProfile = new UserProfile();
-        userProfile.setFullName("John Doe");
-        userProfile.setAvatarUrl("avatar.jpg");
-        user.setUserProfile(userProfile);
-
-        Comment comment = new Comment();
-        comment.setId(1);
-        comment.setPost(post);
-        comment.setUser(user);
-        comment.setContent("Test comment");
-
-        Page<Comment> commentPage = new PageImpl<>(List.of(comment));
+        // One projected row: the comment with the author's profile
+        CommentResponse row = new CommentResponse(1, postId, 1, "John Doe", "avatar.jpg", "Test comment", LocalDateTime.now(), LocalDateTime.now());
+        Page<CommentResponse> commentPage = new PageImpl<>(List.of(row));
 
         when(postRepository.findById(postId)).thenReturn(Optional.of(post));
-        when(commentRepository.findAllByPostId(eq(postId), any(Pageable.class))).thenReturn(commentPage);
+        when(commentRepository.findResponsesByPostId(eq(postId), any(Pageable.class))).thenReturn(commentPage);
 
         Map<String, Object> responses = commentService.getCommentsByPostId(postId, page, size);
 
@@ -259,7 +262,7 @@ public class CommentServiceImplTest {
         assertEquals("avatar.jpg", commentResponses.getFirst().getUserProfileImage());
 
         verify(postRepository).findById(postId);
-        verify(commentRepository).findAllByPostId(eq(postId), any(Pageable.class));
+        verify(commentRepository).findResponsesByPostId(eq(postId), any(Pageable.class));
     }
 
     @Test
@@ -271,23 +274,12 @@ public class CommentServiceImplTest {
         Post post = new Post();
         post.setId(postId);
 
-        User user = new User();
-        user.setId(2);
-        UserProfile userProfile = new UserProfile();
-        userProfile.setFullName("John Doe");
-        userProfile.setAvatarUrl("avatar.jpg");
-        user.setUserProfile(userProfile);
-
-        Comment comment = new Comment();
-        comment.setId(1);
-        comment.setPost(post);
-        comment.setUser(user);
-        comment.setContent("Test comment");
-
-        Page<Comment> commentPage = new PageImpl<>(List.of(comment));
+        // One projected row: the comment with the author's profile
+        CommentResponse row = new CommentResponse(1, postId, 2, "John Doe", "avatar.jpg", "Test comment", LocalDateTime.now(), LocalDateTime.now());
+        Page<CommentResponse> commentPage = new PageImpl<>(List.of(row));
 
         when(postRepository.findById(postId)).thenReturn(Optional.of(post));
-        when(commentRepository.findAllByPostId(eq(postId), any(Pageable.class))).thenReturn(commentPage);
+        when(commentRepository.findResponsesByPostId(eq(postId), any(Pageable.class))).thenReturn(commentPage);
 
         Map<String, Object> responses = commentService.getCommentsByPostId(postId, page, size);
 
@@ -300,7 +292,7 @@ public class CommentServiceImplTest {
         assertEquals("avatar.jpg", commentResponses.getFirst().getUserProfileImage());
 
         verify(postRepository).findById(postId);
-        verify(commentRepository).findAllByPostId(eq(postId), any(Pageable.class));
+        verify(commentRepository).findResponsesByPostId(eq(postId), any(Pageable.class));
     }
 
     @Test
@@ -320,24 +312,9 @@ public class CommentServiceImplTest {
         int postId = 2;
         int userId = 3;
 
-        Post post = new Post();
-        post.setId(postId);
-
-        User user = new User();
-        user.setId(userId);
-        UserProfile userProfile = new UserProfile();
-        userProfile.setFullName("Jane Doe");
-        userProfile.setAvatarUrl("profile.jpg");
-        user.setUserProfile(userProfile);
-
-        Comment comment = new Comment();
-        comment.setId(commentId);
-        comment.setPost(post);
-        comment.setUser(user);
-        comment.setContent("This is a test comment.");
-        comment.setCreatedAt(LocalDateTime.now());
-
-        when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
+        CommentResponse row = new CommentResponse(commentId, postId, userId, "Jane Doe", "profile.jpg", "This is a test comment.",
+                LocalDateTime.now(), LocalDateTime.now());
+        when(commentRepository.findResponseById(commentId)).thenReturn(Optional.of(row));
 
         CommentResponse response = commentService.getCommentById(commentId);
 
@@ -349,17 +326,17 @@ public class CommentServiceImplTest {
         assertEquals("profile.jpg", response.getUserProfileImage());
         assertEquals("This is a test comment.", response.getContent());
 
-        verify(commentRepository).findById(commentId);
+        verify(commentRepository).findResponseById(commentId);
     }
 
     @Test
     void getCommentById_CommentNotFound_ShouldThrowException() {
         int commentId = 1;
-        when(commentRepository.findById(commentId)).thenReturn(Optional.empty());
+        when(commentRepository.findResponseById(commentId)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> commentService.getCommentById(commentId));
 
-        verify(commentRepository).findById(commentId);
+        verify(commentRepository).findResponseById(commentId);
     }
 
     @Test
@@ -369,6 +346,7 @@ public class CommentServiceImplTest {
         commentService.deleteComment(10);
 
         verify(commentRepository).delete(comment);
+        verify(postCounterService).addComments(1, -1);
     }
 
     @Test
@@ -393,5 +371,6 @@ public class CommentServiceImplTest {
 
         assertEquals("You are not allowed to delete this comment", exception.getMessage());
         verify(commentRepository, never()).delete((Comment) any());
+        verifyNoInteractions(postCounterService);
     }
 }
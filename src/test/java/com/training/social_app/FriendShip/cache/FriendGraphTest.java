@@ -0,0 +1,91 @@
+package com.training.social_app.FriendShip.cache;
+
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.repository.FriendShipRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class FriendGraphTest {
+    @Mock
+    private FriendShipRepository friendShipRepository;
+
+    @InjectMocks
+    private FriendGraph friendGraph;
+
+    @BeforeEach
+    void setUp() {
+        when(friendShipRepository.findAcceptedPairs()).thenReturn(List.of(
+                new Object[]{1, 3},
+                new Object[]{2, 1},
+                new Object[]{3, 2}
+        ));
+        friendGraph.load();
+    }
+
+    @Test
+    void load_ShouldBuildSortedSymmetricAdjacency() {
+        assertArrayEquals(new int[]{2, 3}, friendGraph.friendsOf(1));
+        assertArrayEquals(new int[]{1, 3}, friendGraph.friendsOf(2));
+        assertArrayEquals(new int[]{1, 2}, friendGraph.friendsOf(3));
+        assertEquals(0, friendGraph.friendsOf(99).length);
+        assertTrue(friendGraph.areFriends(2, 1));
+        assertFalse(friendGraph.areFriends(1, 99));
+    }
+
+    @Test
+    void mutualFriends_ShouldIntersectSortedFriendLists() {
+        friendGraph.link(4, 2);
+        friendGraph.link(4, 3);
+
+        assertArrayEquals(new int[]{2, 3}, friendGraph.mutualFriends(1, 4));
+        assertEquals(2, friendGraph.mutualCount(4, 1));
+        assertEquals(0, friendGraph.mutualCount(1, 99));
+    }
+
+    @Test
+    void mutualCounts_ShouldFollowCandidateOrder() {
+        friendGraph.link(4, 2);
+
+        assertArrayEquals(new int[]{1, 1, 0}, friendGraph.mutualCounts(1, new int[]{4, 3, 99}));
+        assertEquals(0, friendGraph.mutualCounts(1, new int[0]).length);
+    }
+
+    @Test
+    void link_ShouldAddEdgeInBothDirections() {
+        friendGraph.link(4, 1);
+
+        assertArrayEquals(new int[]{2, 3, 4}, friendGraph.friendsOf(1));
+        assertArrayEquals(new int[]{1}, friendGraph.friendsOf(4));
+    }
+
+    @Test
+    void unlink_ShouldRemoveEdgeInBothDirections() {
+        int[] before = friendGraph.friendsOf(1);
+
+        friendGraph.unlink(1, 2);
+
+        assertArrayEquals(new int[]{3}, friendGraph.friendsOf(1));
+        assertArrayEquals(new int[]{3}, friendGraph.friendsOf(2));
+        // Snapshots handed out earlier are not modified
+        assertArrayEquals(new int[]{2, 3}, before);
+    }
+
+    @Test
+    void removeUser_ShouldDropUserAndIncomingEdges() {
+        friendGraph.removeUser(3);
+
+        assertEquals(0, friendGraph.degree(3));
+        assertArrayEquals(new int[]{2}, friendGraph.friendsOf(1));
+        assertArrayEquals(new int[]{1}, friendGraph.friendsOf(2));
+    }
+}
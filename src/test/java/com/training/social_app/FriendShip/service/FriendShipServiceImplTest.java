@@ -0,0 +1,171 @@
+package com.training.social_app.FriendShip.service;
+
+import com.training.social_app.cache.AuthorCard;
+import com.training.social_app.cache.AuthorCardCache;
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.dto.response.UserDto;
+import com.training.social_app.dto.response.UserResponse;
+import com.training.social_app.entity.FriendShip;
+import com.training.social_app.entity.User;
+import com.training.social_app.enums.RequestStatus;
+import com.training.social_app.repository.FriendShipRepository;
+import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.FriendSuggestionService;
+import com.training.social_app.service.TimelineService;
+import com.training.social_app.service.impl.FriendShipServiceImpl;
+import com.training.social_app.utils.PageCursor;
+import com.training.social_app.utils.UserContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FriendShipServiceImplTest {
+    @Mock
+    private FriendShipRepository friendShipRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TimelineService timelineService;
+
+    @Mock
+    private FriendGraph friendGraph;
+
+    @Mock
+    private FriendSuggestionService friendSuggestionService;
+
+    @Mock
+    private AuthorCardCache authorCardCache;
+
+    @InjectMocks
+    private FriendShipServiceImpl friendShipService;
+
+    private static MockedStatic<UserContext> mockedUserContext;
+
+    @BeforeAll
+    static void init() {
+        mockedUserContext = mockStatic(UserContext.class);
+        mockedUserContext.when(UserContext::getCurrentUserId).thenCallRealMethod();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mockedUserContext.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        User viewer = new User();
+        viewer.setId(1);
+        mockedUserContext.when(UserContext::getUser).thenReturn(new UserDto(viewer));
+    }
+
+    private void stubCards() {
+        when(authorCardCache.getAll(anyCollection())).thenAnswer(invocation -> {
+            Map<Integer, AuthorCard> cards = new LinkedHashMap<>();
+            for (Integer id : (List<Integer>) invocation.getArgument(0)) {
+                cards.put(id, new AuthorCard(id, "User " + id, null));
+            }
+            return cards;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UserResponse> friends(Map<String, Object> response) {
+        return (List<UserResponse>) response.get("listFriends");
+    }
+
+    @Test
+    void getFriends_ShouldTakeNamesFromTheAuthorCards() {
+        when(friendGraph.friendsOf(1)).thenReturn(new int[]{2, 3, 4});
+        when(userRepository.findPageOfIds(eq(List.of(2, 3, 4)), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(4, 2), PageRequest.of(0, 2), 3));
+        stubCards();
+
+        Map<String, Object> response = friendShipService.getFriends(1, 2);
+
+        assertEquals(List.of(4, 2), friends(response).stream().map(UserResponse::getId).toList());
+        assertEquals(List.of("User 4", "User 2"), friends(response).stream().map(UserResponse::getFullName).toList());
+        assertEquals(2, response.get("totalPage"));
+        verify(authorCardCache, times(1)).getAll(List.of(4, 2));
+    }
+
+    @Test
+    void getFriendsAfter_ShouldTakeNamesFromTheAuthorCardsAndCursorFromTheLastRow() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(friendGraph.friendsOf(1)).thenReturn(new int[]{2, 3});
+        when(userRepository.findIdsAfter(eq(List.of(2, 3)), any(LocalDateTime.class), any(Integer.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.<Object[]>of(new Object[]{3, updatedAt}), PageRequest.of(0, 1), true));
+        stubCards();
+
+        Map<String, Object> response = friendShipService.getFriendsAfter(null, 1);
+
+        assertEquals(List.of("User 3"), friends(response).stream().map(UserResponse::getFullName).toList());
+        assertEquals(PageCursor.of(updatedAt, 3).encode(), response.get("nextCursor"));
+    }
+
+    private FriendShip friendShip(Integer id, RequestStatus status) {
+        FriendShip friendShip = new FriendShip();
+        friendShip.setId(id);
+        friendShip.setStatus(status);
+        return friendShip;
+    }
+
+    @Test
+    void backfillCanonicalPairs_DuplicateOfPendingPair_ShouldKeepTheAcceptedRow() {
+        // 1 and 2 asked each other before the pair key existed; 2's request was accepted
+        when(friendShipRepository.findRowsWithoutCanonicalPair()).thenReturn(List.of(
+                new Object[]{10, 1, 2, "PENDING"}, new Object[]{11, 2, 1, "ACCEPTED"}));
+        when(friendShipRepository.setCanonicalPair(10, 1, 2)).thenReturn(1);
+        when(friendShipRepository.setCanonicalPair(11, 1, 2))
+                .thenThrow(new DataIntegrityViolationException("uk_friendships_pair"))
+                .thenReturn(1);
+        when(friendShipRepository.findByUserLowIdAndUserHighId(1, 2)).thenReturn(Optional.of(friendShip(10, RequestStatus.PENDING)));
+
+        friendShipService.backfillCanonicalPairs();
+
+        verify(friendShipRepository).deleteById(10);
+        verify(friendShipRepository, never()).deleteById(11);
+        verify(friendShipRepository, times(2)).setCanonicalPair(11, 1, 2);
+    }
+
+    @Test
+    void backfillCanonicalPairs_DuplicateOfAcceptedPair_ShouldDeleteTheDuplicate() {
+        when(friendShipRepository.findRowsWithoutCanonicalPair()).thenReturn(List.of(
+                new Object[]{10, 1, 2, "ACCEPTED"}, new Object[]{11, 2, 1, "ACCEPTED"}));
+        when(friendShipRepository.setCanonicalPair(10, 1, 2)).thenReturn(1);
+        when(friendShipRepository.setCanonicalPair(11, 1, 2)).thenThrow(new DataIntegrityViolationException("uk_friendships_pair"));
+        when(friendShipRepository.findByUserLowIdAndUserHighId(1, 2)).thenReturn(Optional.of(friendShip(10, RequestStatus.ACCEPTED)));
+
+        friendShipService.backfillCanonicalPairs();
+
+        verify(friendShipRepository).setCanonicalPair(10, 1, 2);
+        verify(friendShipRepository).deleteById(11);
+        verify(friendShipRepository, never()).deleteById(10);
+    }
+}
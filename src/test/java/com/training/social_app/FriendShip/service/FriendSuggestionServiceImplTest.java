@@ -0,0 +1,184 @@
+package com.training.social_app.FriendShip.service;
+
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.dto.response.UserDto;
+import com.training.social_app.dto.response.UserResponse;
+import com.training.social_app.entity.User;
+import com.training.social_app.repository.FriendShipRepository;
+import com.training.social_app.repository.UserProfileRepository;
+import com.training.social_app.service.impl.FriendSuggestionServiceImpl;
+import com.training.social_app.utils.UserContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FriendSuggestionServiceImplTest {
+    @Mock
+    private FriendShipRepository friendShipRepository;
+
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    private FriendGraph friendGraph;
+
+    private FriendSuggestionServiceImpl friendSuggestionService;
+
+    private static MockedStatic<UserContext> mockedUserContext;
+
+    @BeforeAll
+    static void init() {
+        mockedUserContext = mockStatic(UserContext.class);
+        mockedUserContext.when(UserContext::getCurrentUserId).thenCallRealMethod();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mockedUserContext.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // 1 is friends with 2 and 3; 4 is a friend of both, 5 and 7 of 2 only, 6 of 3 only
+        when(friendShipRepository.findAcceptedPairs()).thenReturn(List.of(
+                new Object[]{1, 2}, new Object[]{1, 3}, new Object[]{2, 3},
+                new Object[]{2, 4}, new Object[]{3, 4}, new Object[]{2, 5},
+                new Object[]{3, 6}, new Object[]{2, 7}
+        ));
+        friendGraph = new FriendGraph(friendShipRepository);
+        friendGraph.load();
+        lenient().when(friendShipRepository.findPendingCounterpartIds(anyInt())).thenReturn(List.of());
+        when(userProfileRepository.findAllLocationsAndOccupations()).thenReturn(List.of(
+                new Object[]{1, "Hanoi", "Engineer"},
+                new Object[]{5, " hanoi ", null},
+                new Object[]{7, null, "engineer"}
+        ));
+        friendSuggestionService = new FriendSuggestionServiceImpl(friendGraph, friendShipRepository, userProfileRepository);
+        ReflectionTestUtils.setField(friendSuggestionService, "topN", 20);
+        ReflectionTestUtils.setField(friendSuggestionService, "batchSize", 500);
+        friendSuggestionService.load();
+
+        User viewer = new User();
+        viewer.setId(1);
+        mockedUserContext.when(UserContext::getUser).thenReturn(new UserDto(viewer));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Integer> stale() {
+        return (Set<Integer>) ReflectionTestUtils.getField(friendSuggestionService, "stale");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UserResponse> suggestions(int size) {
+        return (List<UserResponse>) friendSuggestionService.getSuggestions(size).get("listSuggestions");
+    }
+
+    private void stubProfiles() {
+        when(userProfileRepository.findNamesAndAvatarsByUserIds(anyCollection())).thenAnswer(invocation ->
+                ((List<Integer>) invocation.getArgument(0)).stream()
+                        .map(id -> new Object[]{id, "User " + id, null})
+                        .toList());
+    }
+
+    @Test
+    void getSuggestions_ShouldRankByMutualFriendsThenLocationThenOccupation() {
+        when(friendShipRepository.findPendingCounterpartIds(1)).thenReturn(List.of(6));
+        friendSuggestionService.recomputeStale();
+        stubProfiles();
+
+        List<UserResponse> suggestions = suggestions(10);
+
+        // 4 has two mutual friends; 5 shares the location, 7 the occupation; 6 has a pending request
+        // and 2, 3 are already friends
+        assertEquals(List.of(4, 5, 7), suggestions.stream().map(UserResponse::getId).toList());
+        assertEquals(List.of(2, 1, 1), suggestions.stream().map(UserResponse::getMutualFriendCount).toList());
+        assertEquals(List.of(4), suggestions(1).stream().map(UserResponse::getId).toList());
+    }
+
+    @Test
+    void getSuggestions_InvalidSize_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> friendSuggestionService.getSuggestions(0));
+        assertThrows(IllegalArgumentException.class, () -> friendSuggestionService.getSuggestions(-5));
+    }
+
+    @Test
+    void getSuggestions_SizeAboveTopN_ShouldBeClamped() {
+        ReflectionTestUtils.setField(friendSuggestionService, "topN", 2);
+        friendSuggestionService.recomputeStale();
+        stubProfiles();
+
+        Map<String, Object> response = friendSuggestionService.getSuggestions(Integer.MAX_VALUE);
+
+        assertEquals(2, response.get("pageSize"));
+        assertEquals(2, ((List<?>) response.get("listSuggestions")).size());
+    }
+
+    @Test
+    void getSuggestions_BecameFriendsSinceRecompute_ShouldSkipThem() {
+        friendSuggestionService.recomputeStale();
+        stubProfiles();
+        friendGraph.link(1, 4);
+
+        assertFalse(suggestions(10).stream().anyMatch(user -> user.getId() == 4));
+    }
+
+    @Test
+    void getSuggestions_NeverComputed_ShouldReturnNothingAndMarkStale() {
+        User newcomer = new User();
+        newcomer.setId(99);
+        mockedUserContext.when(UserContext::getUser).thenReturn(new UserDto(newcomer));
+        friendSuggestionService.recomputeStale();
+
+        Map<String, Object> response = friendSuggestionService.getSuggestions(10);
+
+        assertEquals(List.of(), response.get("listSuggestions"));
+        assertEquals(Set.of(99), stale());
+        verify(userProfileRepository, never()).findNamesAndAvatarsByUserIds(anyCollection());
+    }
+
+    @Test
+    void friendshipChanged_ShouldMarkBothUsersAndTheirFriendsStale() {
+        friendSuggestionService.recomputeStale();
+
+        friendSuggestionService.friendshipChanged(4, 6);
+
+        assertEquals(Set.of(4, 6, 2, 3), stale());
+    }
+
+    @Test
+    void requestChanged_ShouldMarkOnlyThatUserStale() {
+        friendSuggestionService.recomputeStale();
+
+        friendSuggestionService.requestChanged(5);
+
+        assertEquals(Set.of(5), stale());
+    }
+
+    @Test
+    void recomputeStale_ShouldWorkInBatches() {
+        ReflectionTestUtils.setField(friendSuggestionService, "batchSize", 3);
+        assertEquals(7, stale().size());
+
+        friendSuggestionService.recomputeStale();
+        assertEquals(4, stale().size());
+
+        friendSuggestionService.recomputeStale();
+        friendSuggestionService.recomputeStale();
+        assertTrue(stale().isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package com.training.social_app.Job.service;
+
+import com.training.social_app.dto.response.JobResponse;
+import com.training.social_app.dto.response.UserDto;
+import com.training.social_app.entity.User;
+import com.training.social_app.enums.JobStatus;
+import com.training.social_app.enums.Role;
+import com.training.social_app.exception.ServiceBusyException;
+import com.training.social_app.exception.UserForbiddenException;
+import com.training.social_app.service.impl.JobServiceImpl;
+import com.training.social_app.utils.UserContext;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class JobServiceImplTest {
+    private JobServiceImpl jobService;
+
+    private MockedStatic<UserContext> userContextMock;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jobService = new JobServiceImpl(1, 1, 60);
+        user = new User();
+        user.setId(1);
+        user.setRole(Role.ADMIN);
+        userContextMock = mockStatic(UserContext.class);
+        userContextMock.when(UserContext::getUser).thenReturn(new UserDto(user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userContextMock.close();
+        jobService.shutdown();
+    }
+
+    private JobResponse awaitEnd(String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            JobResponse job = jobService.findById(jobId);
+            if (job.getFinishedAt() != null) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job did not finish");
+    }
+
+    @Test
+    void submit_ShouldRunTheTaskAndReportProgress() throws InterruptedException {
+        JobResponse submitted = jobService.submit("delete-posts", 3, progress -> {
+            progress.accept(2);
+            progress.accept(1);
+        });
+
+        JobResponse job = awaitEnd(submitted.getId());
+        assertEquals(JobStatus.SUCCEEDED, job.getStatus());
+        assertEquals(3, job.getProcessed());
+        assertEquals("delete-posts", job.getType());
+        assertEquals(1, jobService.findAll().size());
+    }
+
+    @Test
+    void submit_FailingTask_ShouldKeepTheProgressMade() throws InterruptedException {
+        JobResponse submitted = jobService.submit("delete-users", 4, progress -> {
+            progress.accept(2);
+            throw new IllegalStateException("Lock wait timeout");
+        });
+
+        JobResponse job = awaitEnd(submitted.getId());
+        assertEquals(JobStatus.FAILED, job.getStatus());
+        assertEquals(2, job.getProcessed());
+        assertEquals("Lock wait timeout", job.getError());
+    }
+
+    @Test
+    void submit_FullQueue_ShouldThrowServiceBusy() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        jobService.submit("delete-posts", 1, progress -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        jobService.submit("delete-posts", 1, progress -> {
+        });
+
+        assertThrows(ServiceBusyException.class, () -> jobService.submit("delete-posts", 1, progress -> {
+        }));
+        release.countDown();
+    }
+
+    @Test
+    void findById_ShouldCheckRoleAndExistence() {
+        assertThrows(EntityNotFoundException.class, () -> jobService.findById("missing"));
+
+        user.setRole(Role.USER);
+        assertThrows(UserForbiddenException.class, () -> jobService.findAll());
+    }
+}
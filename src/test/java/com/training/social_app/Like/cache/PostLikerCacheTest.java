@@ -0,0 +1,101 @@
+package com.training.social_app.Like.cache;
+
+import com.training.social_app.cache.PostLikerCache;
+import com.training.social_app.repository.LikeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PostLikerCacheTest {
+    @Mock
+    private LikeRepository likeRepository;
+
+    private PostLikerCache postLikerCache;
+
+    @BeforeEach
+    void setUp() {
+        // At most 5 cached ids in total and 3 per post
+        postLikerCache = new PostLikerCache(likeRepository, 5, 3, 300);
+    }
+
+    @Test
+    void likersAmong_ShouldLoadOnceAndFilterTheGivenIds() {
+        when(likeRepository.findUserIdsByPostId(eq(1), any(Pageable.class))).thenReturn(List.of(7, 3, 5));
+
+        assertArrayEquals(new int[]{3, 7}, postLikerCache.likersAmong(1, new int[]{1, 3, 7, 9}));
+        assertArrayEquals(new int[]{5}, postLikerCache.likersAmong(1, new int[]{5}));
+
+        verify(likeRepository, times(1)).findUserIdsByPostId(eq(1), any(Pageable.class));
+    }
+
+    @Test
+    void addedAndRemoved_ShouldUpdateCachedSetOnly() {
+        when(likeRepository.findUserIdsByPostId(eq(1), any(Pageable.class))).thenReturn(List.of(3));
+        postLikerCache.likersAmong(1, new int[]{3});
+
+        postLikerCache.added(1, 4);
+        postLikerCache.removed(1, 3);
+        // Not cached: nothing to update
+        postLikerCache.added(2, 4);
+
+        assertArrayEquals(new int[]{4}, postLikerCache.likersAmong(1, new int[]{3, 4}));
+        verify(likeRepository, never()).findUserIdsByPostId(eq(2), any(Pageable.class));
+    }
+
+    @Test
+    void likersAmong_PostWithTooManyLikers_ShouldLookUpOnlyTheGivenIds() {
+        when(likeRepository.findUserIdsByPostId(eq(1), any(Pageable.class))).thenReturn(List.of(1, 2, 3, 4));
+        when(likeRepository.findUserIdsByPostIdAndUserIdIn(1, List.of(2, 9))).thenReturn(List.of(2));
+
+        assertArrayEquals(new int[]{2}, postLikerCache.likersAmong(1, new int[]{2, 9}));
+        assertArrayEquals(new int[]{2}, postLikerCache.likersAmong(1, new int[]{2, 9}));
+
+        // The full set is not loaded again until the TTL
+        verify(likeRepository, times(1)).findUserIdsByPostId(eq(1), any(Pageable.class));
+    }
+
+    @Test
+    void likersAmong_OverTotalIds_ShouldEvictLeastRecentlyUsedPost() {
+        when(likeRepository.findUserIdsByPostId(eq(1), any(Pageable.class))).thenReturn(List.of(1, 2, 3));
+        when(likeRepository.findUserIdsByPostId(eq(2), any(Pageable.class))).thenReturn(List.of(4, 5, 6));
+
+        postLikerCache.likersAmong(1, new int[]{1});
+        postLikerCache.likersAmong(2, new int[]{4});
+        postLikerCache.likersAmong(1, new int[]{1});
+
+        verify(likeRepository, times(2)).findUserIdsByPostId(eq(1), any(Pageable.class));
+    }
+
+    @Test
+    void evict_ShouldReloadDeletedPostsOnly() {
+        when(likeRepository.findUserIdsByPostId(eq(1), any(Pageable.class))).thenReturn(List.of(1));
+        when(likeRepository.findUserIdsByPostId(eq(2), any(Pageable.class))).thenReturn(List.of(2));
+        postLikerCache.likersAmong(1, new int[]{1});
+        postLikerCache.likersAmong(2, new int[]{2});
+
+        postLikerCache.evict(List.of(1));
+        postLikerCache.likersAmong(1, new int[]{1});
+        postLikerCache.likersAmong(2, new int[]{2});
+
+        verify(likeRepository, times(2)).findUserIdsByPostId(eq(1), any(Pageable.class));
+        verify(likeRepository, times(1)).findUserIdsByPostId(eq(2), any(Pageable.class));
+    }
+
+    @Test
+    void likersAmong_NoIds_ShouldNotLoad() {
+        assertArrayEquals(new int[0], postLikerCache.likersAmong(1, new int[0]));
+
+        verifyNoInteractions(likeRepository);
+    }
+}
@@ -87,21 +87,55 @@ class LikeControllerTest {
         verify(likeService, times(1)).likePost(1);
     }
 
+    @Test
+    void like_ValidPostId_ShouldReturnSuccessResponse() {
+        mockLikeResponse.setLiked(true);
+        when(likeService.like(1)).thenReturn(mockLikeResponse);
+
+        ResponseEntity<Object> response = likeController.like("1");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(Objects.requireNonNull(response.getBody()).toString().contains("Post liked successfully"));
+        verify(likeService, times(1)).like(1);
+        verify(likeService, never()).likePost(anyInt());
+    }
+
+    @Test
+    void unlike_ValidPostId_ShouldReturnSuccessResponse() {
+        mockLikeResponse.setLiked(false);
+        when(likeService.unlike(1)).thenReturn(mockLikeResponse);
+
+        ResponseEntity<Object> response = likeController.unlike("1");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(Objects.requireNonNull(response.getBody()).toString().contains("Post unliked successfully"));
+        verify(likeService, times(1)).unlike(1);
+    }
+
+    @Test
+    void unlike_PostNotFound_ShouldReturnNotFound() {
+        when(likeService.unlike(1)).thenThrow(new EntityNotFoundException("Post not found"));
+
+        ResponseEntity<Object> response = likeController.unlike("1");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
     @Test
     void getLikesForPost_InvalidPostId_ShouldReturnBadRequest() {
-        ResponseEntity<Object> response = likeController.getLikesForPost("abc", 1, 10);
+        ResponseEntity<Object> response = likeController.getLikesForPost("abc", 1, 10, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     @Test
     void getLikesForPost_PostIdLessThanOrEqualZero_ShouldReturnBadRequest() {
-        ResponseEntity<Object> response = likeController.getLikesForPost("0",1, 10);
+        ResponseEntity<Object> response = likeController.getLikesForPost("0", 1, 10, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(Objects.requireNonNull(response.getBody()).toString().contains("Post id must be greater than 0"));
 
-        response = likeController.getLikesForPost("-1",1,10);
+        response = likeController.getLikesForPost("-1", 1, 10, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(Objects.requireNonNull(response.getBody()).toString().contains("Post id must be greater than 0"));
@@ -117,17 +151,42 @@ class LikeControllerTest {
         );
         when(likeService.getLikesForPost(1, 1, 10)).thenReturn(mockLikeMap);
 
-        ResponseEntity<Object> response = likeController.getLikesForPost("1", 1, 10);
+        ResponseEntity<Object> response = likeController.getLikesForPost("1", 1, 10, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(likeService, times(1)).getLikesForPost(1, 1, 10);
     }
 
+    @Test
+    void getLikesForPost_WithCursor_ShouldUseKeysetPaging() {
+        Map<String, Object> mockLikeMap = Map.of(
+                "listLike", List.of(mockLikeResponse),
+                "pageSize", 10
+        );
+        when(likeService.getLikesForPostAfter(1, "", 10)).thenReturn(mockLikeMap);
+
+        ResponseEntity<Object> response = likeController.getLikesForPost("1", 1, 10, "");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(likeService, times(1)).getLikesForPostAfter(1, "", 10);
+        verify(likeService, never()).getLikesForPost(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getLikesForPost_InvalidCursor_ShouldReturnBadRequest() {
+        when(likeService.getLikesForPostAfter(1, "???", 10)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseEntity<Object> response = likeController.getLikesForPost("1", 1, 10, "???");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(Objects.requireNonNull(response.getBody()).toString().contains("Invalid cursor"));
+    }
+
     @Test
     void getLikesForPost_PostNotFound_ShouldReturnNotFound() {
         when(likeService.getLikesForPost(1, 1, 10)).thenThrow(new EntityNotFoundException("Post not found"));
 
-        ResponseEntity<Object> response = likeController.getLikesForPost("1", 1, 10);
+        ResponseEntity<Object> response = likeController.getLikesForPost("1", 1, 10, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertFalse(Objects.requireNonNull(response.getBody()).toString().contains("Post not found"));
@@ -138,7 +197,7 @@ class LikeControllerTest {
     void getLikesForPost_UnexpectedError_ShouldReturnInternalServerError() {
         when(likeService.getLikesForPost(1, 1, 10)).thenThrow(new RuntimeException("Database error"));
 
-        ResponseEntity<Object> response = likeController.getLikesForPost("1", 1, 10);
+        ResponseEntity<Object> response = likeController.getLikesForPost("1", 1, 10, null);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertTrue(Objects.requireNonNull(response.getBody()).toString().contains("An unexpected error occurred"));
@@ -1,13 +1,16 @@
 package com.training.social_app.Like.service;
 
+import com.training.social_app.cache.AuthorCard;
+import com.training.social_app.cache.AuthorCardCache;
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.cache.PostLikerCache;
 import com.training.social_app.dto.response.LikeResponse;
-import com.training.social_app.entity.Like;
 import com.training.social_app.entity.Post;
 import com.training.social_app.entity.User;
-import com.training.social_app.entity.UserProfile;
 import com.training.social_app.repository.LikeRepository;
 import com.training.social_app.repository.PostRepository;
-import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.LikeWriteBuffer;
+import com.training.social_app.service.PostCounterService;
 import com.training.social_app.service.impl.LikeServiceImpl;
 import com.training.social_app.utils.UserContext;
 import com.training.social_app.dto.response.UserDto;
@@ -20,6 +23,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -38,16 +43,29 @@ public class LikeServiceImplTest {
     private LikeRepository likeRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private PostRepository postRepository;
 
     @Mock
-    private PostRepository postRepository;
+    private PostCounterService postCounterService;
+
+    @Mock
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Mock
+    private PostLikerCache postLikerCache;
+
+    @Mock
+    private FriendGraph friendGraph;
+
+    @Mock
+    private AuthorCardCache authorCardCache;
 
     private static MockedStatic<UserContext> mockedUserContext;
 
     @BeforeAll
     static void init() {
         mockedUserContext = mockStatic(UserContext.class);
+        mockedUserContext.when(UserContext::getCurrentUserId).thenCallRealMethod();
     }
 
     @AfterAll
@@ -66,64 +84,44 @@ public class LikeServiceImplTest {
 
     @Test
     void likePost_PostNotFound_ShouldThrowException() {
-        // Mock user retrieval to ensure getCurrentUserId() succeeds
-        User user = new User();
-        user.setId(1);
-        when(userRepository.findById(anyInt())).thenReturn(Optional.of(user));
-
-        // Mock post retrieval failure
-        when(postRepository.findById(anyInt())).thenReturn(Optional.empty());
+        // Nothing inserted or deleted, and the post does not exist
+        when(likeRepository.insertLike(eq(1), eq(1), any(LocalDateTime.class))).thenReturn(0);
+        when(postRepository.existsById(1)).thenReturn(false);
 
         // Expect EntityNotFoundException when calling likePost()
         assertThrows(EntityNotFoundException.class, () -> likeService.likePost(1));
 
-        // Verify userRepository is called first
-        verify(userRepository).findById(anyInt());
-
-        // Verify postRepository is called once
-        verify(postRepository).findById(anyInt());
+        // The post is only looked up because the insert did nothing
+        verify(postRepository).existsById(1);
+        verify(likeRepository, never()).deleteLike(anyInt(), anyInt());
+        verifyNoInteractions(postCounterService);
     }
 
     @Test
-    void likePost_UserNotFound_ShouldThrowException() {
-        // Mock userRepository to return empty user (triggers EntityNotFoundException)
-        when(userRepository.findById(anyInt())).thenReturn(Optional.empty());
+    void likePost_ExistingLike_ShouldUnlikePost() {
+        // The unique key ignores the insert, so the toggle deletes the like
+        when(likeRepository.insertLike(eq(1), eq(1), any(LocalDateTime.class))).thenReturn(0);
+        when(postRepository.existsById(1)).thenReturn(true);
+        when(likeRepository.deleteLike(1, 1)).thenReturn(1);
 
-        // Expect EntityNotFoundException when calling likePost()
-        assertThrows(EntityNotFoundException.class, () -> likeService.likePost(1));
+        // Call service method
+        LikeResponse response = likeService.likePost(1);
 
-        // Verify userRepository is called once
-        verify(userRepository).findById(anyInt());
+        // Assertions
+        assertNotNull(response);
+        assertEquals(1, response.getPostId());
+        assertEquals(1, response.getUserId());
+        assertFalse(response.getLiked());
 
-        // Ensure postRepository is never called since the user is not found
+        // Verify interactions (the current user id comes from UserContext)
+        verify(likeRepository).deleteLike(1, 1);
+        verify(postCounterService).addLikes(1, -1);
         verify(postRepository, never()).findById(anyInt());
     }
 
     @Test
-    void likePost_ExistingLike_ShouldUnlikePost() {
-        // Create Post
-        Post post = new Post();
-        post.setId(1);
-
-        // Create UserProfile and set properties
-        UserProfile userProfile = new UserProfile();
-        userProfile.setFullName("John Doe");
-        userProfile.setAvatarUrl("avatar.jpg");
-
-        // Create User and associate UserProfile
-        User user = new User();
-        user.setId(1);
-        user.setUserProfile(userProfile); // Ensure UserProfile is not null
-
-        // Create Like object
-        Like like = new Like();
-        like.setPost(post);
-        like.setUser(user);
-
-        // Mock repository responses (allow multiple calls)
-        when(postRepository.findById(anyInt())).thenReturn(Optional.of(post));
-        when(userRepository.findById(anyInt())).thenReturn(Optional.of(user)); // Allow multiple calls
-        when(likeRepository.findByUserIdAndPostId(anyInt(), anyInt())).thenReturn(Optional.of(like));
+    void likePost_NewLike_ShouldSaveLike() {
+        when(likeRepository.insertLike(eq(1), eq(1), any(LocalDateTime.class))).thenReturn(1);
 
         // Call service method
         LikeResponse response = likeService.likePost(1);
@@ -132,59 +130,69 @@ public class LikeServiceImplTest {
         assertNotNull(response);
         assertEquals(1, response.getPostId());
         assertEquals(1, response.getUserId());
-        assertEquals("John Doe", response.getUserFullName());
-        assertEquals("avatar.jpg", response.getUserProfileImage());
+        assertTrue(response.getLiked());
 
-        // Verify interactions (allow 2 calls to userRepository.findById)
-        verify(postRepository).findById(anyInt());
-        verify(userRepository, times(2)).findById(anyInt()); // Expecting 2 invocations
-        verify(likeRepository).findByUserIdAndPostId(anyInt(), anyInt());
-        verify(likeRepository).delete(any(Like.class)); // Ensure the like is deleted
+        // One statement: no lookups and no delete
+        verifyNoInteractions(postRepository);
+        verify(likeRepository, never()).deleteLike(anyInt(), anyInt());
+        verify(postCounterService).addLikes(1, 1);
     }
 
+    @Test
+    void like_AlreadyLiked_ShouldNotChangeCounter() {
+        when(likeRepository.insertLike(eq(1), eq(1), any(LocalDateTime.class))).thenReturn(0);
+        when(postRepository.existsById(1)).thenReturn(true);
+
+        LikeResponse response = likeService.like(1);
+
+        assertTrue(response.getLiked());
+        verify(likeRepository, never()).deleteLike(anyInt(), anyInt());
+        verifyNoInteractions(postCounterService);
+    }
 
     @Test
-    void likePost_NewLike_ShouldSaveLike() {
-        // Create Post
-        Post post = new Post();
-        post.setId(1);
+    void unlike_ExistingLike_ShouldDeleteOnce() {
+        when(likeRepository.deleteLike(1, 1)).thenReturn(1);
+
+        LikeResponse response = likeService.unlike(1);
+
+        assertFalse(response.getLiked());
+        verifyNoInteractions(postRepository);
+        verify(postCounterService).addLikes(1, -1);
+    }
 
-        // Create UserProfile and set properties
-        UserProfile userProfile = new UserProfile();
-        userProfile.setFullName("John Doe");
-        userProfile.setAvatarUrl("avatar.jpg");
+    @Test
+    void unlike_NotLiked_ShouldNotChangeCounter() {
+        when(likeRepository.deleteLike(1, 1)).thenReturn(0);
+        when(postRepository.existsById(1)).thenReturn(true);
 
-        // Create User and associate UserProfile
-        User user = new User();
-        user.setId(1);
-        user.setUserProfile(userProfile); // Ensure UserProfile is not null
+        LikeResponse response = likeService.unlike(1);
 
-        // Create Like object
-        Like like = new Like();
-        like.setPost(post);
-        like.setUser(user);
+        assertFalse(response.getLiked());
+        verifyNoInteractions(postCounterService);
+    }
 
-        // Mock repository responses (allow multiple calls)
-        when(postRepository.findById(anyInt())).thenReturn(Optional.of(post));
-        when(userRepository.findById(anyInt())).thenReturn(Optional.of(user)); // Allow multiple calls
-        when(likeRepository.findByUserIdAndPostId(anyInt(), anyInt())).thenReturn(Optional.empty());
-        when(likeRepository.save(any(Like.class))).thenReturn(like);
+    @Test
+    void likePost_WriteBehind_ShouldOnlySubmitToBuffer() {
+        when(likeWriteBuffer.isEnabled()).thenReturn(true);
+        when(postRepository.existsById(1)).thenReturn(true);
+        when(likeWriteBuffer.submit(1, 1, null)).thenReturn(true);
 
-        // Call service method
         LikeResponse response = likeService.likePost(1);
 
-        // Assertions
-        assertNotNull(response);
-        assertEquals(1, response.getPostId());
-        assertEquals(1, response.getUserId());
-        assertEquals("John Doe", response.getUserFullName());
-        assertEquals("avatar.jpg", response.getUserProfileImage());
+        assertTrue(response.getLiked());
+        // The buffer writes the like and adjusts the counter later
+        verifyNoInteractions(likeRepository, postCounterService);
+    }
+
+    @Test
+    void like_WriteBehind_PostNotFound_ShouldThrowWithoutSubmitting() {
+        when(likeWriteBuffer.isEnabled()).thenReturn(true);
+        when(postRepository.existsById(1)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () -> likeService.like(1));
 
-        // Verify interactions (allow 2 calls to userRepository.findById)
-        verify(postRepository).findById(anyInt());
-        verify(userRepository, times(2)).findById(anyInt()); // Expecting 2 invocations
-        verify(likeRepository).findByUserIdAndPostId(anyInt(), anyInt());
-        verify(likeRepository).save(any(Like.class));
+        verify(likeWriteBuffer, never()).submit(anyInt(), anyInt(), any());
     }
 
     @Test
@@ -194,28 +202,17 @@ public class LikeServiceImplTest {
         int size = 10;
         int userId = 2;
 
-        // Create Post
         Post post = new Post();
         post.setId(postId);
 
-        // Create User
-        User user = new User();
-        user.setId(userId);
-        UserProfile userProfile = new UserProfile();
-        userProfile.setFullName("John Doe");
-        userProfile.setAvatarUrl("avatar.jpg");
-        user.setUserProfile(userProfile);
-
-        // Create Like
-        Like like = new Like();
-        like.setId(1);
-        like.setPost(post);
-        like.setUser(user); // Set the user to prevent NPE
-
-        Page<Like> likePage = new PageImpl<>(List.of(like));
+        // One projected row: the like with the liker's profile
+        LikeResponse row = new LikeResponse(1, postId, userId, "John Doe", "avatar.jpg", LocalDateTime.now());
+        Page<LikeResponse> likePage = new PageImpl<>(List.of(row));
 
         when(postRepository.findById(postId)).thenReturn(Optional.of(post));
-        when(likeRepository.findByPostId(eq(postId), any(Pageable.class))).thenReturn(likePage);
+        when(likeRepository.findResponsesByPostId(eq(postId), any(Pageable.class))).thenReturn(likePage);
+        when(friendGraph.friendsOf(1)).thenReturn(new int[0]);
+        when(postLikerCache.likersAmong(postId, new int[0])).thenReturn(new int[0]);
 
         Map<String, Object> responses = likeService.getLikesForPost(postId, page, size);
 
@@ -229,7 +226,7 @@ public class LikeServiceImplTest {
         assertEquals("avatar.jpg", likeResponses.getFirst().getUserProfileImage());
 
         verify(postRepository).findById(postId);
-        verify(likeRepository).findByPostId(eq(postId), any(Pageable.class));
+        verify(likeRepository).findResponsesByPostId(eq(postId), any(Pageable.class));
     }
 
     @Test
@@ -242,22 +239,13 @@ public class LikeServiceImplTest {
         Post post = new Post();
         post.setId(postId);
 
-        User user = new User();
-        user.setId(userId);
-        UserProfile userProfile = new UserProfile();
-        userProfile.setFullName("John Doe");
-        userProfile.setAvatarUrl("avatar.jpg");
-        user.setUserProfile(userProfile);
-
-        Like like = new Like();
-        like.setId(1);
-        like.setPost(post);
-        like.setUser(user);
-
-        Page<Like> likePage = new PageImpl<>(List.of(like));
+        LikeResponse row = new LikeResponse(1, postId, userId, "John Doe", "avatar.jpg", LocalDateTime.now());
+        Page<LikeResponse> likePage = new PageImpl<>(List.of(row));
 
         when(postRepository.findById(postId)).thenReturn(Optional.of(post));
-        when(likeRepository.findByPostId(eq(postId), any(Pageable.class))).thenReturn(likePage);
+        when(likeRepository.findResponsesByPostId(eq(postId), any(Pageable.class))).thenReturn(likePage);
+        when(friendGraph.friendsOf(1)).thenReturn(new int[0]);
+        when(postLikerCache.likersAmong(postId, new int[0])).thenReturn(new int[0]);
 
         Map<String, Object> responses = likeService.getLikesForPost(postId, page, size);
 
@@ -266,7 +254,43 @@ public class LikeServiceImplTest {
         assertEquals(1, likeResponses.size());
 
         verify(postRepository).findById(postId);
-        verify(likeRepository).findByPostId(eq(postId), any(Pageable.class));
+        verify(likeRepository).findResponsesByPostId(eq(postId), any(Pageable.class));
+    }
+
+    @Test
+    void getLikesForPost_FirstPage_ShouldSummarizeFriendLikers() {
+        int postId = 1;
+        Post post = new Post();
+        post.setId(postId);
+        post.setLikeCount(1200);
+        when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        when(likeRepository.findResponsesByPostId(eq(postId), any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+        // 1205 likers counting the unflushed ones, two of them friends of the viewer
+        when(postCounterService.pending(List.of(postId))).thenReturn(Map.of(postId, new long[]{5, 0}));
+        when(friendGraph.friendsOf(1)).thenReturn(new int[]{5, 9, 5000});
+        when(postLikerCache.likersAmong(postId, new int[]{5, 9, 5000})).thenReturn(new int[]{5, 9});
+        Map<Integer, AuthorCard> cards = new LinkedHashMap<>();
+        cards.put(5, new AuthorCard(5, "Alice", null));
+        cards.put(9, new AuthorCard(9, "Bob", "bob.jpg"));
+        when(authorCardCache.getAll(List.of(5, 9))).thenReturn(cards);
+
+        Map<String, Object> responses = likeService.getLikesForPost(postId, 1, 10);
+
+        assertEquals(1205, responses.get("totalLikes"));
+        assertEquals(2, ((List<?>) responses.get("likedByFriends")).size());
+        assertEquals("Liked by Alice, Bob and 1,203 others", responses.get("likedBySummary"));
+    }
+
+    @Test
+    void getLikesForPost_LaterPage_ShouldNotSummarize() {
+        int postId = 1;
+        when(postRepository.findById(postId)).thenReturn(Optional.of(new Post()));
+        when(likeRepository.findResponsesByPostId(eq(postId), any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+
+        Map<String, Object> responses = likeService.getLikesForPost(postId, 2, 10);
+
+        assertFalse(responses.containsKey("likedBySummary"));
+        verifyNoInteractions(postLikerCache, friendGraph);
     }
 
     @Test
@@ -276,7 +300,7 @@ public class LikeServiceImplTest {
         int size = 10;
 
         when(postRepository.findById(postId)).thenReturn(Optional.of(new Post()));
-        when(likeRepository.findByPostId(eq(postId), any(Pageable.class)))
+        when(likeRepository.findResponsesByPostId(eq(postId), any(Pageable.class)))
                 .thenThrow(new RuntimeException("Database error"));  // Force exception
 
         Map<String, Object> responses = likeService.getLikesForPost(postId, page, size);
@@ -284,7 +308,7 @@ public class LikeServiceImplTest {
         assertNull(responses);  // Expect null due to exception handling
 
         verify(postRepository).findById(postId);
-        verify(likeRepository).findByPostId(eq(postId), any(Pageable.class));
+        verify(likeRepository).findResponsesByPostId(eq(postId), any(Pageable.class));
     }
 
     @Test
@@ -304,25 +328,8 @@ public class LikeServiceImplTest {
         int postId = 2;
         int userId = 3;
 
-        // Create Post
-        Post post = new Post();
-        post.setId(postId);
-
-        // Create User
-        User user = new User();
-        user.setId(userId);
-        UserProfile userProfile = new UserProfile();
-        userProfile.setFullName("John Doe");
-        userProfile.setAvatarUrl("avatar.jpg");
-        user.setUserProfile(userProfile);
-
-        // Create Like
-        Like like = new Like();
-        like.setId(likeId);
-        like.setPost(post);
-        like.setUser(user);
-
-        when(likeRepository.findById(likeId)).thenReturn(Optional.of(like));
+        LikeResponse row = new LikeResponse(likeId, postId, userId, "John Doe", "avatar.jpg", LocalDateTime.now());
+        when(likeRepository.findResponseById(likeId)).thenReturn(Optional.of(row));
 
         LikeResponse response = likeService.getLikeById(likeId);
 
@@ -333,16 +340,16 @@ public class LikeServiceImplTest {
         assertEquals("John Doe", response.getUserFullName());
         assertEquals("avatar.jpg", response.getUserProfileImage());
 
-        verify(likeRepository).findById(likeId);
+        verify(likeRepository).findResponseById(likeId);
     }
 
     @Test
     void getLikeById_LikeNotFound_ShouldThrowException() {
         int likeId = 1;
-        when(likeRepository.findById(likeId)).thenReturn(Optional.empty());
+        when(likeRepository.findResponseById(likeId)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> likeService.getLikeById(likeId));
 
-        verify(likeRepository).findById(likeId);
+        verify(likeRepository).findResponseById(likeId);
     }
 }
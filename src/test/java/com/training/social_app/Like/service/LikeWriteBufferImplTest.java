@@ -0,0 +1,140 @@
+package com.training.social_app.Like.service;
+
+import com.training.social_app.cache.PostLikerCache;
+import com.training.social_app.service.PostCounterService;
+import com.training.social_app.service.impl.LikeWriteBufferImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LikeWriteBufferImplTest {
+
+    @InjectMocks
+    private LikeWriteBufferImpl likeWriteBuffer;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PostCounterService postCounterService;
+
+    @Mock
+    private PostLikerCache postLikerCache;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(likeWriteBuffer, "enabled", true);
+        ReflectionTestUtils.setField(likeWriteBuffer, "batchSize", 1000);
+        ReflectionTestUtils.setField(likeWriteBuffer, "flushIntervalMs", 200L);
+        ReflectionTestUtils.setField(likeWriteBuffer, "maxBackoffMs", 30000L);
+    }
+
+    @Test
+    void submit_RepeatedToggles_ShouldCoalesceAndReadLikerCacheOnce() {
+        when(postLikerCache.contains(10, 1)).thenReturn(false);
+
+        assertTrue(likeWriteBuffer.submit(1, 10, null));
+        assertFalse(likeWriteBuffer.submit(1, 10, null));
+        assertTrue(likeWriteBuffer.submit(1, 10, true));
+        // Liking again changes nothing
+        assertTrue(likeWriteBuffer.submit(1, 10, true));
+
+        verify(postLikerCache, times(1)).contains(10, 1);
+        verify(postCounterService, times(2)).addLikes(10, 1);
+        verify(postCounterService, times(1)).addLikes(10, -1);
+        verify(postLikerCache, times(2)).added(10, 1);
+        verify(postLikerCache, times(1)).removed(10, 1);
+        assertEquals(Map.of(10, true), likeWriteBuffer.pendingStates(1, List.of(10, 11)));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void submit_AlreadyLiked_ShouldChangeNothing() {
+        when(postLikerCache.contains(10, 1)).thenReturn(true);
+
+        assertTrue(likeWriteBuffer.submit(1, 10, true));
+
+        verifyNoInteractions(postCounterService);
+        assertTrue(likeWriteBuffer.pendingStates(1, List.of(10)).isEmpty());
+    }
+
+    @Test
+    void flush_ShouldWriteOneBatchPerKindAndClearPending() {
+        when(postLikerCache.contains(anyInt(), anyInt())).thenReturn(false);
+        when(postLikerCache.contains(10, 2)).thenReturn(true);
+        likeWriteBuffer.submit(1, 10, true);
+        likeWriteBuffer.submit(3, 10, true);
+        likeWriteBuffer.submit(2, 10, false);
+
+        likeWriteBuffer.flush();
+
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT IGNORE INTO likes"), inserts.capture());
+        assertEquals(2, inserts.getValue().size());
+        verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM likes"), anyList());
+        assertTrue(likeWriteBuffer.pendingStates(1, List.of(10)).isEmpty());
+        assertTrue(likeWriteBuffer.pendingPostIds(List.of(10)).isEmpty());
+
+        // Nothing left to write
+        likeWriteBuffer.flush();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void submit_FullShard_ShouldHandFlushToScheduler() {
+        ReflectionTestUtils.setField(likeWriteBuffer, "batchSize", 1);
+        when(postLikerCache.contains(anyInt(), anyInt())).thenReturn(false);
+
+        likeWriteBuffer.submit(1, 10, true);
+        likeWriteBuffer.submit(2, 10, true);
+
+        // Written by the scheduler, not by the caller, and scheduled once until it runs
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flush_DatabaseDown_ShouldKeepPendingAndBackOff() {
+        when(postLikerCache.contains(10, 1)).thenReturn(false);
+        likeWriteBuffer.submit(1, 10, true);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            // Pairs being written still count as pending for the reconcile of the counters
+            assertEquals(Set.of(10), likeWriteBuffer.pendingPostIds(List.of(10, 11)));
+            throw new RuntimeException("Database down");
+        });
+
+        likeWriteBuffer.flush();
+        // Still backing off: not retried on the next tick
+        likeWriteBuffer.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertEquals(Map.of(10, true), likeWriteBuffer.pendingStates(1, List.of(10)));
+        assertEquals(Set.of(10), likeWriteBuffer.pendingPostIds(List.of(10, 11)));
+
+        // The flush on shutdown does not wait for the backoff
+        likeWriteBuffer.flushOnShutdown();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+}
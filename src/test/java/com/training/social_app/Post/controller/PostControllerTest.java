@@ -0,0 +1,47 @@
+package com.training.social_app.Post.controller;
+
+import com.training.social_app.controller.PostController;
+import com.training.social_app.service.PostService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostControllerTest {
+
+    @Mock
+    private PostService postService;
+
+    @InjectMocks
+    private PostController postController;
+
+    @Test
+    void getPostsOfFriendsSortedByDate_ValidCursor_ShouldReturnSuccessResponse() {
+        when(postService.getPostsOfFriendsAfter("abc", 10)).thenReturn(Map.of());
+
+        ResponseEntity<Object> response = postController.getPostsOfFriendsSortedByDate(1, 10, "abc");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(postService, never()).getPostsOfFriendsSortedByDate(any(), any());
+    }
+
+    @Test
+    void getPostsOfFriendsSortedByDate_InvalidCursor_ShouldReturnBadRequest() {
+        when(postService.getPostsOfFriendsAfter("garbage", 10)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseEntity<Object> response = postController.getPostsOfFriendsSortedByDate(1, 10, "garbage");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(Objects.requireNonNull(response.getBody()).toString().contains("Invalid cursor"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.training.social_app.Post.service;
+
+import com.training.social_app.cache.PostLikerCache;
+import com.training.social_app.repository.CommentRepository;
+import com.training.social_app.repository.FriendShipRepository;
+import com.training.social_app.repository.LikeRepository;
+import com.training.social_app.repository.PostRepository;
+import com.training.social_app.repository.ReportRepository;
+import com.training.social_app.repository.TimelineEntryRepository;
+import com.training.social_app.repository.UserProfileRepository;
+import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.PostCounterService;
+import com.training.social_app.service.TimelineService;
+import com.training.social_app.service.impl.BulkDeleteServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkDeleteServiceImplTest {
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private LikeRepository likeRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private TimelineEntryRepository timelineEntryRepository;
+
+    @Mock
+    private FriendShipRepository friendShipRepository;
+
+    @Mock
+    private ReportRepository reportRepository;
+
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PostLikerCache postLikerCache;
+
+    @Mock
+    private PostCounterService postCounterService;
+
+    @Mock
+    private TimelineService timelineService;
+
+    @InjectMocks
+    private BulkDeleteServiceImpl bulkDeleteService;
+
+    @Test
+    void deletePosts_ShouldDropDeletedPostsFromCaches() {
+        List<Integer> postIds = List.of(1, 2);
+
+        bulkDeleteService.deletePosts(postIds);
+
+        InOrder inOrder = inOrder(timelineService, postRepository, postLikerCache, postCounterService);
+        inOrder.verify(timelineService).retract(postIds);
+        inOrder.verify(postRepository).deleteAllByIdIn(postIds);
+        inOrder.verify(postLikerCache).evict(postIds);
+        inOrder.verify(postCounterService).discard(postIds);
+    }
+
+    @Test
+    void deleteUsers_ShouldOnlyDeleteRowsBoundedPerUser() {
+        List<Integer> userIds = List.of(7);
+
+        bulkDeleteService.deleteUsers(userIds);
+
+        verify(userRepository).deleteAllByIdIn(userIds);
+        // Posts, likes and comments were purged in batches before
+        verifyNoInteractions(postRepository, likeRepository, commentRepository, postLikerCache, postCounterService);
+    }
+}
@@ -0,0 +1,186 @@
+package com.training.social_app.Post.service;
+
+import com.training.social_app.service.LikeWriteBuffer;
+import com.training.social_app.service.impl.PostCounterServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PostCounterServiceImplTest {
+
+    @InjectMocks
+    private PostCounterServiceImpl postCounterService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(postCounterService, "reconcileChunkSize", 1000);
+        ReflectionTestUtils.setField(postCounterService, "likeWriteBuffer", likeWriteBuffer);
+    }
+
+    @Test
+    void addLikes_ConcurrentThreads_ShouldSumAcrossStripes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        postCounterService.addLikes(1, 1);
+                        postCounterService.addComments(1, 1);
+                    }
+                    postCounterService.addLikes(2, -1);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<Integer, long[]> pending = postCounterService.pending(List.of(1, 2, 3));
+
+        assertEquals(2, pending.size());
+        assertArrayEquals(new long[]{8000, 8000}, pending.get(1));
+        assertArrayEquals(new long[]{-8, 0}, pending.get(2));
+    }
+
+    @Test
+    void discard_ShouldDropPendingDeltasOfDeletedPostsOnly() {
+        postCounterService.addLikes(1, 1);
+        postCounterService.addComments(2, 1);
+
+        postCounterService.discard(List.of(1));
+        postCounterService.flush();
+
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE posts"),
+                argThat((List<Object[]> batch) -> batch.size() == 1 && batch.getFirst()[2].equals(2)));
+    }
+
+    @Test
+    void flush_ShouldWriteOneRowPerPostAndDrain() {
+        postCounterService.addLikes(1, 1);
+        postCounterService.addLikes(1, 1);
+        postCounterService.addComments(1, 1);
+        postCounterService.addLikes(2, 1);
+        postCounterService.addLikes(2, -1);
+
+        postCounterService.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE posts SET like_count = like_count +"), batch.capture());
+        // Post 2 netted out to zero and is not written
+        assertEquals(1, batch.getValue().size());
+        assertArrayEquals(new Object[]{2L, 1L, 1}, batch.getValue().getFirst());
+        assertTrue(postCounterService.pending(List.of(1, 2)).isEmpty());
+
+        // Nothing left to write
+        postCounterService.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flush_WriteFails_ShouldKeepDeltasForNextFlush() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+        postCounterService.addLikes(1, 3);
+        postCounterService.addComments(1, -1);
+
+        postCounterService.flush();
+
+        assertArrayEquals(new long[]{3, -1}, postCounterService.pending(List.of(1)).get(1));
+    }
+
+    @Test
+    void flush_WhileWriting_ShouldStillReportDrainedDeltasAsPending() {
+        postCounterService.addLikes(1, 2);
+        List<long[]> seenWhileWriting = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            // A like arriving while the batch is written adds up with the drained delta
+            postCounterService.addLikes(1, 1);
+            seenWhileWriting.add(postCounterService.pending(List.of(1)).get(1));
+            return new int[]{1};
+        });
+
+        postCounterService.flush();
+
+        assertArrayEquals(new long[]{3, 0}, seenWhileWriting.getFirst());
+        // Only the like that arrived during the write is left once the batch is committed
+        assertArrayEquals(new long[]{1, 0}, postCounterService.pending(List.of(1)).get(1));
+    }
+
+    @Test
+    void reconcile_ShouldCorrectDriftedPostsOnlyIfUnchangedAndSkipPendingOnes() {
+        when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM posts", Integer.class)).thenReturn(3);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(1), eq(1000))).thenAnswer(invocation -> {
+            // A like on post 2 arrives while the chunk is counted
+            postCounterService.addLikes(2, 1);
+            return List.of(
+                    new Object[]{1, 5L, 2L, 4L, 2L},
+                    new Object[]{2, 0L, 0L, 1L, 0L},
+                    new Object[]{3, 7L, 1L, 7L, 1L});
+        });
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE posts p SET like_count = ?,"), anyList())).thenReturn(new int[]{1});
+
+        postCounterService.reconcile();
+
+        ArgumentCaptor<List<Object[]>> corrections = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(
+                startsWith("UPDATE posts p SET like_count = ?, comment_count = ? WHERE id = ? AND like_count = ? AND comment_count = ?"),
+                corrections.capture());
+        assertEquals(1, corrections.getValue().size());
+        // Only if the counters and the rows are still the ones counted
+        assertArrayEquals(new Object[]{4L, 2L, 1, 5L, 2L, 4L, 2L}, corrections.getValue().getFirst());
+        // The concurrent like is still buffered for the next flush
+        assertArrayEquals(new long[]{1, 0}, postCounterService.pending(List.of(2)).get(2));
+    }
+
+    @Test
+    void reconcile_BufferedLikes_ShouldLeaveTheirPostsForTheNextRound() {
+        when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM posts", Integer.class)).thenReturn(2);
+        // The like of post 1 was counted as soon as it was accepted; its row waits for the buffer's next flush
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(1), eq(1000))).thenReturn(List.of(
+                new Object[]{1, 11L, 0L, 10L, 0L},
+                new Object[]{2, 3L, 0L, 2L, 0L}));
+        when(likeWriteBuffer.pendingPostIds(anyCollection())).thenReturn(Set.of(1));
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE posts p SET like_count = ?,"), anyList())).thenReturn(new int[]{1});
+
+        postCounterService.reconcile();
+
+        ArgumentCaptor<List<Object[]>> corrections = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE posts p SET like_count = ?,"), corrections.capture());
+        assertEquals(List.of(2), corrections.getValue().stream().map(row -> row[2]).toList());
+        verify(likeWriteBuffer).pendingPostIds(List.of(1, 2));
+    }
+}
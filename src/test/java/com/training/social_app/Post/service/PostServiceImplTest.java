@@ -0,0 +1,152 @@
+package com.training.social_app.Post.service;
+
+import com.training.social_app.cache.AuthorCardCache;
+import com.training.social_app.dto.response.PostResponse;
+import com.training.social_app.dto.response.UserDto;
+import com.training.social_app.entity.User;
+import com.training.social_app.repository.LikeRepository;
+import com.training.social_app.repository.PostRepository;
+import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.BulkDeleteService;
+import com.training.social_app.service.JobService;
+import com.training.social_app.service.LikeWriteBuffer;
+import com.training.social_app.service.PostCounterService;
+import com.training.social_app.service.TimelineService;
+import com.training.social_app.service.impl.PostServiceImpl;
+import com.training.social_app.utils.PageCursor;
+import com.training.social_app.utils.UserContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PostServiceImplTest {
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TimelineService timelineService;
+
+    @Mock
+    private PostCounterService postCounterService;
+
+    @Mock
+    private LikeRepository likeRepository;
+
+    @Mock
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Mock
+    private AuthorCardCache authorCardCache;
+
+    @Mock
+    private BulkDeleteService bulkDeleteService;
+
+    @Mock
+    private JobService jobService;
+
+    @InjectMocks
+    private PostServiceImpl postService;
+
+    private static MockedStatic<UserContext> mockedUserContext;
+
+    @BeforeAll
+    static void init() {
+        mockedUserContext = mockStatic(UserContext.class);
+        mockedUserContext.when(UserContext::getCurrentUserId).thenCallRealMethod();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mockedUserContext.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        User mockUser = new User();
+        mockUser.setId(1);
+        mockedUserContext.when(UserContext::getUser).thenReturn(new UserDto(mockUser));
+    }
+
+    private PostResponse post(Integer id, int likeCount) {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(id);
+        return new PostResponse(id, "Post " + id, null, 2, "Author", null, false, likeCount, 0, time, time);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, Boolean> likedByMe(Map<String, Object> response) {
+        return ((List<PostResponse>) response.get("listPost")).stream()
+                .collect(Collectors.toMap(PostResponse::getId, PostResponse::isLikedByMe));
+    }
+
+    @Test
+    void getPostsOfFriendsSortedByDate_PendingLikesAndUnlikes_ShouldOverrideStoredLikes() {
+        List<PostResponse> posts = List.of(post(10, 1), post(11, 1), post(12, 0), post(13, 0));
+        when(timelineService.getTimeline(eq(1), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(posts, PageRequest.of(0, 4), 4));
+        // 10 and 11 are liked in the table; 11 was unliked and 12 liked since, not written yet
+        when(likeRepository.findPostIdsLikedByUser(eq(1), anyCollection())).thenReturn(List.of(10, 11));
+        when(likeWriteBuffer.pendingStates(eq(1), anyCollection())).thenReturn(Map.of(11, false, 12, true));
+        when(postCounterService.pending(anyCollection())).thenReturn(Map.of(11, new long[]{-1, 0}, 12, new long[]{1, 0}));
+
+        Map<String, Object> response = postService.getPostsOfFriendsSortedByDate(1, 4);
+
+        assertEquals(Map.of(10, true, 11, false, 12, true, 13, false), likedByMe(response));
+        @SuppressWarnings("unchecked")
+        List<PostResponse> listPost = (List<PostResponse>) response.get("listPost");
+        assertEquals(List.of(1, 0, 1, 0), listPost.stream().map(PostResponse::getLikeCount).toList());
+        // One lookup of the stored likes for the whole page
+        verify(likeRepository, times(1)).findPostIdsLikedByUser(1, Set.of(10, 11, 12, 13));
+        verify(likeWriteBuffer, times(1)).pendingStates(1, Set.of(10, 11, 12, 13));
+    }
+
+    @Test
+    void getPostsOfFriendsAfter_ShouldLookUpLikesOncePerPage() {
+        List<PostResponse> posts = List.of(post(20, 0), post(21, 0), post(22, 0));
+        when(timelineService.getTimelineAfter(eq(1), any(PageCursor.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(posts, PageRequest.of(0, 3), true));
+        when(likeRepository.findPostIdsLikedByUser(eq(1), anyCollection())).thenReturn(List.of(21));
+        when(likeWriteBuffer.pendingStates(eq(1), anyCollection())).thenReturn(Map.of());
+
+        Map<String, Object> response = postService.getPostsOfFriendsAfter(null, 3);
+
+        assertEquals(Map.of(20, false, 21, true, 22, false), likedByMe(response));
+        assertNotNull(response.get("nextCursor"));
+        verify(likeRepository, times(1)).findPostIdsLikedByUser(eq(1), anyCollection());
+    }
+
+    @Test
+    void getPostsOfFriendsSortedByDate_EmptyPage_ShouldNotQueryLikes() {
+        when(timelineService.getTimeline(eq(1), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 10), 0));
+
+        postService.getPostsOfFriendsSortedByDate(1, 10);
+
+        verifyNoInteractions(likeRepository, likeWriteBuffer, postCounterService);
+    }
+}
@@ -0,0 +1,107 @@
+package com.training.social_app.Post.service;
+
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.entity.Post;
+import com.training.social_app.entity.User;
+import com.training.social_app.repository.TimelineEntryRepository;
+import com.training.social_app.service.impl.TimelineServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TimelineServiceImplTest {
+    @Mock
+    private TimelineEntryRepository timelineEntryRepository;
+
+    @Mock
+    private FriendGraph friendGraph;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private TimelineServiceImpl timelineService;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        User author = new User();
+        author.setId(1);
+        post = new Post();
+        post.setId(10);
+        post.setUser(author);
+        post.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+    }
+
+    @Test
+    void publish_ShouldInsertOneRowPerFriendInOneBatch() throws Exception {
+        when(friendGraph.friendsOf(1)).thenReturn(new int[]{2, 3, 5});
+
+        timelineService.publish(post);
+
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO timeline_entries"), setter.capture());
+        assertEquals(3, setter.getValue().getBatchSize());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, 2);
+        verify(ps).setInt(1, 5);
+        verify(ps).setInt(2, 10);
+        verify(ps).setInt(3, 1);
+        verify(ps).setTimestamp(4, Timestamp.valueOf(post.getUpdatedAt()));
+    }
+
+    @Test
+    void publish_NoFriends_ShouldWriteNothing() {
+        when(friendGraph.friendsOf(1)).thenReturn(new int[0]);
+
+        timelineService.publish(post);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void retract_ShouldDeleteEveryPostInOneStatement() {
+        timelineService.retract(List.of(10, 11, 12));
+        timelineService.retract(List.of());
+
+        verify(timelineEntryRepository, times(1)).deleteAllByPostIdIn(anyCollection());
+        verify(timelineEntryRepository).deleteAllByPostIdIn(List.of(10, 11, 12));
+    }
+
+    @Test
+    void link_ShouldCopyPostsBothWays() {
+        timelineService.link(1, 2);
+
+        verify(timelineEntryRepository).copyPostsOfAuthor(1, 2);
+        verify(timelineEntryRepository).copyPostsOfAuthor(2, 1);
+    }
+
+    @Test
+    void unlink_ShouldDropPostsBothWays() {
+        timelineService.unlink(1, 2);
+
+        verify(timelineEntryRepository).deleteByOwnerIdAndAuthorId(1, 2);
+        verify(timelineEntryRepository).deleteByOwnerIdAndAuthorId(2, 1);
+        verifyNoMoreInteractions(timelineEntryRepository);
+    }
+}
@@ -0,0 +1,45 @@
+package com.training.social_app.Post.utils;
+
+import com.training.social_app.utils.PageCursor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCursorTest {
+    @Test
+    void decode_ShouldRoundTripTimeAndId() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 17, 8, 30, 15, 123_456_000);
+        PageCursor cursor = PageCursor.of(time, 42);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        assertEquals(time, decoded.time());
+        assertEquals(42, decoded.id());
+    }
+
+    @Test
+    void decode_Empty_ShouldStartFromTheFirstPage() {
+        assertEquals(PageCursor.START, PageCursor.decode(null));
+        assertEquals(PageCursor.START, PageCursor.decode(""));
+        assertEquals(PageCursor.START, PageCursor.decode("  "));
+        assertEquals(Integer.MAX_VALUE, PageCursor.START.id());
+    }
+
+    @Test
+    void encode_ShouldBeUrlSafe() {
+        String encoded = PageCursor.of(LocalDateTime.of(2024, 1, 1, 0, 0), Integer.MAX_VALUE).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void decode_Garbage_ShouldThrowInvalidCursor() {
+        for (String garbage : new String[]{"not a cursor!", "bm9zZXBhcmF0b3I", "YWJjOjEy", "MTIzOg"}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(garbage));
+            assertEquals("Invalid cursor", e.getMessage());
+        }
+    }
+}
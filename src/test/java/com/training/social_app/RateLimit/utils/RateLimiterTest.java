@@ -0,0 +1,53 @@
+package com.training.social_app.RateLimit.utils;
+
+import com.training.social_app.utils.RateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void tryAcquire_BurstExhausted_ShouldReturnWaitUntilNextToken() {
+        // 60 per minute: one token per second, up to 3 at once
+        RateLimiter limiter = new RateLimiter(60, MINUTE, 3, 100);
+        long now = 1_000_000_000L;
+
+        assertEquals(0, limiter.tryAcquire("u:1", now));
+        assertEquals(0, limiter.tryAcquire("u:1", now));
+        assertEquals(0, limiter.tryAcquire("u:1", now));
+
+        long wait = limiter.tryAcquire("u:1", now);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), wait);
+        // Other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("u:2", now));
+        // One token is back after a second
+        assertEquals(0, limiter.tryAcquire("u:1", now + wait));
+    }
+
+    @Test
+    void evictIdle_ShouldDropRefilledBuckets() {
+        RateLimiter limiter = new RateLimiter(60, MINUTE, 3, 100);
+        long now = 1_000_000_000L;
+        limiter.tryAcquire("u:1", now);
+        limiter.tryAcquire("u:2", now);
+
+        limiter.evictIdle(now + TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void tryAcquire_MapFull_ShouldAdmitWithoutBucket() {
+        RateLimiter limiter = new RateLimiter(1, MINUTE, 1, 1);
+        long now = 1_000_000_000L;
+        limiter.tryAcquire("u:1", now);
+
+        assertEquals(0, limiter.tryAcquire("u:2", now));
+        assertEquals(0, limiter.tryAcquire("u:2", now));
+        assertEquals(1, limiter.size());
+    }
+}
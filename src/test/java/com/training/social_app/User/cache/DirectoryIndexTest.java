@@ -0,0 +1,99 @@
+package com.training.social_app.User.cache;
+
+import com.training.social_app.cache.DirectoryIndex;
+import com.training.social_app.repository.UserProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DirectoryIndexTest {
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    private DirectoryIndex directoryIndex;
+
+    private static final LocalDate AGE_30 = LocalDate.now().minusYears(30);
+    private static final LocalDate AGE_20 = LocalDate.now().minusYears(20);
+
+    @BeforeEach
+    void setUp() {
+        directoryIndex = new DirectoryIndex(userProfileRepository, 10);
+        when(userProfileRepository.findAllDirectoryFields()).thenReturn(List.<Object[]>of(
+                new Object[]{1, "Hà Nội", "Engineer", AGE_30},
+                new Object[]{2, "ha noi", "Teacher", AGE_20},
+                new Object[]{3, "Sài Gòn", "Engineer", AGE_30},
+                new Object[]{4, null, null, null}
+        ));
+        directoryIndex.load();
+    }
+
+    private static Map<String, String> filters(String location, String occupation, String age) {
+        Map<String, String> filters = new HashMap<>();
+        filters.put(DirectoryIndex.LOCATION, location);
+        filters.put(DirectoryIndex.OCCUPATION, occupation);
+        filters.put(DirectoryIndex.AGE, age);
+        return filters;
+    }
+
+    private List<Integer> userIds(DirectoryIndex.Result result) {
+        return result.userIds();
+    }
+
+    @Test
+    void query_NoFilter_ShouldCountEveryValue() {
+        DirectoryIndex.Result result = directoryIndex.query(filters(null, "", null), 0, 10);
+
+        // Newest users first
+        assertEquals(List.of(4, 3, 2, 1), userIds(result));
+        assertEquals(4, result.total());
+        assertEquals(List.of(new DirectoryIndex.FacetCount("Hà Nội", 2), new DirectoryIndex.FacetCount("Sài Gòn", 1)),
+                result.facets().get(DirectoryIndex.LOCATION));
+        assertEquals(List.of(new DirectoryIndex.FacetCount("18-24", 1), new DirectoryIndex.FacetCount("25-34", 2)),
+                result.facets().get(DirectoryIndex.AGE));
+    }
+
+    @Test
+    void query_ShouldCombineFiltersAndCountEachFacetUnderTheOthers() {
+        DirectoryIndex.Result result = directoryIndex.query(filters("HA NOI", "engineer", null), 0, 10);
+
+        assertEquals(List.of(1), userIds(result));
+        // Locations are counted among engineers, occupations among people in Hanoi
+        assertEquals(List.of(new DirectoryIndex.FacetCount("Hà Nội", 1), new DirectoryIndex.FacetCount("Sài Gòn", 1)),
+                result.facets().get(DirectoryIndex.LOCATION));
+        assertEquals(List.of(new DirectoryIndex.FacetCount("Engineer", 1), new DirectoryIndex.FacetCount("Teacher", 1)),
+                result.facets().get(DirectoryIndex.OCCUPATION));
+        assertEquals(List.of(), userIds(directoryIndex.query(filters("Da Nang", null, null), 0, 10)));
+    }
+
+    @Test
+    void put_ShouldMoveTheUserBetweenValues() {
+        directoryIndex.put(3, "Ha Noi", "Teacher", AGE_20);
+        directoryIndex.put(5, "Đà Nẵng", null, null);
+        directoryIndex.remove(1);
+
+        assertEquals(List.of(3, 2), userIds(directoryIndex.query(filters("hà nội", "teacher", "18-24"), 0, 10)));
+        assertEquals(List.of(), userIds(directoryIndex.query(filters("sai gon", null, null), 0, 10)));
+        assertEquals(List.of(5), userIds(directoryIndex.query(filters("da nang", null, null), 0, 10)));
+        assertEquals(4, directoryIndex.size());
+    }
+
+    @Test
+    void query_ShouldPageNewestFirst() {
+        DirectoryIndex.Result result = directoryIndex.query(filters(null, null, null), 1, 2);
+
+        assertEquals(List.of(3, 2), userIds(result));
+        assertEquals(4, result.total());
+        assertEquals(List.of(), userIds(directoryIndex.query(filters(null, null, null), 4, 2)));
+    }
+}
@@ -0,0 +1,100 @@
+package com.training.social_app.User.cache;
+
+import com.training.social_app.cache.NameTrigramIndex;
+import com.training.social_app.repository.UserProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NameTrigramIndexTest {
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    private NameTrigramIndex nameTrigramIndex;
+
+    @BeforeEach
+    void setUp() {
+        nameTrigramIndex = new NameTrigramIndex(userProfileRepository, 100, 10);
+        when(userProfileRepository.findAllNames()).thenReturn(List.<Object[]>of(
+                new Object[]{1, "Anna Smith"},
+                new Object[]{2, "Joanna  Brown"},
+                new Object[]{3, "Annabel Lee"},
+                new Object[]{4, "Bob Hanna"},
+                new Object[]{5, null},
+                new Object[]{7, "Nguyễn Văn Đức"}
+        ));
+        nameTrigramIndex.load();
+    }
+
+    private List<Integer> search(String query) {
+        return nameTrigramIndex.search(query).stream().map(NameTrigramIndex.Match::userId).toList();
+    }
+
+    @Test
+    void search_ShouldRankNameStartThenWordStartThenInside() {
+        // Name starts with it (shorter name first), then a word starts with it, then inside a word
+        assertEquals(List.of(1, 3, 4, 2), search("ANN"));
+        assertEquals(List.of(2), search("joanna brown"));
+        assertEquals(List.of(), search("qqxz"));
+    }
+
+    @Test
+    void search_ShortQuery_ShouldMatchWordStartsOnly() {
+        assertEquals(List.of(4, 2), search("b"));
+        assertEquals(List.of(1, 3), search("an"));
+        assertEquals(List.of(), search("  "));
+    }
+
+    @Test
+    void put_ShouldReplaceTheIndexedName() {
+        nameTrigramIndex.put(1, "Zoe Smith");
+        nameTrigramIndex.put(6, "Hannah Arendt");
+        nameTrigramIndex.remove(3);
+
+        assertEquals(List.of(4, 2, 6), search("ann"));
+        assertEquals(List.of(1), search("zoe"));
+        assertEquals(List.of(1), search("smi"));
+        assertEquals(5, nameTrigramIndex.size());
+    }
+
+    @Test
+    void search_ShouldIgnoreAccentsAndCase() {
+        assertEquals(List.of(7), search("nguyen van duc"));
+        assertEquals(List.of(7), search("ĐỨC"));
+        assertEquals(List.of(7), search("van d"));
+    }
+
+    @Test
+    void search_FewExactMatches_ShouldAddNamesWithinTypos() {
+        // One typo allowed from four letters, two from eight; typo matches rank below every exact match
+        assertEquals(List.of(1), search("annx"));
+        assertEquals(List.of(4, 1), search("hanna"));
+        assertEquals(List.of(7), search("nguyn duc"));
+        assertEquals(List.of(), search("ngyuen duc"));
+    }
+
+    @Test
+    void search_ManyExactMatches_ShouldSkipTypoMatches() {
+        NameTrigramIndex strict = new NameTrigramIndex(userProfileRepository, 100, 1);
+        strict.load();
+
+        assertEquals(List.of(4), strict.search("hanna").stream().map(NameTrigramIndex.Match::userId).toList());
+    }
+
+    @Test
+    void search_OverCandidateCap_ShouldKeepTheBestMatches() {
+        NameTrigramIndex capped = new NameTrigramIndex(userProfileRepository, 2, 10);
+        capped.load();
+
+        // Not the two lowest ids (1 and 2) but the two best ranked of 1, 3, 4, 2
+        assertEquals(List.of(1, 3), capped.search("ann").stream().map(NameTrigramIndex.Match::userId).toList());
+    }
+}
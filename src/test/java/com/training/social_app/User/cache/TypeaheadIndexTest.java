@@ -0,0 +1,93 @@
+package com.training.social_app.User.cache;
+
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.cache.TypeaheadIndex;
+import com.training.social_app.repository.UserProfileRepository;
+import com.training.social_app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TypeaheadIndexTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    @Mock
+    private FriendGraph friendGraph;
+
+    private TypeaheadIndex typeaheadIndex;
+
+    @BeforeEach
+    void setUp() {
+        typeaheadIndex = new TypeaheadIndex(userRepository, userProfileRepository, friendGraph);
+        when(userRepository.findAllUsernames()).thenReturn(List.<Object[]>of(
+                new Object[]{1, "viewer"},
+                new Object[]{2, "jsmith"},
+                new Object[]{3, "johnny"},
+                new Object[]{4, "bob"},
+                new Object[]{5, "joan"}
+        ));
+        when(userProfileRepository.findAllNames()).thenReturn(List.<Object[]>of(
+                new Object[]{2, "John Smith"},
+                new Object[]{3, "Johnny Walker"},
+                new Object[]{4, "Bob Johnson"},
+                new Object[]{5, "Joan Smithers"}
+        ));
+        typeaheadIndex.load();
+        lenient().when(friendGraph.friendsOf(anyInt())).thenReturn(new int[0]);
+        lenient().when(friendGraph.degree(anyInt())).thenReturn(0);
+    }
+
+    @Test
+    void suggest_ShouldRankFriendsThenMatchedTokensThenPopularity() {
+        when(friendGraph.friendsOf(1)).thenReturn(new int[]{4});
+        when(friendGraph.degree(3)).thenReturn(50);
+        when(friendGraph.degree(2)).thenReturn(10);
+
+        // Bob is a friend; John Smith and Joan Smithers match both tokens; Johnny only "jo" but has more friends
+        assertEquals(List.of(4, 2, 5, 3), typeaheadIndex.suggest("Jo Smi", 1, 10));
+        assertEquals(List.of(4, 3, 2, 5), typeaheadIndex.suggest("jo", 1, 10));
+        assertEquals(List.of(4, 3), typeaheadIndex.suggest("jo", 1, 2));
+    }
+
+    @Test
+    void suggest_SmallLimit_ShouldRankTheWholePrefixRange() {
+        // Joan Smithers sorts last among the "j" tokens but has the most friends
+        when(friendGraph.degree(5)).thenReturn(80);
+        when(friendGraph.degree(3)).thenReturn(50);
+
+        assertEquals(List.of(5), typeaheadIndex.suggest("j", 1, 1));
+        assertEquals(List.of(5, 3), typeaheadIndex.suggest("j", 1, 2));
+    }
+
+    @Test
+    void suggest_ShouldMatchUsernamesAndSkipTheViewer() {
+        assertEquals(List.of(2), typeaheadIndex.suggest("jsm", 1, 10));
+        assertEquals(List.of(), typeaheadIndex.suggest("view", 1, 10));
+        assertEquals(List.of(), typeaheadIndex.suggest(" ", 1, 10));
+    }
+
+    @Test
+    void putAndRemove_ShouldPatchTheTokens() {
+        typeaheadIndex.putName(4, "Robert Brown");
+        typeaheadIndex.putUsername(6, "newcomer");
+        typeaheadIndex.remove(5);
+
+        assertEquals(List.of(3, 2), typeaheadIndex.suggest("jo", 1, 10));
+        assertEquals(List.of(4), typeaheadIndex.suggest("rob", 1, 10));
+        assertEquals(List.of(6), typeaheadIndex.suggest("new", 1, 10));
+        // The username is still indexed after the name changed
+        assertEquals(List.of(4), typeaheadIndex.suggest("bob", 1, 10));
+    }
+}
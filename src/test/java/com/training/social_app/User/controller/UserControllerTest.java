@@ -0,0 +1,46 @@
+package com.training.social_app.User.controller;
+
+import com.training.social_app.controller.UserController;
+import com.training.social_app.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserControllerTest {
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private UserController userController;
+
+    @Test
+    void searchUser_ValidCursor_ShouldReturnSuccessResponse() {
+        when(userService.searchUserAfter("ann", "abc", 10)).thenReturn(Map.of());
+
+        ResponseEntity<?> response = userController.searchUser("ann", 1, 10, "abc");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void searchUser_InvalidCursor_ShouldReturnBadRequest() {
+        when(userService.searchUserAfter("ann", "garbage", 10)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseEntity<?> response = userController.searchUser("ann", 1, 10, "garbage");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(Objects.requireNonNull(response.getBody()).toString().contains("Invalid cursor"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.training.social_app.User.service;
+
+import com.training.social_app.cache.PostLikerCache;
+import com.training.social_app.dto.response.JobResponse;
+import com.training.social_app.exception.ServiceBusyException;
+import com.training.social_app.repository.CommentRepository;
+import com.training.social_app.repository.LikeRepository;
+import com.training.social_app.repository.PostRepository;
+import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.BulkDeleteService;
+import com.training.social_app.service.JobService;
+import com.training.social_app.service.PostCounterService;
+import com.training.social_app.service.impl.AccountPurgeServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountPurgeServiceImplTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private LikeRepository likeRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private BulkDeleteService bulkDeleteService;
+
+    @Mock
+    private PostCounterService postCounterService;
+
+    @Mock
+    private PostLikerCache postLikerCache;
+
+    @Mock
+    private JobService jobService;
+
+    @InjectMocks
+    private AccountPurgeServiceImpl accountPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(accountPurgeService, "batchSize", 2);
+        ReflectionTestUtils.setField(accountPurgeService, "pauseMs", 0L);
+    }
+
+    private JobService.Task submittedTask(String type, int total) {
+        ArgumentCaptor<JobService.Task> task = ArgumentCaptor.forClass(JobService.Task.class);
+        verify(jobService).submit(eq(type), eq(total), task.capture());
+        return task.getValue();
+    }
+
+    @Test
+    void purge_ShouldDeleteInBatchesAndTheUserLast() {
+        when(postRepository.countByUserId(7)).thenReturn(3L);
+        when(likeRepository.countOnOtherUsersPosts(7)).thenReturn(1L);
+        when(commentRepository.countOnOtherUsersPosts(7)).thenReturn(0L);
+        when(jobService.submit(anyString(), anyInt(), any())).thenReturn(new JobResponse());
+        when(postRepository.findIdsByUserId(eq(7), any(Pageable.class)))
+                .thenReturn(List.of(1, 2), List.of(3), List.of());
+        when(likeRepository.findIdsByUserId(eq(7), any(Pageable.class))).thenReturn(List.of(10), List.of());
+        when(commentRepository.findIdsByUserId(eq(7), any(Pageable.class))).thenReturn(List.of());
+
+        assertNotNull(accountPurgeService.purge(7));
+        List<Integer> progress = new ArrayList<>();
+        submittedTask("purge-user:7", 5).run(progress::add);
+
+        InOrder inOrder = inOrder(bulkDeleteService, likeRepository);
+        inOrder.verify(bulkDeleteService).deletePosts(List.of(1, 2));
+        inOrder.verify(bulkDeleteService).deletePosts(List.of(3));
+        inOrder.verify(likeRepository).deleteAllByIdIn(List.of(10));
+        inOrder.verify(bulkDeleteService).deleteUsers(List.of(7));
+        // The counters were adjusted when the account was soft-deleted
+        verifyNoInteractions(postCounterService);
+        verify(commentRepository, never()).deleteAllByIdIn(any());
+        assertEquals(List.of(2, 1, 1, 1), progress);
+    }
+
+    @Test
+    void purge_PopularPost_ShouldDrainItsLikesAndCommentsInBatchesFirst() {
+        when(jobService.submit(anyString(), anyInt(), any())).thenReturn(new JobResponse());
+        when(postRepository.findIdsByUserId(eq(7), any(Pageable.class))).thenReturn(List.of(1), List.of());
+        when(likeRepository.findIdsByPostIdIn(eq(List.of(1)), any(Pageable.class)))
+                .thenReturn(List.of(30, 31), List.of(32), List.of());
+        when(commentRepository.findIdsByPostIdIn(eq(List.of(1)), any(Pageable.class)))
+                .thenReturn(List.of(40), List.of());
+
+        accountPurgeService.purge(7);
+        submittedTask("purge-user:7", 1).run(rows -> {});
+
+        InOrder inOrder = inOrder(likeRepository, commentRepository, bulkDeleteService);
+        inOrder.verify(likeRepository).deleteAllByIdIn(List.of(30, 31));
+        inOrder.verify(likeRepository).deleteAllByIdIn(List.of(32));
+        inOrder.verify(commentRepository).deleteAllByIdIn(List.of(40));
+        inOrder.verify(bulkDeleteService).deletePosts(List.of(1));
+        inOrder.verify(bulkDeleteService).deleteUsers(List.of(7));
+    }
+
+    @Test
+    void detach_ShouldTakeTheUserOutOfOtherUsersPosts() {
+        when(likeRepository.findPostIdsLikedOnOtherUsersPosts(7)).thenReturn(List.of(20, 21));
+        when(commentRepository.countPerPostOnOtherUsersPosts(7)).thenReturn(List.<Object[]>of(new Object[]{20, 3L}));
+
+        accountPurgeService.detach(7);
+
+        verify(postCounterService).addLikes(20, -1);
+        verify(postCounterService).addLikes(21, -1);
+        verify(postCounterService).addComments(20, -3);
+        verify(postLikerCache).removed(20, 7);
+        verify(postLikerCache).removed(21, 7);
+        verifyNoInteractions(jobService, bulkDeleteService);
+    }
+
+    @Test
+    void purge_AlreadyRunning_ShouldNotStartAnother() {
+        when(jobService.submit(anyString(), anyInt(), any())).thenReturn(new JobResponse());
+
+        assertNotNull(accountPurgeService.purge(7));
+        assertNull(accountPurgeService.purge(7));
+        verify(jobService, times(1)).submit(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void purgePending_FullQueue_ShouldStopAndRetryLater() {
+        when(userRepository.findDeletedIds()).thenReturn(List.of(7, 8));
+        when(jobService.submit(anyString(), anyInt(), any())).thenThrow(new ServiceBusyException("busy"));
+
+        accountPurgeService.purgePending();
+
+        verify(jobService, times(1)).submit(anyString(), anyInt(), any());
+        // The rejected purge is not marked as running, so the next sweep starts it
+        reset(jobService);
+        when(jobService.submit(anyString(), anyInt(), any())).thenReturn(new JobResponse());
+        assertNotNull(accountPurgeService.purge(7));
+    }
+}
@@ -0,0 +1,193 @@
+package com.training.social_app.User.service;
+
+import com.training.social_app.cache.AuthorCardCache;
+import com.training.social_app.cache.CachedPrincipal;
+import com.training.social_app.cache.DirectoryIndex;
+import com.training.social_app.cache.FriendGraph;
+import com.training.social_app.cache.NameTrigramIndex;
+import com.training.social_app.cache.PrincipalCache;
+import com.training.social_app.cache.SecretStore;
+import com.training.social_app.cache.TypeaheadIndex;
+import com.training.social_app.dto.request.DeleteRequest;
+import com.training.social_app.dto.response.JobResponse;
+import com.training.social_app.dto.response.UserDto;
+import com.training.social_app.entity.User;
+import com.training.social_app.enums.Role;
+import com.training.social_app.repository.UserProfileRepository;
+import com.training.social_app.repository.UserRepository;
+import com.training.social_app.service.AccountPurgeService;
+import com.training.social_app.service.FriendSuggestionService;
+import com.training.social_app.service.JobService;
+import com.training.social_app.service.impl.UserServiceImpl;
+import com.training.social_app.utils.PasswordHasher;
+import com.training.social_app.utils.UserContext;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserServiceImplTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
+    @Mock
+    private FriendGraph friendGraph;
+
+    @Mock
+    private SecretStore secretStore;
+
+    @Spy
+    private PrincipalCache principalCache = new PrincipalCache(100, 300);
+
+    @Mock
+    private FriendSuggestionService friendSuggestionService;
+
+    @Mock
+    private AuthorCardCache authorCardCache;
+
+    @Mock
+    private NameTrigramIndex nameTrigramIndex;
+
+    @Mock
+    private TypeaheadIndex typeaheadIndex;
+
+    @Mock
+    private DirectoryIndex directoryIndex;
+
+    @Mock
+    private JobService jobService;
+
+    @Mock
+    private AccountPurgeService accountPurgeService;
+
+    @InjectMocks
+    private UserServiceImpl userService;
+
+    private User user;
+
+    private static MockedStatic<UserContext> mockedUserContext;
+
+    @BeforeAll
+    static void init() {
+        mockedUserContext = mockStatic(UserContext.class);
+        mockedUserContext.when(UserContext::getCurrentUserId).thenCallRealMethod();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mockedUserContext.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(1);
+        user.setUsername("alice");
+        user.setRole(Role.USER);
+        mockedUserContext.when(UserContext::getUser).thenReturn(new UserDto(user));
+
+        // The JWT filter cached the caller on an earlier request
+        principalCache.put(CachedPrincipal.of(user));
+        principalCache.put(new CachedPrincipal(2, "bob", Role.USER, 0));
+    }
+
+    @Test
+    void resetPassword_ShouldBumpPasswordVersionAndDropCachedPrincipal() {
+        when(secretStore.take("reset:token")).thenReturn("alice");
+        when(userRepository.findByUsernameAndDeletedAtIsNull("alice")).thenReturn(Optional.of(user));
+        when(passwordHasher.encode("newPassword")).thenReturn("hash");
+
+        userService.resetPassword("token", "newPassword");
+
+        assertEquals(1, user.getPasswordVersion());
+        assertNull(principalCache.get("alice"));
+        assertNotNull(principalCache.get("bob"));
+    }
+
+    @Test
+    void resetPassword_InvalidToken_ShouldKeepCachedPrincipal() {
+        when(secretStore.take("reset:token")).thenReturn(null);
+
+        assertThrows(RuntimeException.class, () -> userService.resetPassword("token", "newPassword"));
+
+        assertNotNull(principalCache.get("alice"));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void deleteUser_ShouldDropCachedPrincipal() {
+        when(userRepository.markDeleted(eq(1), any(LocalDateTime.class))).thenReturn(1);
+
+        userService.deleteUser();
+
+        assertNull(principalCache.get("alice"));
+        assertNotNull(principalCache.get("bob"));
+        verify(accountPurgeService).detach(1);
+    }
+
+    @Test
+    void deleteUser_NotFound_ShouldKeepCachedPrincipal() {
+        when(userRepository.markDeleted(eq(1), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThrows(EntityNotFoundException.class, () -> userService.deleteUser());
+
+        assertNotNull(principalCache.get("alice"));
+        verify(principalCache, never()).invalidate(anyString());
+    }
+
+    @Test
+    void deleteUsers_ShouldDetachThenPurgeEveryAccountInBatches() {
+        user.setRole(Role.ADMIN);
+        ReflectionTestUtils.setField(userService, "deleteChunkSize", 500);
+        DeleteRequest request = new DeleteRequest();
+        request.setIds(List.of(2, 3));
+        when(userRepository.findExistingIds(List.of(2, 3))).thenReturn(List.of(2, 3));
+        when(jobService.submit(eq("delete-users"), eq(2), any())).thenReturn(new JobResponse());
+
+        userService.deleteUsers(request);
+        ArgumentCaptor<JobService.Task> task = ArgumentCaptor.forClass(JobService.Task.class);
+        verify(jobService).submit(eq("delete-users"), anyInt(), task.capture());
+
+        when(userRepository.findUsernamesByIdIn(List.of(2, 3))).thenReturn(List.of(new Object[]{2, "bob"}, new Object[]{3, "carol"}));
+        when(userRepository.markDeleted(eq(2), any(LocalDateTime.class))).thenReturn(1);
+        // 3 deleted their account already and was detached then
+        when(userRepository.markDeleted(eq(3), any(LocalDateTime.class))).thenReturn(0);
+        List<Integer> progress = new ArrayList<>();
+        task.getValue().run(progress::add);
+
+        verify(accountPurgeService).detach(2);
+        verify(accountPurgeService, never()).detach(3);
+        verify(accountPurgeService).purgeNow(2);
+        verify(accountPurgeService).purgeNow(3);
+        assertNull(principalCache.get("bob"));
+        assertEquals(List.of(1, 1), progress);
+    }
+}
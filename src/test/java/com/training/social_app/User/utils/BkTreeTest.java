@@ -0,0 +1,46 @@
+package com.training.social_app.User.utils;
+
+import com.training.social_app.utils.BkTree;
+import com.training.social_app.utils.NameFolding;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BkTreeTest {
+    private static List<BkTree.Hit> sorted(List<BkTree.Hit> hits) {
+        return hits.stream().sorted(Comparator.comparing(BkTree.Hit::word)).toList();
+    }
+
+    @Test
+    void distance_ShouldCountEdits() {
+        assertEquals(0, BkTree.distance("long", "long"));
+        assertEquals(1, BkTree.distance("nguyen", "nguyn"));
+        assertEquals(2, BkTree.distance("nguyen", "ngyuen"));
+        assertEquals(3, BkTree.distance("", "duc"));
+    }
+
+    @Test
+    void search_ShouldReturnWordsWithinDistance() {
+        BkTree tree = new BkTree();
+        for (String word : List.of("nguyen", "nguyet", "ngan", "tran", "tram", "nguyen")) {
+            tree.add(word);
+        }
+
+        assertEquals(5, tree.size());
+        assertEquals(List.of(new BkTree.Hit("nguyen", 1)), tree.search("nguyn", 1));
+        assertEquals(List.of(new BkTree.Hit("ngan", 2), new BkTree.Hit("nguyen", 1), new BkTree.Hit("nguyet", 2)),
+                sorted(tree.search("nguyn", 2)));
+        assertEquals(List.of(new BkTree.Hit("tram", 1), new BkTree.Hit("tran", 0)), sorted(tree.search("tran", 1)));
+        assertEquals(List.of(), new BkTree().search("tran", 2));
+    }
+
+    @Test
+    void fold_ShouldRemoveAccentsAndExtraSpaces() {
+        assertEquals("nguyen van duc", NameFolding.fold("  Nguyễn  Văn\tĐức "));
+        assertEquals("tran thi huong", NameFolding.fold("TRẦN THỊ HƯƠNG"));
+        assertEquals("", NameFolding.fold(null));
+    }
+}
@@ -0,0 +1,34 @@
+package com.training.social_app.User.utils;
+
+import com.training.social_app.utils.SearchCursor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchCursorTest {
+    @Test
+    void decode_ShouldRoundTripRankAndUserId() {
+        SearchCursor cursor = new SearchCursor(3L << 28 | 12345, 42);
+
+        assertEquals(cursor, SearchCursor.decode(cursor.encode()));
+        assertEquals(SearchCursor.START, SearchCursor.decode(null));
+        assertEquals(SearchCursor.START, SearchCursor.decode(" "));
+    }
+
+    @Test
+    void decode_Garbage_ShouldThrowIllegalArgument() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor!"));
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+
+    @Test
+    void isBefore_ShouldOrderByRankThenUserIdDescending() {
+        SearchCursor cursor = new SearchCursor(100, 5);
+
+        assertTrue(cursor.isBefore(99, 9));
+        assertTrue(cursor.isBefore(100, 4));
+        assertFalse(cursor.isBefore(100, 5));
+        assertFalse(cursor.isBefore(101, 1));
+        assertTrue(SearchCursor.START.isBefore(Long.MAX_VALUE, 1));
+    }
+}
@@ -0,0 +1,75 @@
+package com.training.social_app.UserProfile.cache;
+
+import com.training.social_app.cache.AuthorCard;
+import com.training.social_app.cache.AuthorCardCache;
+import com.training.social_app.repository.UserProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthorCardCacheTest {
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    private AuthorCardCache authorCardCache;
+
+    @BeforeEach
+    void setUp() {
+        authorCardCache = new AuthorCardCache(userProfileRepository, 100, 600);
+    }
+
+    @Test
+    void getAll_ShouldLoadOnlyMissesInOneQuery() {
+        when(userProfileRepository.findNamesAndAvatarsByUserIds(List.of(1, 2))).thenReturn(List.<Object[]>of(
+                new Object[]{1, "Alice", "alice.jpg"}
+        ));
+        authorCardCache.getAll(List.of(1, 2));
+        when(userProfileRepository.findNamesAndAvatarsByUserIds(List.of(3))).thenReturn(List.<Object[]>of(
+                new Object[]{3, "Carol", null}
+        ));
+
+        Map<Integer, AuthorCard> cards = authorCardCache.getAll(List.of(3, 2, 1));
+
+        assertEquals(List.of(3, 2, 1), List.copyOf(cards.keySet()));
+        assertEquals(new AuthorCard(1, "Alice", "alice.jpg"), cards.get(1));
+        //No profile: an empty card, cached like the others
+        assertEquals(AuthorCard.empty(2), cards.get(2));
+        assertEquals("Carol", cards.get(3).fullName());
+        verify(userProfileRepository, times(2)).findNamesAndAvatarsByUserIds(anyCollection());
+    }
+
+    @Test
+    void evict_ShouldReloadTheCard() {
+        when(userProfileRepository.findNamesAndAvatarsByUserIds(List.of(1)))
+                .thenReturn(List.<Object[]>of(new Object[]{1, "Alice", null}))
+                .thenReturn(List.<Object[]>of(new Object[]{1, "Alice Smith", "alice.jpg"}));
+        assertEquals("Alice", authorCardCache.get(1).fullName());
+
+        authorCardCache.evict(1);
+
+        assertEquals("Alice Smith", authorCardCache.get(1).fullName());
+        assertEquals("alice.jpg", authorCardCache.get(1).avatarUrl());
+        verify(userProfileRepository, times(2)).findNamesAndAvatarsByUserIds(List.of(1));
+    }
+
+    @Test
+    void getAll_EvictedWhileLoading_ShouldNotCacheTheLoadedCard() {
+        when(userProfileRepository.findNamesAndAvatarsByUserIds(List.of(1))).thenAnswer(invocation -> {
+            //The profile changes while the old row is being read
+            authorCardCache.evict(1);
+            return List.<Object[]>of(new Object[]{1, "Old name", null});
+        }).thenReturn(List.<Object[]>of(new Object[]{1, "New name", null}));
+
+        assertEquals("Old name", authorCardCache.get(1).fullName());
+        assertEquals("New name", authorCardCache.get(1).fullName());
+    }
+}